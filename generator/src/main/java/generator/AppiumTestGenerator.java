@@ -1,26 +1,34 @@
 package generator;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 
 import javax.lang.model.element.Modifier;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
 
 import org.apache.commons.lang3.StringUtils;
-import org.junit.After;
-import org.junit.Before;
-import org.junit.Rule;
-import org.junit.Test;
-import org.openqa.selenium.By;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
@@ -32,26 +40,28 @@ import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
-import generator.mappers.AccountMapper;
+import generator.commands.CommandEmitterRegistry;
+import generator.frameworks.JUnit4Framework;
+import generator.frameworks.TestFramework;
 import generator.mappers.CommonStepMapper;
 import generator.mappers.ScriptMapper;
-import generator.mappers.SettingMapper;
+import generator.peephole.PeepholeOptimizer;
 import generator.test.annotation.NoResetSetting;
 import generator.test.annotation.TestingAccount;
-import generator.test.rules.ExceptionRule;
-import generator.test.rules.NoResetSettingRule;
-import generator.test.rules.UserLoginTestRule;
-import generator.test.utils.CommandUtils;
+import generator.test.utils.AppiumSessions;
 import io.appium.java_client.MobileElement;
-import io.appium.java_client.TouchAction;
 import io.appium.java_client.ios.IOSDriver;
 import io.appium.java_client.remote.MobileCapabilityType;
 import models.AccountInfo;
+import models.Command;
 import models.CommonMethod;
 import models.CommonUtilClass;
 import models.Feature;
 import models.Scenario;
 import models.Step;
+import models.commands.CommandNode;
+import models.commands.StepSequenceCommand;
+import models.commands.TouchActionCommand;
 
 /**
  * Script Generator
@@ -61,37 +71,133 @@ import models.Step;
  */
 public class AppiumTestGenerator {
 
-	private static final String ACCOUNT_PASSWORD = "password";
-	private static final String ACCOUNT_PID = "pid";
-	private static final String ACCOUNT_USERNAME = "userName";
+	public static final String ACCOUNT_PASSWORD = "password";
+	public static final String ACCOUNT_PID = "pid";
+	public static final String ACCOUNT_USERNAME = "userName";
+
+	private static final String BASE_TEST_CLASS = "AbstractAppiumTest";
+
+	/**
+	 * JVM預設不JIT編譯超過8000 bytes的Method(HugeMethodLimit)，Java限制Method最大64KB
+	 */
+	public static final int DEFAULT_MAX_METHOD_SIZE = 8000;
 
 	private static final String DEFAULT_PACKAGE = "com.esun.automation";
 	private static final String DEFAULT_UTIL_PACKAGE = "module";
 
-	private static String DEVICE_NAME;
-	private static final String DRIVER_IMPLICITLY_WAIT_SEC = "implicitlyWaitSec";
-	private static final String DRIVER_NAME = "driver";
+	public static final String DRIVER_IMPLICITLY_WAIT_SEC = "implicitlyWaitSec";
+	public static final String DRIVER_NAME = "driver";
+
+	private static final TypeName DRIVER_TYPE = ParameterizedTypeName.get(IOSDriver.class, MobileElement.class);
+
+	/**
+	 * 重複Step抽出的Class，位於共用步驟Package下
+	 */
+	private static final String EXTRACTED_CLASS = "SharedSteps";
+	private static final String EXTRACTED_PACKAGE = "shared";
+
+	public static final String PHONE_HEIGHT = "height";
+	public static final String PHONE_WIDTH = "width";
 
-	private static String DRIVER_PLATEFORM_VERSION;
-	private static TypeName DRIVER_TYPE = ParameterizedTypeName.get(IOSDriver.class, MobileElement.class);
-	private static final String PHONE_HEIGHT = "height";
-	private static final String PHONE_WIDTH = "width";
+	/**
+	 * Appium Session重複使用範圍：同一Test Class、整個Suite
+	 */
+	public static final String SESSION_CLASS = "class";
+	public static final String SESSION_SUITE = "suite";
 
+	private static final String TEST_RULE_DEVICE_POOL = "devicePoolRule";
 	private static final String TEST_RULE_EXCEPTION = "exceptionRule";
 	private static final String TEST_RULE_NO_RESET = "noResetSettingRule";
 	private static final String TEST_RULE_USER = "userLoginTestRule";
 
-	private Map<String, AccountInfo> accountInfos;
+	/**
+	 * 產生後是否在記憶體中編譯檢查
+	 */
+	private boolean compileCheck = false;
+
+	private List<CompileDiagnostic> compileDiagnostics = new ArrayList<>();
+
+	private final GenerationContext context;
 
 	private Map<String, MethodSpec> defaultMethodSpec = new HashMap<>();
-	private Map<String, Object> desiredCapabilities;
-	private Map<String, Object> driverProperties;
+
+	/**
+	 * 是否由DevicePool租借裝置，取代設定的裝置名稱與Appium URL
+	 */
+	private boolean devicePool = false;
+
+	/**
+	 * 產生前是否將Scenario之間重複的連續Step抽出為共用Method
+	 */
+	private boolean extractSequences = false;
+
+	/**
+	 * 依Command Kind產生Step的Code
+	 */
+	private final CommandEmitterRegistry emitters = CommandEmitterRegistry.getDefault();
+
 	private List<Feature> features;
+
+	private boolean incremental = false;
 	private List<JavaFile> javaFiles = new ArrayList<>();
+	private GenerationManifest manifest;
+
+	/**
+	 * Scenario Method估計的bytecode大小上限，超過時分割為數個Method，0為不分割
+	 */
+	private int maxMethodSize = DEFAULT_MAX_METHOD_SIZE;
+
+	/**
+	 * 產生Code前對Step清單的最佳化，預設全部停用
+	 */
+	private final PeepholeOptimizer optimizer = new PeepholeOptimizer();
 
 	private String outputDir = "examples/test";
 
-	private Map<String, CommonMethod> utilMethodsMapper = new HashMap<>();
+	/**
+	 * 同時產生Class的Thread數量，1為依序產生
+	 */
+	private int parallelism = 1;
+
+	/**
+	 * 重複Step抽出結果，未抽出時為null
+	 */
+	private StepSequenceExtractor.Result sequences;
+
+	/**
+	 * Appium Session重複使用範圍，null為每個Test Method建立新的Session
+	 */
+	private String sessionScope;
+
+	/**
+	 * 是否將setUp、tearDown與共用Field產生於同一裝置設定共用的abstract Base Class，Test Class只包含Scenario Method
+	 */
+	private boolean sharedBaseClass = false;
+
+	/**
+	 * 產生的Java檔(相對於輸出目錄)對應的Sheet，編譯訊息對應用
+	 */
+	private final Map<String, String> sheetNames = new ConcurrentHashMap<>();
+
+	/**
+	 * 來源Excel的識別名稱，產生檔案清單與Manifest依此區分
+	 */
+	private final String sourceId;
+
+	/**
+	 * 相同內容的Step只產生一次Code
+	 */
+	private final StepCodeCache stepCache = new StepCodeCache();
+
+	/**
+	 * 產生的Test Class使用的測試框架
+	 */
+	private TestFramework testFramework = new JUnit4Framework();
+
+	/**
+	 * 增量產生時略過的檔案(相對於輸出目錄)
+	 */
+	private List<String> unchangedFiles = new ArrayList<>();
 
 	private List<CommonUtilClass> utils;
 
@@ -101,131 +207,157 @@ public class AppiumTestGenerator {
 		Map<String, Object> data = reader.getData();
 		// 讀取excel之features(scripts)
 		features = (List<Feature>) data.get(ScriptMapper.TYPE);
-		// 讀取excel之裝置設定(Capabilities)
-		desiredCapabilities = ((Map<String, Map<String, Object>>) data.get(SettingMapper.TYPE))
-				.get("desiredCapabilities");
-		// 讀取excel之裝置設定(driver),處理等待時間用
-		driverProperties = ((Map<String, Map<String, Object>>) data.get(SettingMapper.TYPE)).get("driverProperties");
-		// 讀取excel之測試資料(data)
-		List<AccountInfo> accounts = (List<AccountInfo>) data.get(AccountMapper.TYPE);
-		accountInfos = new HashMap<>();
-		if (accounts != null)
-			for (AccountInfo acc : accounts) {
-				accountInfos.put(acc.getType(), acc);
-			}
 		// 讀取excel之共用步驟(CommonStep)
 		utils = (List<CommonUtilClass>) data.get(CommonStepMapper.TYPE);
+		// 讀取excel之裝置設定、測試資料及共用步驟對照
+		context = new GenerationContext(reader);
 
-		// 把中文MethodComment作為Key存起來，與Util-Method mapping)
-		if (utils != null)
-			utils.forEach(util -> {
-				util.getMethods().forEach(method -> {
-					utilMethodsMapper.put(method.getDesc(), method);
-				});
-			});
+		sourceId = ExcelReader.getWorkbookId(reader.getExcelFile());
 	}
 
 	/**
-	 * 依序產生Utils Class & Test Class
+	 * 在記憶體中一次編譯所有產生的Class，不寫入磁碟。增量產生時未重新產生的Class由輸出目錄的原始碼解析，
+	 * 錯誤訊息對應回Sheet、Scenario與Step
 	 * 
-	 * @throws IOException
+	 * @return 編譯錯誤與警告
 	 */
-	public void generate() throws IOException {
+	public List<CompileDiagnostic> checkCompilation() {
 
-		generateUtilsClass();
+		long start = System.currentTimeMillis();
 
-		generateTestClass();
-	}
+		InMemoryCompiler compiler = new InMemoryCompiler();
+		compiler.setSourcepath(outputDir);
 
-	/**
-	 * 
-	 * @param test
-	 *            Method Name
-	 * @return
-	 */
-	public Builder generateDefaultTestMethod(String testMethodName) {
-		return MethodSpec.methodBuilder(testMethodName).addModifiers(Modifier.PUBLIC).returns(void.class)
-				.addAnnotation(Test.class);
+		return reportCompilation(compiler.compile(javaFiles), javaFiles.size(), start);
 	}
 
 	/**
-	 * generate script method
+	 * 依序產生Utils Class & Test Class；parallelism大於1時各Class同時產生，輸出順序與內容與依序產生相同
 	 * 
-	 * @param scenario
-	 * @return
+	 * @throws IOException
 	 */
-	public MethodSpec generateScenariosMethod(Scenario scenario) {
+	public void generate() throws IOException {
 
-		Builder methodBuilder = generateDefaultTestMethod(scenario.getName());
+		if (incremental) {
+			manifest = new GenerationManifest(GenerationManifest.getManifestFile(outputDir, sourceId));
+		}
 
-		methodBuilder.addJavadoc(scenario.getDesc() + "\n");
+		if (extractSequences) {
+			sequences = new StepSequenceExtractor(getExtractedPackage(), EXTRACTED_CLASS, this::isExtractable)
+					.extract(features);
+			System.out.println(
+					MessageFormat.format("sequences: {0} extracted", sequences.getMethods().size()));
+		}
+
+		if (parallelism > 1) {
+			generateInParallel();
+		} else {
+			generateUtilsClass();
+
+			addJavaFile(generateSequenceClass());
 
-		for (Step step : scenario.getSteps()) {
+			addJavaFile(generateBaseClass());
 
-			addStepComment(methodBuilder, step);
+			generateTestClass();
+		}
 
-			String commandType = step.getCommand().getType();
-			String desc = step.getDesc();
-			List<Object> params = step.getCommand().getParams();
+		if (!optimizer.getEnabled().isEmpty()) {
+			System.out.println(MessageFormat.format("peephole: {0} {1,number,#} changes", optimizer.getEnabled(),
+					optimizer.getChangeCount()));
+		}
 
-			// 若為Then,add assert code
-			if ("Then".equals(step.getGherkinType())) {
+		if (compileCheck) {
+			checkCompilation();
+		}
+	}
 
-				if ("ByName".equals(commandType) || "ByXPath".equals(commandType)) {
+	/**
+	 * 產生裝置設定共用的abstract Base Class，不加入待輸出清單
+	 * 
+	 * @return 未使用共用Base Class，或增量產生且裝置設定未變更時回傳null
+	 */
+	public JavaFile generateBaseClass() {
 
-					String methodName = StringUtils.lowerCase(commandType.substring(2));
+		if (!sharedBaseClass) {
+			return null;
+		}
 
-					if (params.isEmpty()) {
-						continue;
-					}
+		if (defaultMethodSpec.isEmpty()) {
+			generateSetUpAndTearDownMethod();
+		}
 
-					String element = (String) params.get(0);
+		if (isUpToDate("base", getBaseClassHash(), getProfilePackage(), BASE_TEST_CLASS)) {
+			return null;
+		}
 
-					methodBuilder.addCode("$T<$T> expectedElements = $L.findElements($T.$L(\"$L\"));\n", List.class,
-							MobileElement.class, DRIVER_NAME, By.class, methodName, element);
+		TypeSpec.Builder classBuilder = TypeSpec.classBuilder(BASE_TEST_CLASS).addModifiers(Modifier.PUBLIC,
+				Modifier.ABSTRACT);
 
-					methodBuilder.addCode("assertTrue(expectedElements.size() >0);\n");
+		addFieldForTest(classBuilder, Modifier.PROTECTED);
 
-				}
+		classBuilder.addMethod(defaultMethodSpec.get("setUp"));
+		classBuilder.addMethod(defaultMethodSpec.get("tearDown"));
 
-			} else if ("ByName".equals(commandType) || "ByXPath".equals(commandType)) {
-				appendByNameOrByXPathCode(methodBuilder, commandType, params);
-			} else if (commandType.startsWith("TouchAction_")) {
-				appendTouchActionCode(methodBuilder, commandType);
-			} else if (commandType.startsWith("Waiting")) {
-				appendWaitingCode(methodBuilder, commandType, params);
-			} else if ("CheckAlert".equals(commandType)) {
-				appendCheckAlertCode(methodBuilder, commandType, params);
-			} else if ("Picker".equals(commandType)) {
-				appendPickerCode(methodBuilder, commandType, params);
-			} else if (utilMethodsMapper.containsKey(desc)) {
+		return JavaFile.builder(getProfilePackage(), classBuilder.build()).build();
+	}
 
-				CommonMethod clazz = utilMethodsMapper.get(desc);
+	/**
+	 * 
+	 * @param test
+	 *            Method Name
+	 * @return
+	 */
+	public Builder generateDefaultTestMethod(String testMethodName) {
+		Builder methodBuilder = MethodSpec.methodBuilder(testMethodName).addModifiers(Modifier.PUBLIC)
+				.returns(void.class);
+		testFramework.addTestAnnotations(methodBuilder);
+		return methodBuilder;
+	}
 
-				ClassName utilClass = ClassName.get(
-						DEFAULT_PACKAGE + "." + DEFAULT_UTIL_PACKAGE + "." + clazz.getPackageName(),
-						clazz.getClassName());
+	/**
+	 * generate script method，估計大小超過maxMethodSize時依Step順序分割為數個private Method，由Test Method依序呼叫
+	 * 
+	 * @param scenario
+	 * @return Test Method及分割出的Method
+	 */
+	public List<MethodSpec> generateScenarioMethods(Scenario scenario) {
+		return generateScenarioMethods(null, scenario, maxMethodSize, new HashSet<>());
+	}
 
-				methodBuilder.addCode("$T.$L($L,$L,$L,$L,$L);\n", utilClass, clazz.getName(), DRIVER_NAME,
-						ACCOUNT_USERNAME, ACCOUNT_PASSWORD, ACCOUNT_PID, DRIVER_IMPLICITLY_WAIT_SEC);
+	/**
+	 * generate script method，不分割
+	 * 
+	 * @param scenario
+	 * @return
+	 */
+	public MethodSpec generateScenariosMethod(Scenario scenario) {
+		return generateScenarioMethods(null, scenario, 0, new HashSet<>()).get(0);
+	}
 
-				AnnotationSpec annotationSpec = AnnotationSpec.builder(NoResetSetting.class)
-						.addMember("noReset", "$L", clazz.isNoReset()).build();
+	/**
+	 * 產生重複Step抽出的共用Class，不加入待輸出清單
+	 * 
+	 * @return 未抽出、沒有重複的Step，或增量產生且抽出結果未變更時回傳null
+	 */
+	public JavaFile generateSequenceClass() {
 
-				methodBuilder.addAnnotation(annotationSpec);
+		if (sequences == null || sequences.getMethods().isEmpty()) {
+			return null;
+		}
 
-			} else if (accountInfos.containsKey(desc)) {
+		if (isUpToDate("sequences", getSequenceClassHash(), getExtractedPackage(), EXTRACTED_CLASS)) {
+			return null;
+		}
 
-				AccountInfo acc = accountInfos.get(desc);
+		TypeSpec.Builder classBuilder = TypeSpec.classBuilder(EXTRACTED_CLASS).addModifiers(Modifier.PUBLIC);
 
-				AnnotationSpec annotationSpec = AnnotationSpec.builder(TestingAccount.class)
-						.addMember("userName", "$S", acc.getUserName()).addMember("password", "$S", acc.getPassword())
-						.addMember("pid", "$S", acc.getPid()).build();
-				methodBuilder.addAnnotation(annotationSpec);
-			}
+		for (CommonMethod method : sequences.getMethods()) {
+			classBuilder.addMethod(generateUtilMethod(method));
 		}
 
-		return methodBuilder.build();
+		TypeSpec typeSpec = classBuilder.addJavadoc("Script中重複的Step\n").build();
+
+		return JavaFile.builder(getExtractedPackage(), typeSpec).build();
 	}
 
 	/**
@@ -244,11 +376,12 @@ public class AppiumTestGenerator {
 	public MethodSpec generateSetUpMethod() {
 
 		Builder methodBuilder = MethodSpec.methodBuilder("setUp").addModifiers(Modifier.PUBLIC).returns(void.class)
-				.addJavadoc(getKuaiKuai()).addAnnotation(Before.class).addException(MalformedURLException.class);
+				.addJavadoc(getKuaiKuai()).addAnnotation(testFramework.getBeforeEach())
+				.addException(MalformedURLException.class);
 
-		methodBuilder.addCode(generateDesiredCapabilities("capabilities", desiredCapabilities));
+		methodBuilder.addCode(generateDesiredCapabilities("capabilities", context.getDesiredCapabilities()));
 
-		methodBuilder.addCode(generateDriver(DRIVER_NAME, "capabilities", driverProperties));
+		methodBuilder.addCode(generateDriver(DRIVER_NAME, "capabilities", context.getDriverProperties()));
 
 		methodBuilder.addCode(generateUserCode());
 
@@ -257,6 +390,111 @@ public class AppiumTestGenerator {
 		return methodBuilder.build();
 	}
 
+	/**
+	 * 產生單一Feature的測試Class，不加入待輸出清單
+	 * 
+	 * @param feature
+	 * @return 增量產生且Feature未變更時回傳null
+	 */
+	public JavaFile generateTestClass(Feature feature) {
+
+		if (defaultMethodSpec.isEmpty()) {
+			generateSetUpAndTearDownMethod();
+		}
+
+		String className = StringUtils.endsWith(feature.getName(), "Test") ? feature.getName()
+				: feature.getName() + "Test";
+
+		if (isUpToDate("feature." + feature.getSheetName(), getFeatureHash(feature),
+				getTestClassPackage(feature.getPackageName()), className)) {
+			return null;
+		}
+		sheetNames.put(getRelativeFile(getTestClassPackage(feature.getPackageName()), className),
+				feature.getSheetName());
+
+		TypeSpec.Builder classBuilder = TypeSpec.classBuilder(className).addModifiers(Modifier.PUBLIC);
+
+		// 使用同一Appium Server(裝置)的Test Class不同時執行
+		testFramework.addClassAnnotations(classBuilder, feature, devicePool ? null : "appium:" + getAppiumUrl());
+
+		if (sharedBaseClass) {
+			classBuilder.superclass(ClassName.get(getProfilePackage(), BASE_TEST_CLASS));
+		} else {
+			addFieldForTest(classBuilder, Modifier.PRIVATE);
+
+			List<MethodSpec> methods = new ArrayList<>();
+			methods.add(defaultMethodSpec.get("setUp"));
+			methods.add(defaultMethodSpec.get("tearDown"));
+
+			classBuilder.addMethods(methods);
+		}
+
+		// static Method無法得知子類別，共用Base Class時仍產生於各Test Class
+		if (SESSION_CLASS.equals(sessionScope)) {
+			classBuilder.addMethod(generateQuitSessionMethod(className));
+		}
+
+		// 分割出的Method不可與其他Scenario的Method同名
+		Set<String> methodNames = new HashSet<>();
+		feature.getScenarios().forEach(s -> methodNames.add(s.getName()));
+
+		for (Scenario s : feature.getScenarios()) {
+			classBuilder.addMethods(generateScenarioMethods(className, s, maxMethodSize, methodNames));
+		}
+
+		TypeSpec typeSpec = classBuilder.build();
+
+		return JavaFile.builder(getTestClassPackage(feature.getPackageName()), typeSpec)
+				.addStaticImport(testFramework.getAssertions(), "*").build();
+	}
+
+	/**
+	 * 產生單一共用步驟Class，不加入待輸出清單
+	 * 
+	 * @param utilClass
+	 * @return 增量產生且Sheet未變更時回傳null
+	 */
+	public JavaFile generateUtilClass(CommonUtilClass utilClass) {
+
+		String className = utilClass.getName();
+		String packageName = DEFAULT_PACKAGE + "." + DEFAULT_UTIL_PACKAGE + "." + utilClass.getPackageName();
+
+		if (isUpToDate("util." + utilClass.getSheetName(), getUtilClassHash(utilClass), packageName, className)) {
+			return null;
+		}
+		sheetNames.put(getRelativeFile(packageName, className), utilClass.getSheetName());
+
+		TypeSpec.Builder classBuilder = TypeSpec.classBuilder(className).addModifiers(Modifier.PUBLIC);
+
+		for (CommonMethod method : utilClass.getMethods()) {
+			classBuilder.addMethod(generateUtilMethod(method));
+		}
+
+		TypeSpec typeSpec = classBuilder.addJavadoc(utilClass.getDesc() + "\n").build();
+
+		return JavaFile.builder(packageName, typeSpec).build();
+	}
+
+	/**
+	 * 
+	 * @return 最近一次checkCompilation()或writeJar()的結果
+	 */
+	public List<CompileDiagnostic> getCompileDiagnostics() {
+		return compileDiagnostics;
+	}
+
+	public GenerationContext getContext() {
+		return context;
+	}
+
+	/**
+	 * 
+	 * @return generate()產生的Java檔，增量產生時不含略過的Class
+	 */
+	public List<JavaFile> getJavaFiles() {
+		return javaFiles;
+	}
+
 	/**
 	 * generate KuaiKuai Comment
 	 * 
@@ -293,257 +531,297 @@ public class AppiumTestGenerator {
 
 	}
 
-	public void setOutputDir(String outputDir) {
-		this.outputDir = outputDir;
+	/**
+	 * 
+	 * @return Scenario Method估計的bytecode大小上限，超過時依Step分割為數個Method，0為不分割
+	 */
+	public int getMaxMethodSize() {
+		return maxMethodSize;
 	}
 
 	/**
-	 * 將javaFile export to file
+	 * 
+	 * @return 需於generate()前設定啟用的Pass
 	 */
-	public void writeTo() {
-		javaFiles.forEach((javaFile) -> {
-			try {
-				javaFile.writeTo(new File(outputDir));
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		});
+	public PeepholeOptimizer getOptimizer() {
+		return optimizer;
+	}
+
+	public int getParallelism() {
+		return parallelism;
 	}
 
 	/**
-	 * define default method Parameter
 	 * 
-	 * @param methodBuilder
-	 * @return
+	 * @return null為每個Test Method建立新的Session
 	 */
-	private Builder addDefaultUtilMethodParameter(Builder methodBuilder) {
-		methodBuilder.addParameter(DRIVER_TYPE, DRIVER_NAME).addParameter(String.class, ACCOUNT_USERNAME)
-				.addParameter(String.class, ACCOUNT_PASSWORD).addParameter(String.class, ACCOUNT_PID)
-				.addParameter(TypeName.LONG, DRIVER_IMPLICITLY_WAIT_SEC);
+	public String getSessionScope() {
+		return sessionScope;
+	}
 
-		return methodBuilder;
+	public StepCodeCache getStepCache() {
+		return stepCache;
 	}
 
 	/**
-	 * generate Field
 	 * 
-	 * @param classBuilder
+	 * @return 預設為JUnit4Framework
 	 */
-	private void addFieldForTest(TypeSpec.Builder classBuilder) {
+	public TestFramework getTestFramework() {
+		return testFramework;
+	}
 
-		FieldSpec driverNameSpec = FieldSpec.builder(DRIVER_TYPE, DRIVER_NAME, Modifier.PRIVATE).build();
-		classBuilder.addField(driverNameSpec);
+	public List<CommonUtilClass> getUtils() {
+		return utils;
+	}
 
-		FieldSpec exceptionfieldSpec = FieldSpec.builder(ExceptionRule.class, TEST_RULE_EXCEPTION)
-				.addAnnotation(Rule.class).addModifiers(Modifier.PUBLIC).initializer("new $T()", ExceptionRule.class)
-				.build();
-		classBuilder.addField(exceptionfieldSpec);
+	public boolean isCompileCheck() {
+		return compileCheck;
+	}
 
-		FieldSpec fieldSpec = FieldSpec.builder(NoResetSettingRule.class, TEST_RULE_NO_RESET).addAnnotation(Rule.class)
-				.addModifiers(Modifier.PUBLIC).initializer("new $T()", NoResetSettingRule.class).build();
-		classBuilder.addField(fieldSpec);
+	public boolean isDevicePool() {
+		return devicePool;
+	}
 
-		FieldSpec memberFieldSpec = FieldSpec.builder(UserLoginTestRule.class, TEST_RULE_USER).addAnnotation(Rule.class)
-				.addModifiers(Modifier.PUBLIC).initializer("new $T()", UserLoginTestRule.class).build();
-		classBuilder.addField(memberFieldSpec);
+	public boolean isExtractSequences() {
+		return extractSequences;
+	}
 
-		classBuilder.addField(String.class, ACCOUNT_USERNAME, Modifier.PRIVATE);
-		classBuilder.addField(String.class, ACCOUNT_PID, Modifier.PRIVATE);
-		classBuilder.addField(String.class, ACCOUNT_PASSWORD, Modifier.PRIVATE);
+	public boolean isSharedBaseClass() {
+		return sharedBaseClass;
+	}
 
-		classBuilder.addField(Integer.class, PHONE_WIDTH, Modifier.PRIVATE);
-		classBuilder.addField(Integer.class, PHONE_HEIGHT, Modifier.PRIVATE);
+	/**
+	 * generate()後在記憶體中編譯檢查，需以JDK執行
+	 * 
+	 * @param compileCheck
+	 */
+	public void setCompileCheck(boolean compileCheck) {
+		this.compileCheck = compileCheck;
+	}
 
-		classBuilder.addField(TypeName.LONG, DRIVER_IMPLICITLY_WAIT_SEC, Modifier.PRIVATE);
+	/**
+	 * 由DevicePool租借裝置：Test Class以@ClassRule DevicePoolRule租借裝置名稱、Appium URL及WDA Port，
+	 * 平行執行時各Test Class使用不同裝置，同一Test Class的Method(含在其他Thread執行時)使用該Test Class租借的裝置。
+	 * 未設定裝置清單(System Property appium.devices)時只使用設定的裝置
+	 * 
+	 * @param devicePool
+	 */
+	public void setDevicePool(boolean devicePool) {
+		this.devicePool = devicePool;
 	}
 
 	/**
-	 * add Step Comment
+	 * 將各Feature的Scenario之間重複3個以上的連續Step(不含Then、共用步驟及測試資料Step)抽出為SharedSteps的Method，
+	 * 需讀取所有Feature後才能抽出，不適用於PipelinedGenerator
 	 * 
-	 * @param methodBuilder
-	 * @param step
+	 * @param extractSequences
 	 */
-	private void addStepComment(Builder methodBuilder, Step step) {
+	public void setExtractSequences(boolean extractSequences) {
+		this.extractSequences = extractSequences;
+	}
 
-		if (step.getGherkinType() == null) {
-			methodBuilder.addComment("$L $L $L", step.getDesc(), step.getCommand().getType(),
-					step.getCommand().getParams());
-		} else {
-			methodBuilder.addComment("$L $L $L $L", step.getGherkinType(), step.getDesc(), step.getCommand().getType(),
-					step.getCommand().getParams());
-		}
+	/**
+	 * 增量產生：只重新產生Sheet內容(或引用的共用步驟、測試資料、裝置設定)有變更的Class，
+	 * 以輸出目錄旁的Manifest記錄上次的Hash，需於generate()前設定outputDir
+	 * 
+	 * @param incremental
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
 	}
 
 	/**
-	 * 加上ByName/ByXPath code，並處理click/sendkeys/clear
 	 * 
-	 * @param methodBuilder
-	 * @param commandType
-	 * @param params
+	 * @param maxMethodSize
+	 *            Scenario Method估計的bytecode大小上限，0為不分割
 	 */
-	private void appendByNameOrByXPathCode(Builder methodBuilder, String commandType, List<Object> params) {
-		String methodName = StringUtils.lowerCase(commandType.substring(2));
-		if (params.isEmpty()) {
-			return;
+	public void setMaxMethodSize(int maxMethodSize) {
+		if (maxMethodSize < 0) {
+			throw new IllegalArgumentException("maxMethodSize must not be negative: " + maxMethodSize);
 		}
-		if (params.size() <= 1)
-			return;
-
-		String action = (String) params.get(1);
+		this.maxMethodSize = maxMethodSize;
+	}
 
-		if ("click".equals(action)) {
-			appendClickCode(methodBuilder, params, methodName);
-		} else if ("sendKeys".equals(action)) {
-			appendSendKeyCode(methodBuilder, params, methodName);
-		} else if ("clear".equals(action)) {
-			appendClearCode(methodBuilder, params, methodName);
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
 		}
+		this.parallelism = parallelism;
+	}
 
+	public void setOutputDir(String outputDir) {
+		this.outputDir = outputDir;
 	}
 
 	/**
-	 * 加上CheckAlert Code
+	 * 重複使用Appium Session：setUp改由AppiumSessions取得driver，Capabilities(noReset除外)相同時沿用Session並重新啟動App，
+	 * noReset為false時重設App。SESSION_CLASS於@AfterClass結束Session，SESSION_SUITE於JVM結束時結束
 	 * 
-	 * @param methodBuilder
-	 * @param commandType
-	 * @param params
+	 * @param sessionScope
+	 *            SESSION_CLASS、SESSION_SUITE，null為每個Test Method建立新的Session
 	 */
-	private void appendCheckAlertCode(Builder methodBuilder, String commandType, List<Object> params) {
-		String elementName = String.valueOf(params.get(0));
-		methodBuilder.addCode("$T.presenceClick($L,2L,$S,$L );\n", CommandUtils.class, DRIVER_NAME, elementName,
-				DRIVER_IMPLICITLY_WAIT_SEC);
+	public void setSessionScope(String sessionScope) {
+		if (sessionScope != null && !SESSION_CLASS.equals(sessionScope) && !SESSION_SUITE.equals(sessionScope)) {
+			throw new IllegalArgumentException("unknown session scope: " + sessionScope);
+		}
+		this.sessionScope = sessionScope;
 	}
 
-	/**
-	 * 加上Clear Code
-	 * 
-	 * @param methodBuilder
-	 * @param commandType
-	 * @param params
-	 */
-	private void appendClearCode(Builder methodBuilder, List<Object> params, String methodName) {
-		String element = (String) params.get(0);
-		methodBuilder.addCode("$L.findElement($T.$L(\"$L\")).clear();\n", DRIVER_NAME, By.class, methodName, element);
+	public void setSharedBaseClass(boolean sharedBaseClass) {
+		this.sharedBaseClass = sharedBaseClass;
 	}
 
 	/**
-	 * 加上Click Code
 	 * 
-	 * @param methodBuilder
-	 * @param params
-	 * @param methodName
+	 * @param testFramework
+	 *            JUnit4Framework或JUnit5Framework，需於generate()前設定
 	 */
-	private void appendClickCode(Builder methodBuilder, List<Object> params, String methodName) {
-		String element = (String) params.get(0);
-		methodBuilder.addCode("$L.findElement($T.$L(\"$L\")).click();\n", DRIVER_NAME, By.class, methodName, element);
+	public void setTestFramework(TestFramework testFramework) {
+		this.testFramework = testFramework;
 	}
 
 	/**
-	 * 加上Picker Code
+	 * 在記憶體中編譯所有產生的Class(增量產生時包含輸出目錄中未重新產生的Class)，
+	 * 連同generator.test執行期Class直接寫入Jar，不寫出Class檔
 	 * 
-	 * @param methodBuilder
-	 * @param commandType
-	 * @param params
+	 * @param jarFile
+	 * @return 編譯警告
+	 * @throws IOException
+	 *             編譯失敗時不寫入Jar
 	 */
-	private void appendPickerCode(Builder methodBuilder, String commandType, List<Object> params) {
+	public List<CompileDiagnostic> writeJar(String jarFile) throws IOException {
 
-		if (params.isEmpty()) {
-			return;
+		long start = System.currentTimeMillis();
+
+		List<Path> sourceFiles = new ArrayList<>();
+		for (String unchangedFile : unchangedFiles) {
+			sourceFiles.add(Paths.get(outputDir, unchangedFile));
 		}
 
-		String value = (String) params.get(0);
+		InMemoryCompiler.Result result = new InMemoryCompiler().compile(javaFiles, sourceFiles);
+		List<CompileDiagnostic> diagnostics = reportCompilation(result, javaFiles.size() + sourceFiles.size(),
+				start);
+
+		if (!result.isSuccess()) {
+			throw new IOException(MessageFormat.format("Compilation failed, {0} not written", jarFile));
+		}
 
-		methodBuilder.addCode("$L.findElement(By.xpath(\"//XCUIElementTypePickerWheel\")).setValue($S);\n", DRIVER_NAME,
-				value);
+		new TestJarWriter(jarFile).write(result.getClasses());
 
-		methodBuilder.addCode("$L.findElement(By.name(\"完成\")).click();\n", DRIVER_NAME);
+		return diagnostics;
 	}
 
 	/**
-	 * SendKey Method
-	 * 
-	 * @param methodBuilder
-	 * @param params
-	 * @param methodName
+	 * 將javaFile export to file，內容未變更的檔案不重新寫入，並刪除上次產生、這次沒有產生的檔案
 	 */
-	private void appendSendKeyCode(Builder methodBuilder, List<Object> params, String methodName) {
-		String element = String.valueOf(params.get(0));
-
-		String value = String.valueOf(params.get(2));
-
-		// Script時，處理AccountInfo用
-		if (value.startsWith("#{") && value.endsWith("}")) {
-
-			String[] tag = value.substring(2, value.length() - 1).split("\\.");
-			AccountInfo acc = accountInfos.get(tag[0]);
+	public void writeTo() {
+		try {
+			GeneratedSourceWriter writer = new GeneratedSourceWriter(outputDir, sourceId);
 
-			String m = tag[1];
+			unchangedFiles.forEach(writer::retain);
 
-			if (acc != null) {
-				if (StringUtils.equalsIgnoreCase(m, "password")) {
-					value = acc.getPassword();
-				} else if (StringUtils.equalsIgnoreCase(m, "pid")) {
-					value = acc.getPid();
-				} else if (StringUtils.equalsIgnoreCase(m, "userName")) {
-					value = acc.getUserName();
-				}
-			}
+			writer.writeAll(javaFiles);
+			writer.finish();
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 
-		// commonStep時，處理AccountInfo用
-		if (value.startsWith("${") && value.endsWith("}")) {
-			methodBuilder.addCode("$L.findElement($T.$L(\"$L\")).sendKeys($L);\n", DRIVER_NAME, By.class, methodName,
-					element, value.substring(2, value.length() - 1));
-		} else {
-			methodBuilder.addCode("$L.findElement($T.$L(\"$L\")).sendKeys($L);\n", DRIVER_NAME, By.class, methodName,
-					element, "\"" + value + "\"");
+		if (manifest != null) {
+			writeManifest();
 		}
 	}
 
 	/**
-	 * 加上滑動TouchAction code
+	 * define default method Parameter
 	 * 
 	 * @param methodBuilder
-	 * @param commandType
+	 * @return
 	 */
-	private void appendTouchActionCode(Builder methodBuilder, String commandType) {
-		String distance = commandType.replaceAll("TouchAction_", "");
+	private Builder addDefaultUtilMethodParameter(Builder methodBuilder) {
+		methodBuilder.addParameter(DRIVER_TYPE, DRIVER_NAME).addParameter(String.class, ACCOUNT_USERNAME)
+				.addParameter(String.class, ACCOUNT_PASSWORD).addParameter(String.class, ACCOUNT_PID)
+				.addParameter(TypeName.LONG, DRIVER_IMPLICITLY_WAIT_SEC);
+
+		return methodBuilder;
+	}
+
+	/**
+	 * generate Field
+	 * 
+	 * @param classBuilder
+	 * @param modifier
+	 *            driver、測試資料等Field的存取範圍，Base Class時為protected
+	 */
+	private void addFieldForTest(TypeSpec.Builder classBuilder, Modifier modifier) {
+
+		FieldSpec driverNameSpec = FieldSpec.builder(DRIVER_TYPE, DRIVER_NAME, modifier).build();
+		classBuilder.addField(driverNameSpec);
+
+		if (devicePool) {
+			Map<String, Object> capabilities = context.getDesiredCapabilities();
+			FieldSpec devicePoolFieldSpec = FieldSpec.builder(testFramework.getDevicePool(), TEST_RULE_DEVICE_POOL)
+					.addAnnotation(testFramework.getClassExtension())
+					.addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+					.initializer("new $T($S, $S)", testFramework.getDevicePool(),
+							capabilities.containsKey(MobileCapabilityType.DEVICE_NAME)
+									? String.valueOf(capabilities.get(MobileCapabilityType.DEVICE_NAME)) : null,
+							getAppiumUrl())
+					.build();
+			classBuilder.addField(devicePoolFieldSpec);
+		}
 
-		double distanceDouble = Double.parseDouble(distance);
+		FieldSpec exceptionfieldSpec = FieldSpec.builder(testFramework.getExceptionHandler(), TEST_RULE_EXCEPTION)
+				.addAnnotation(testFramework.getExtension()).addModifiers(Modifier.PUBLIC)
+				.initializer("new $T()", testFramework.getExceptionHandler()).build();
+		classBuilder.addField(exceptionfieldSpec);
+
+		FieldSpec fieldSpec = FieldSpec.builder(testFramework.getNoResetSetting(), TEST_RULE_NO_RESET)
+				.addAnnotation(testFramework.getExtension()).addModifiers(Modifier.PUBLIC)
+				.initializer("new $T()", testFramework.getNoResetSetting()).build();
+		classBuilder.addField(fieldSpec);
+
+		FieldSpec memberFieldSpec = FieldSpec.builder(testFramework.getUserLogin(), TEST_RULE_USER)
+				.addAnnotation(testFramework.getExtension()).addModifiers(Modifier.PUBLIC)
+				.initializer("new $T()", testFramework.getUserLogin()).build();
+		classBuilder.addField(memberFieldSpec);
 
-		int times = new Double(distanceDouble / 0.5).intValue();
+		classBuilder.addField(String.class, ACCOUNT_USERNAME, modifier);
+		classBuilder.addField(String.class, ACCOUNT_PID, modifier);
+		classBuilder.addField(String.class, ACCOUNT_PASSWORD, modifier);
 
-		for (int i = 0; i < times; i++) {
-			methodBuilder.addCode(
-					"(new $T($L)).press( ($L/2), $L -25).moveTo(0, (-1) * $L / 2 ).release().perform();\n",
-					TouchAction.class, DRIVER_NAME, PHONE_WIDTH, PHONE_HEIGHT, PHONE_HEIGHT);
+		classBuilder.addField(Integer.class, PHONE_WIDTH, modifier);
+		classBuilder.addField(Integer.class, PHONE_HEIGHT, modifier);
+
+		classBuilder.addField(TypeName.LONG, DRIVER_IMPLICITLY_WAIT_SEC, modifier);
+	}
+
+	/**
+	 * 加入待輸出清單
+	 * 
+	 * @param javaFile
+	 *            null時略過(增量產生時未變更的Class)
+	 */
+	private void addJavaFile(JavaFile javaFile) {
+		if (javaFile != null) {
+			javaFiles.add(javaFile);
 		}
 	}
 
 	/**
-	 * 加上等待時間Waiting Code
+	 * add Step Comment
 	 * 
-	 * @param methodBuilder
-	 * @param commandType
-	 * @param params
-	 */
-	private void appendWaitingCode(Builder methodBuilder, String commandType, List<Object> params) {
-		String secString = StringUtils.trim(commandType.replaceAll("Waiting", ""));
-		int seconds;
-		if (StringUtils.isBlank(secString)) {
-			if (params.size() == 0) {
-				return;
-			} else {
-				// 下拉式選單自訂Waiting time
-				seconds = Double.valueOf(String.valueOf(params.get(0))).intValue();
-			}
+	 * @param code
+	 * @param step
+	 */
+	private void addStepComment(CodeBlock.Builder code, Step step) {
+
+		if (step.getGherkinType() == null) {
+			code.add("// $L $L $L\n", step.getDesc(), step.getCommand().getType(), step.getCommand().getParams());
 		} else {
-			// 下拉式選單預設Waiting time，去底線/去S/去空白
-			seconds = Integer.parseInt(StringUtils.trim(StringUtils.strip(StringUtils.strip(secString, "_"), "s")));
+			code.add("// $L $L $L $L\n", step.getGherkinType(), step.getDesc(), step.getCommand().getType(),
+					step.getCommand().getParams());
 		}
-		// generate
-		methodBuilder.addCode("try { \n	$T.sleep($L* 1000);\n}catch($T e) { e.printStackTrace();\n}\n", Thread.class,
-				seconds, InterruptedException.class);
 	}
 
 	/**
@@ -577,23 +855,20 @@ public class AppiumTestGenerator {
 				builder.add("$L.setCapability(\"$L\", $L);\n", variable, entry.getKey(), entry.getValue());
 				builder.endControlFlow();
 			}
-			// 為generate PackageName，判斷property，將PLATFORM_VERSION去掉“.”，以“_”取代
+			// PLATFORM_VERSION只保留數字與“.”
 			else if (property.equals(MobileCapabilityType.PLATFORM_VERSION)) {
-				String version = (String) entry.getValue();
-				version = version.replaceAll("[^\\.0123456789]", "");
-				builder.add("$L.setCapability(\"$L\",\"$L\");\n", variable, entry.getKey(), version);
-
-				DRIVER_PLATEFORM_VERSION = StringUtils.replaceAll(version, "\\.", "_");
+				builder.add("$L.setCapability(\"$L\",\"$L\");\n", variable, entry.getKey(),
+						GenerationContext.getPlatformVersion(entry.getValue()));
 			} else {
 				builder.add("$L.setCapability(\"$L\",\"$L\");\n", variable, entry.getKey(), entry.getValue());
-
-				// 為generate PackageName，判斷property，將DEVICE_NAME去掉空白，轉為小寫
-				if (property.equals(MobileCapabilityType.DEVICE_NAME)) {
-					DEVICE_NAME = StringUtils.removeAll(StringUtils.lowerCase(String.valueOf(entry.getValue())), " ");
-				}
 			}
 		}
 
+		// 租借的裝置覆蓋設定的裝置名稱
+		if (devicePool) {
+			builder.add("$L.getDevice(getClass()).applyTo($L);\n", TEST_RULE_DEVICE_POOL, variable);
+		}
+
 		return builder.build();
 	}
 
@@ -601,11 +876,17 @@ public class AppiumTestGenerator {
 
 		CodeBlock.Builder builder = CodeBlock.builder();
 
-		String url = (String) properties.getOrDefault("appiumUrl", "http://127.0.0.1:4723/wd/hub");
 		int implicitlyWaitSec = (int) properties.get("implicitlyWait");
 
-		builder.add("$L= new $T<$T>(new $T(\"$L\"), $L);\n", driverName, IOSDriver.class, MobileElement.class,
-				URL.class, url, variable);
+		CodeBlock url = devicePool ? CodeBlock.of("$L.getDevice(getClass()).getUrl()", TEST_RULE_DEVICE_POOL)
+				: CodeBlock.of("new $T(\"$L\")", URL.class, getAppiumUrl());
+
+		if (sessionScope == null) {
+			builder.add("$L= new $T<$T>($L, $L);\n", driverName, IOSDriver.class, MobileElement.class, url,
+					variable);
+		} else {
+			builder.add("$L= $T.acquire(getClass(), $L, $L);\n", driverName, AppiumSessions.class, url, variable);
+		}
 
 		builder.add("$L= $L;\n", DRIVER_IMPLICITLY_WAIT_SEC, implicitlyWaitSec);
 
@@ -619,6 +900,174 @@ public class AppiumTestGenerator {
 		return builder.build();
 	}
 
+	/**
+	 * 以ForkJoinPool同時產生Utils Class & Test Class，各Class只讀取GenerationContext，依原順序收集結果
+	 */
+	private void generateInParallel() {
+
+		// setUp、tearDown所有Test Class共用，先產生
+		generateSetUpAndTearDownMethod();
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+			List<ForkJoinTask<JavaFile>> tasks = new ArrayList<>();
+
+			if (utils != null) {
+				for (CommonUtilClass utilClass : utils) {
+					tasks.add(pool.submit(() -> generateUtilClass(utilClass)));
+				}
+			}
+			tasks.add(pool.submit(this::generateSequenceClass));
+			tasks.add(pool.submit(this::generateBaseClass));
+			for (Feature feature : features) {
+				tasks.add(pool.submit(() -> generateTestClass(feature)));
+			}
+
+			for (ForkJoinTask<JavaFile> task : tasks) {
+				JavaFile javaFile = task.join();
+
+				if (javaFile != null) {
+					javaFiles.add(javaFile);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * generate Quit Session Method(@AfterClass/@AfterAll)，ExceptionRule擷取畫面後才結束Session。
+	 * Test Method平行執行時Session分散於多個Thread，依Test Class全部結束
+	 * 
+	 * @param className
+	 * @return
+	 */
+	private MethodSpec generateQuitSessionMethod(String className) {
+		return MethodSpec.methodBuilder("quitSession").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+				.returns(void.class).addAnnotation(testFramework.getAfterAll())
+				.addStatement("$T.quit($L.class)", AppiumSessions.class, className).build();
+	}
+
+	/**
+	 * 
+	 * @param className
+	 *            最佳化紀錄用，可為null
+	 * @param scenario
+	 * @param maxMethodSize
+	 *            估計的bytecode大小上限，0為不分割
+	 * @param methodNames
+	 *            Class中已使用的Method名稱，分割出的Method名稱會加入
+	 * @return 第一個為Test Method，其後為依序呼叫的分割Method
+	 */
+	private List<MethodSpec> generateScenarioMethods(String className, Scenario scenario, int maxMethodSize,
+			Set<String> methodNames) {
+
+		Builder methodBuilder = generateDefaultTestMethod(scenario.getName());
+
+		methodBuilder.addJavadoc(scenario.getDesc() + "\n");
+
+		List<StepCodeCache.StepCode> stepCodes = new ArrayList<>();
+		int size = 0;
+		List<Step> steps = optimizer.optimize(
+				className == null ? scenario.getName() : className + "." + scenario.getName(), getSteps(scenario),
+				this::getNode);
+
+		for (Step step : steps) {
+
+			StepCodeCache.StepCode stepCode = stepCache.get("scenario", step, this::generateScenarioStep);
+			stepCodes.add(stepCode);
+			size += stepCode.getEstimatedSize();
+
+			AnnotationSpec annotationSpec = getStepAnnotation(step);
+			if (annotationSpec != null) {
+				methodBuilder.addAnnotation(annotationSpec);
+			}
+		}
+
+		List<MethodSpec> methods = new ArrayList<>();
+
+		if (maxMethodSize == 0 || size <= maxMethodSize) {
+			stepCodes.forEach(stepCode -> methodBuilder.addCode(stepCode.getCode()));
+			methods.add(methodBuilder.build());
+			return methods;
+		}
+
+		// 依Step順序累計，超過上限前換下一個Method，單一Step超過上限時獨立一個Method
+		List<Integer> bounds = new ArrayList<>();
+		int from = 0;
+		while (from < stepCodes.size()) {
+			int to = from;
+			int partSize = 0;
+			while (to < stepCodes.size()
+					&& (to == from || partSize + stepCodes.get(to).getEstimatedSize() <= maxMethodSize)) {
+				partSize += stepCodes.get(to).getEstimatedSize();
+				to++;
+			}
+			bounds.add(to);
+			from = to;
+		}
+
+		String prefix = getPartPrefix(scenario.getName(), bounds.size(), methodNames);
+
+		List<MethodSpec> parts = new ArrayList<>();
+		from = 0;
+		for (int to : bounds) {
+			Builder partBuilder = MethodSpec.methodBuilder(prefix + (parts.size() + 1))
+					.addModifiers(Modifier.PRIVATE).returns(void.class)
+					.addJavadoc(MessageFormat.format("{0} Step {1,number,#}~{2,number,#}\n", scenario.getName(),
+							from + 1, to));
+			stepCodes.subList(from, to).forEach(stepCode -> partBuilder.addCode(stepCode.getCode()));
+			parts.add(partBuilder.build());
+
+			methodBuilder.addStatement("$N()", parts.get(parts.size() - 1));
+			from = to;
+		}
+
+		methods.add(methodBuilder.build());
+		methods.addAll(parts);
+		return methods;
+	}
+
+	/**
+	 * Script Step的註解與Code：Then產生驗證Code，其餘依Command產生，無對應的Command時呼叫共用步驟
+	 * 
+	 * @param step
+	 * @return
+	 */
+	private CodeBlock generateScenarioStep(Step step) {
+
+		CodeBlock.Builder code = CodeBlock.builder();
+
+		addStepComment(code, step);
+
+		CommandNode command = getNode(step);
+
+		// 若為Then,add assert code
+		if ("Then".equals(step.getGherkinType())) {
+
+			CodeBlock assertion = emitters.emitAssertion(command, context);
+			if (assertion != null) {
+				code.add(assertion);
+			}
+
+		} else if (emitters.canEmit(command)) {
+			code.add(emitters.emit(command, context));
+		} else if (context.getUtilMethodsMapper().containsKey(step.getDesc())) {
+
+			CommonMethod clazz = context.getUtilMethodsMapper().get(step.getDesc());
+
+			ClassName utilClass = ClassName.get(
+					DEFAULT_PACKAGE + "." + DEFAULT_UTIL_PACKAGE + "." + clazz.getPackageName(),
+					clazz.getClassName());
+
+			code.add("$T.$L($L,$L,$L,$L,$L);\n", utilClass, clazz.getName(), DRIVER_NAME, ACCOUNT_USERNAME,
+					ACCOUNT_PASSWORD, ACCOUNT_PID, DRIVER_IMPLICITLY_WAIT_SEC);
+		}
+
+		return code.build();
+	}
+
 	/**
 	 * 將driver設定至ExceptionRule
 	 * 
@@ -637,7 +1086,7 @@ public class AppiumTestGenerator {
 	 */
 	private MethodSpec generateTearDownMethod() {
 		Builder methodBuilder = MethodSpec.methodBuilder("tearDown").addModifiers(Modifier.PUBLIC).returns(void.class)
-				.addAnnotation(After.class);
+				.addAnnotation(testFramework.getAfterEach());
 
 		return methodBuilder.build();
 	}
@@ -647,32 +1096,13 @@ public class AppiumTestGenerator {
 	 */
 	private void generateTestClass() {
 
-		generateSetUpAndTearDownMethod();
-
 		// 產生script javaFile
 		for (Feature feature : features) {
+			JavaFile javaFile = generateTestClass(feature);
 
-			String className = StringUtils.endsWith(feature.getName(), "Test") ? feature.getName()
-					: feature.getName() + "Test";
-
-			TypeSpec.Builder classBuilder = TypeSpec.classBuilder(className).addModifiers(Modifier.PUBLIC);
-
-			addFieldForTest(classBuilder);
-
-			List<MethodSpec> methods = new ArrayList<>();
-			methods.add(defaultMethodSpec.get("setUp"));
-			methods.add(defaultMethodSpec.get("tearDown"));
-
-			classBuilder.addMethods(methods);
-
-			for (Scenario s : feature.getScenarios()) {
-				classBuilder.addMethod(generateScenariosMethod(s));
+			if (javaFile != null) {
+				javaFiles.add(javaFile);
 			}
-
-			TypeSpec typeSpec = classBuilder.build();
-
-			javaFiles.add(JavaFile.builder(getTestClassPackage(feature.getPackageName()), typeSpec)
-					.addStaticImport(org.junit.Assert.class, "*").build());
 		}
 	}
 
@@ -709,31 +1139,47 @@ public class AppiumTestGenerator {
 		methodBuilder.returns(void.class).addJavadoc(MessageFormat.format(
 				"{0}\n\n@param {1}\n@param {2}\n@param {3}\n@param {4}\n@param {5}\n@return\n", method.getDesc(),
 				DRIVER_NAME, ACCOUNT_USERNAME, ACCOUNT_PASSWORD, ACCOUNT_PID, DRIVER_IMPLICITLY_WAIT_SEC));
-		// 將每個Step轉成對應的Code
-		for (Step step : method.getSteps()) {
-
-			addStepComment(methodBuilder, step);
-
-			String commandType = step.getCommand().getType();
-			List<Object> params = step.getCommand().getParams();
-
-			if ("ByName".equals(commandType) || "ByXPath".equals(commandType)) {
-				appendByNameOrByXPathCode(methodBuilder, commandType, params);
-			} else if (commandType.startsWith("TouchAction_")) {
-				appendTouchActionCode(methodBuilder, commandType);
-			} else if (commandType.startsWith("Waiting")) {
-				appendWaitingCode(methodBuilder, commandType, params);
-			} else if ("CheckAlert".equals(commandType)) {
-				appendCheckAlertCode(methodBuilder, commandType, params);
-			} else if ("Picker".equals(commandType)) {
-				appendPickerCode(methodBuilder, commandType, params);
-			}
 
+		List<Step> steps = optimizer.optimize(method.getClassName() + "." + method.getName(), method.getSteps(),
+				this::getNode);
+
+		// static Method無Test Class的螢幕寬高Field，滑動前由driver取得
+		if (steps.stream().map(this::getNode)
+				.anyMatch(command -> command != null && TouchActionCommand.KIND.equals(command.getKind()))) {
+			methodBuilder.addStatement("$T $L = $L.manage().window().getSize().getWidth()", Integer.class,
+					PHONE_WIDTH, DRIVER_NAME);
+			methodBuilder.addStatement("$T $L = $L.manage().window().getSize().getHeight()", Integer.class,
+					PHONE_HEIGHT, DRIVER_NAME);
+		}
+
+		// 將每個Step轉成對應的Code
+		for (Step step : steps) {
+			methodBuilder.addCode(stepCache.get("util", step, this::generateUtilStep).getCode());
 		}
 
 		return methodBuilder.build();
 	}
 
+	/**
+	 * 共用步驟Step的註解與Code
+	 * 
+	 * @param step
+	 * @return
+	 */
+	private CodeBlock generateUtilStep(Step step) {
+
+		CodeBlock.Builder code = CodeBlock.builder();
+
+		addStepComment(code, step);
+
+		CodeBlock command = emitters.emit(getNode(step), context);
+		if (command != null) {
+			code.add(command);
+		}
+
+		return code.build();
+	}
+
 	/**
 	 * generate Utils Class
 	 */
@@ -743,21 +1189,236 @@ public class AppiumTestGenerator {
 
 			// 產生Util javaFile
 			for (CommonUtilClass utilClass : utils) {
+				JavaFile javaFile = generateUtilClass(utilClass);
 
-				String className = utilClass.getName();
-				TypeSpec.Builder classBuilder = TypeSpec.classBuilder(className).addModifiers(Modifier.PUBLIC);
+				if (javaFile != null) {
+					javaFiles.add(javaFile);
+				}
+			}
+	}
+
+	/**
+	 * 
+	 * @return 裝置設定的Appium URL
+	 */
+	private String getAppiumUrl() {
+		return (String) context.getDriverProperties().getOrDefault("appiumUrl", "http://127.0.0.1:4723/wd/hub");
+	}
+
+	/**
+	 * Base Class只與裝置設定有關
+	 * 
+	 * @return
+	 */
+	private String getBaseClassHash() {
+		return Hashing.sha256().newHasher()
+				.putString(new TreeMap<>(context.getDesiredCapabilities()).toString(), StandardCharsets.UTF_8)
+				.putString(new TreeMap<>(context.getDriverProperties()).toString(), StandardCharsets.UTF_8)
+				.putString("session=" + sessionScope, StandardCharsets.UTF_8)
+				.putString("devicePool=" + devicePool, StandardCharsets.UTF_8)
+				.putString("testFramework=" + testFramework.getName(), StandardCharsets.UTF_8).hash().toString();
+	}
+
+	/**
+	 * 重複Step抽出的Class的PackageName，ex: com.esun.automation.module.shared
+	 * 
+	 * @return
+	 */
+	private String getExtractedPackage() {
+		return DEFAULT_PACKAGE + "." + DEFAULT_UTIL_PACKAGE + "." + EXTRACTED_PACKAGE;
+	}
+
+	/**
+	 * Feature的輸入Hash：Sheet內容、裝置設定，以及引用的共用步驟與測試資料
+	 * 
+	 * @param feature
+	 * @return Sheet無Hash時回傳null
+	 */
+	private String getFeatureHash(Feature feature) {
+		String fingerprint = context.getFingerprints().get(feature.getSheetName());
+		if (fingerprint == null) {
+			return null;
+		}
+
+		Hasher hasher = Hashing.sha256().newHasher().putString(fingerprint, StandardCharsets.UTF_8)
+				.putString(new TreeMap<>(context.getDesiredCapabilities()).toString(), StandardCharsets.UTF_8)
+				.putString(new TreeMap<>(context.getDriverProperties()).toString(), StandardCharsets.UTF_8);
 
-				for (CommonMethod method : utilClass.getMethods()) {
-					classBuilder.addMethod(generateUtilMethod(method));
+		if (sharedBaseClass) {
+			hasher.putString("extends " + BASE_TEST_CLASS, StandardCharsets.UTF_8);
+		}
+
+		hasher.putString("maxMethodSize=" + maxMethodSize, StandardCharsets.UTF_8);
+		hasher.putString("session=" + sessionScope, StandardCharsets.UTF_8);
+		hasher.putString("devicePool=" + devicePool, StandardCharsets.UTF_8);
+		hasher.putString("testFramework=" + testFramework.getName(), StandardCharsets.UTF_8);
+		hasher.putString("peephole=" + optimizer.getEnabled(), StandardCharsets.UTF_8);
+
+		// 抽出的Method編號與其他Sheet有關
+		if (sequences != null) {
+			for (Scenario scenario : feature.getScenarios()) {
+				for (Step step : sequences.getSteps(scenario)) {
+					if (getNode(step) instanceof StepSequenceCommand) {
+						hasher.putString(step.getCommand().getParams().toString(), StandardCharsets.UTF_8);
+					}
 				}
+			}
+		}
 
-				TypeSpec typeSpec = classBuilder.addJavadoc(utilClass.getDesc() + "\n").build();
+		for (Scenario scenario : feature.getScenarios()) {
+			for (Step step : scenario.getSteps()) {
 
-				javaFiles.add(JavaFile
-						.builder(DEFAULT_PACKAGE + "." + DEFAULT_UTIL_PACKAGE + "." + utilClass.getPackageName(),
-								typeSpec)
-						.build());
+				CommonMethod method = context.getUtilMethodsMapper().get(step.getDesc());
+				if (method != null) {
+					hasher.putString(method.getPackageName() + "." + method.getClassName() + "." + method.getName()
+							+ ":" + method.isNoReset(), StandardCharsets.UTF_8);
+				}
+
+				AccountInfo acc = context.getAccountInfos().get(step.getDesc());
+				if (acc != null) {
+					hasher.putString(acc.toString(), StandardCharsets.UTF_8);
+				}
+
+				// sendKeys中引用的測試資料 #{type.field}
+				for (Object param : step.getCommand().getParams()) {
+					String value = String.valueOf(param);
+					if (value.startsWith("#{") && value.endsWith("}")) {
+						String type = StringUtils.substringBefore(value.substring(2, value.length() - 1), ".");
+						hasher.putString(String.valueOf(context.getAccountInfos().get(type)), StandardCharsets.UTF_8);
+					}
+				}
 			}
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * 讀取時已解析的Command；未解析時(ex: 自行建立的Step)於此解析
+	 * 
+	 * @param step
+	 * @return 無對應的Emitter時回傳null
+	 */
+	private CommandNode getNode(Step step) {
+		Command command = step.getCommand();
+		return command.getNode() != null ? command.getNode() : emitters.parse(command.getType(), command.getParams());
+	}
+
+	/**
+	 * 分割Method的名稱前綴，ex: loginPart；與已使用的Method同名時加上底線，ex: loginPart_
+	 * 
+	 * @param scenarioName
+	 * @param count
+	 *            分割數量
+	 * @param methodNames
+	 *            已使用的Method名稱，回傳前加入分割Method的名稱
+	 * @return
+	 */
+	private String getPartPrefix(String scenarioName, int count, Set<String> methodNames) {
+
+		String prefix = scenarioName + "Part";
+		boolean conflict = true;
+		while (conflict) {
+			conflict = false;
+			for (int i = 1; i <= count && !conflict; i++) {
+				conflict = methodNames.contains(prefix + i);
+			}
+			if (conflict) {
+				prefix += "_";
+			}
+		}
+
+		for (int i = 1; i <= count; i++) {
+			methodNames.add(prefix + i);
+		}
+		return prefix;
+	}
+
+	/**
+	 * 裝置設定的PackageName，ex: com.esun.automation.iphone8.ios11_2
+	 * 
+	 * @return
+	 */
+	private String getProfilePackage() {
+		return DEFAULT_PACKAGE + "." + context.getDeviceName() + ".ios" + context.getDriverPlatformVersion();
+	}
+
+	/**
+	 * 產生的Java檔相對於輸出目錄的路徑
+	 * 
+	 * @param packageName
+	 * @param className
+	 * @return
+	 */
+	private String getRelativeFile(String packageName, String className) {
+		return packageName.replace('.', '/') + "/" + className + ".java";
+	}
+
+	/**
+	 * 編譯來源相對於輸出目錄的路徑：記憶體中的JavaFile本身即為相對路徑，由sourcepath讀取的檔案為絕對路徑
+	 * 
+	 * @param source
+	 * @return
+	 */
+	private String getRelativeFile(JavaFileObject source) {
+		URI uri = source.toUri();
+		if (!uri.isAbsolute()) {
+			return uri.getPath();
+		}
+		return Paths.get(outputDir).toAbsolutePath().normalize().relativize(Paths.get(uri)).toString()
+				.replace('\\', '/');
+	}
+
+	/**
+	 * 抽出的Class只與抽出的Step及其引用的測試資料有關
+	 * 
+	 * @return
+	 */
+	private String getSequenceClassHash() {
+		Hasher hasher = Hashing.sha256().newHasher();
+		for (CommonMethod method : sequences.getMethods()) {
+			hasher.putString(method.getName() + ":" + method.getSteps(), StandardCharsets.UTF_8);
+		}
+		return hasher.putString(new TreeMap<>(context.getAccountInfos()).toString(), StandardCharsets.UTF_8)
+				.putString("peephole=" + optimizer.getEnabled(), StandardCharsets.UTF_8).hash().toString();
+	}
+
+	/**
+	 * Script Step對應的Annotation：共用步驟加上NoResetSetting，測試資料加上TestingAccount
+	 * 
+	 * @param step
+	 * @return 無Annotation時回傳null
+	 */
+	private AnnotationSpec getStepAnnotation(Step step) {
+
+		if ("Then".equals(step.getGherkinType()) || emitters.canEmit(getNode(step))) {
+			return null;
+		}
+
+		String desc = step.getDesc();
+
+		if (context.getUtilMethodsMapper().containsKey(desc)) {
+
+			CommonMethod clazz = context.getUtilMethodsMapper().get(desc);
+
+			return AnnotationSpec.builder(NoResetSetting.class).addMember("noReset", "$L", clazz.isNoReset()).build();
+
+		} else if (context.getAccountInfos().containsKey(desc)) {
+
+			AccountInfo acc = context.getAccountInfos().get(desc);
+
+			return AnnotationSpec.builder(TestingAccount.class).addMember("userName", "$S", acc.getUserName())
+					.addMember("password", "$S", acc.getPassword()).addMember("pid", "$S", acc.getPid()).build();
+		}
+		return null;
+	}
+
+	/**
+	 * 
+	 * @param scenario
+	 * @return 抽出重複Step後的Step
+	 */
+	private List<Step> getSteps(Scenario scenario) {
+		return sequences == null ? scenario.getSteps() : sequences.getSteps(scenario);
 	}
 
 	/**
@@ -767,6 +1428,104 @@ public class AppiumTestGenerator {
 	 * @return
 	 */
 	private String getTestClassPackage(String packageName) {
-		return DEFAULT_PACKAGE + "." + DEVICE_NAME + ".ios" + DRIVER_PLATEFORM_VERSION + "." + packageName;
+		return getProfilePackage() + "." + packageName;
+	}
+
+	/**
+	 * 共用步驟Class只與自身Sheet內容及啟用的最佳化有關
+	 * 
+	 * @param utilClass
+	 * @return Sheet無Hash時回傳null
+	 */
+	private String getUtilClassHash(CommonUtilClass utilClass) {
+		String fingerprint = context.getFingerprints().get(utilClass.getSheetName());
+		if (fingerprint == null || optimizer.getEnabled().isEmpty()) {
+			return fingerprint;
+		}
+		return Hashing.sha256().newHasher().putString(fingerprint, StandardCharsets.UTF_8)
+				.putString("peephole=" + optimizer.getEnabled(), StandardCharsets.UTF_8).hash().toString();
+	}
+
+	/**
+	 * 可抽出的Step：由Command產生Code的非Then Step，不影響Test Method的Annotation
+	 * 
+	 * @param step
+	 * @return
+	 */
+	private boolean isExtractable(Step step) {
+		return !"Then".equals(step.getGherkinType()) && emitters.canEmit(getNode(step));
+	}
+
+	/**
+	 * 增量產生時，輸入Hash與上次相同且檔案仍存在則略過；並將這次的Hash記錄至Manifest
+	 * 
+	 * @param key
+	 * @param hash
+	 * @param packageName
+	 * @param className
+	 * @return
+	 */
+	private synchronized boolean isUpToDate(String key, String hash, String packageName, String className) {
+		if (manifest == null) {
+			return false;
+		}
+
+		// 無Hash時一律重新產生，仍記錄檔案以免被當成過期檔案刪除
+		boolean upToDate = hash != null && manifest.isUpToDate(key, hash, outputDir);
+
+		String relativeFile = getRelativeFile(packageName, className);
+
+		manifest.put(key, hash == null ? "" : hash, relativeFile);
+
+		if (upToDate) {
+			unchangedFiles.add(relativeFile);
+		}
+		return upToDate;
+	}
+
+	/**
+	 * 編譯訊息對應回Sheet並印出
+	 * 
+	 * @param result
+	 * @param fileCount
+	 * @param start
+	 * @return
+	 */
+	private List<CompileDiagnostic> reportCompilation(InMemoryCompiler.Result result, int fileCount, long start) {
+
+		List<CompileDiagnostic> diagnostics = new ArrayList<>();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : result.getDiagnostics()) {
+
+			if (diagnostic.getKind() == Diagnostic.Kind.NOTE) {
+				continue;
+			}
+
+			String file = diagnostic.getSource() == null ? null : getRelativeFile(diagnostic.getSource());
+
+			diagnostics.add(CompileDiagnostic.of(diagnostic, file, file == null ? null : sheetNames.get(file)));
+		}
+
+		diagnostics.forEach(System.err::println);
+
+		System.out.println(MessageFormat.format("compile: {0} files, {1} errors, {2,number,#} ms", fileCount,
+				diagnostics.stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).count(),
+				System.currentTimeMillis() - start));
+
+		compileDiagnostics = diagnostics;
+		return diagnostics;
+	}
+
+	/**
+	 * 儲存Manifest，已不存在Sheet的產生檔案由GeneratedSourceWriter刪除
+	 */
+	private void writeManifest() {
+		try {
+			manifest.save();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		System.out.println(MessageFormat.format("incremental: {0} generated, {1} unchanged", javaFiles.size(),
+				unchangedFiles.size()));
 	}
 }
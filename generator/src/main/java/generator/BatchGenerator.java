@@ -0,0 +1,549 @@
+package generator;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+
+import org.apache.commons.lang3.StringUtils;
+
+import generator.frameworks.JUnit4Framework;
+import generator.frameworks.JUnit5Framework;
+import generator.frameworks.TestFramework;
+import generator.peephole.PeepholeOptimizer;
+
+/**
+ * 批次產生：一次處理整個目錄或Glob所指定的多個Excel，每個Excel各自讀取與產生，並以固定數量的Thread同時執行
+ *
+ * @author Cyndi
+ *
+ */
+public class BatchGenerator {
+
+	private static final String EXCEL_LOCK_FILE_PREFIX = "~$";
+
+	private static final String GLOB_CHARACTERS = "*?[{";
+
+	private static final String WORKBOOK_SUFFIX = ".xlsx";
+
+	/**
+	 * 產生後在記憶體中編譯檢查，有編譯錯誤的Excel視為失敗(不適用於管線模式)
+	 */
+	private boolean compileCheck = false;
+
+	/**
+	 * 見AppiumTestGenerator.setDevicePool
+	 */
+	private boolean devicePool = false;
+
+	/**
+	 * 見AppiumTestGenerator.setExtractSequences(不適用於管線模式)
+	 */
+	private boolean extractSequences = false;
+
+	/**
+	 * 各Excel編譯後的測試Jar輸出目錄，檔名為Excel的識別名稱(見ExcelReader.getWorkbookId)；null時不產生Jar(不適用於管線模式)
+	 */
+	private String jarDir;
+
+	/**
+	 * 見AppiumTestGenerator.setMaxMethodSize
+	 */
+	private int maxMethodSize = AppiumTestGenerator.DEFAULT_MAX_METHOD_SIZE;
+
+	/**
+	 * 是否將所有Excel輸出至同一目錄；false時各Excel輸出至以識別名稱(檔名加路徑Hash)命名的子目錄，不同目錄下的同名Excel不會互相覆蓋
+	 */
+	private boolean merged = false;
+
+	private final String outputDir;
+
+	/**
+	 * 啟用的PeepholePass名稱
+	 */
+	private Set<String> peepholePasses = Collections.emptySet();
+
+	/**
+	 * 同時處理的Excel數量
+	 */
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * 以PipelinedGenerator產生(一律串流讀取，不使用快照)
+	 */
+	private boolean pipelined = false;
+
+	/**
+	 * 見AppiumTestGenerator.setSessionScope
+	 */
+	private String sessionScope;
+
+	/**
+	 * 見AppiumTestGenerator.setSharedBaseClass
+	 */
+	private boolean sharedBaseClass = false;
+
+	private String snapshotDir;
+
+	private boolean streaming = false;
+
+	/**
+	 * 見AppiumTestGenerator.setTestFramework
+	 */
+	private TestFramework testFramework = new JUnit4Framework();
+
+	public BatchGenerator(String outputDir) {
+		this.outputDir = outputDir;
+	}
+
+	/**
+	 * 參數：&lt;Excel目錄或Glob&gt; &lt;輸出目錄&gt; [--merged] [--streaming] [--threads=N]
+	 * [--snapshot=目錄] [--pipelined] [--watch] [--debounce=毫秒] [--base-class] [--check] [--jar=目錄]
+	 * [--max-method-size=N] [--extract-sequences] [--peephole[=pass,...]] [--session=class|suite]
+	 * [--device-pool] [--junit5]
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 2) {
+			System.err.println(
+					"usage: BatchGenerator <dir|glob> <outputDir> [--merged] [--streaming] [--threads=N] [--snapshot=dir]"
+							+ " [--pipelined] [--watch] [--debounce=ms] [--base-class] [--check]"
+							+ " [--jar=dir] [--max-method-size=N] [--extract-sequences]"
+							+ " [--peephole[=pass,...]] [--session=class|suite] [--device-pool]"
+							+ " [--junit5]");
+			System.exit(2);
+		}
+
+		BatchGenerator generator = new BatchGenerator(args[1]);
+		boolean watch = false;
+		long debounceMillis = -1;
+
+		for (int i = 2; i < args.length; i++) {
+			String arg = args[i];
+			if ("--merged".equals(arg)) {
+				generator.setMerged(true);
+			} else if ("--streaming".equals(arg)) {
+				generator.setStreaming(true);
+			} else if (arg.startsWith("--threads=")) {
+				generator.setParallelism(Integer.parseInt(StringUtils.substringAfter(arg, "=")));
+			} else if (arg.startsWith("--snapshot=")) {
+				generator.setSnapshotDir(StringUtils.substringAfter(arg, "="));
+			} else if ("--pipelined".equals(arg)) {
+				generator.setPipelined(true);
+			} else if ("--base-class".equals(arg)) {
+				generator.setSharedBaseClass(true);
+			} else if ("--check".equals(arg)) {
+				generator.setCompileCheck(true);
+			} else if (arg.startsWith("--jar=")) {
+				generator.setJarDir(StringUtils.substringAfter(arg, "="));
+			} else if (arg.startsWith("--max-method-size=")) {
+				generator.setMaxMethodSize(Integer.parseInt(StringUtils.substringAfter(arg, "=")));
+			} else if ("--extract-sequences".equals(arg)) {
+				generator.setExtractSequences(true);
+			} else if ("--peephole".equals(arg)) {
+				generator.setPeepholePasses(new PeepholeOptimizer().getPassNames());
+			} else if (arg.startsWith("--peephole=")) {
+				String[] passes = StringUtils.split(StringUtils.substringAfter(arg, "="), ',');
+				generator.setPeepholePasses(new LinkedHashSet<>(Arrays.asList(passes)));
+			} else if (arg.startsWith("--session=")) {
+				generator.setSessionScope(StringUtils.substringAfter(arg, "="));
+			} else if ("--device-pool".equals(arg)) {
+				generator.setDevicePool(true);
+			} else if ("--junit5".equals(arg)) {
+				generator.setTestFramework(new JUnit5Framework());
+			} else if ("--watch".equals(arg)) {
+				watch = true;
+			} else if (arg.startsWith("--debounce=")) {
+				debounceMillis = Long.parseLong(StringUtils.substringAfter(arg, "="));
+			} else {
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+
+		try {
+			generator.checkOptions();
+		} catch (IllegalArgumentException e) {
+			System.err.println("usage: " + e.getMessage());
+			System.exit(2);
+		}
+
+		if (watch) {
+			try (WorkbookWatcher watcher = new WorkbookWatcher(generator, args[0])) {
+				if (debounceMillis >= 0) {
+					watcher.setDebounceMillis(debounceMillis);
+				}
+				watcher.run();
+			}
+		} else if (!generator.generate(args[0]).isEmpty()) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * 找出目錄下(不含子目錄)的所有.xlsx；若非目錄則視為單一檔案或Glob，例如data/**&#47;*.xlsx
+	 *
+	 * @param input
+	 * @return 依路徑排序
+	 * @throws IOException
+	 */
+	public static List<Path> findWorkbooks(String input) throws IOException {
+
+		Path path = Paths.get(input);
+
+		if (Files.isDirectory(path)) {
+			try (Stream<Path> files = Files.list(path)) {
+				return files.filter(BatchGenerator::isWorkbook).sorted().collect(Collectors.toList());
+			}
+		}
+
+		if (Files.isRegularFile(path)) {
+			return Collections.singletonList(path);
+		}
+
+		Path base = getGlobBase(input);
+		if (base == null) {
+			return Collections.emptyList();
+		}
+
+		PathMatcher matcher = FileSystems.getDefault()
+				.getPathMatcher("glob:" + input.substring(getGlobBaseLength(input)));
+
+		try (Stream<Path> files = Files.walk(base)) {
+			return files.filter(file -> isWorkbook(file) && matcher.matches(base.relativize(file))).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * 依序讀取每個Excel並產生測試程式，個別Excel失敗不影響其他Excel
+	 *
+	 * @param input
+	 *            目錄或Glob
+	 * @return 失敗的Excel及其例外
+	 * @throws IOException
+	 */
+	public Map<Path, Throwable> generate(String input) throws IOException {
+
+		List<Path> workbooks = findWorkbooks(input);
+
+		if (workbooks.isEmpty()) {
+			System.out.println(MessageFormat.format("batch: no workbook found in {0}", input));
+			return Collections.emptyMap();
+		}
+
+		return generate(workbooks);
+	}
+
+	/**
+	 * 同時產生指定的Excel
+	 *
+	 * @param workbooks
+	 * @return 失敗的Excel及其例外
+	 * @throws IOException
+	 */
+	public Map<Path, Throwable> generate(List<Path> workbooks) throws IOException {
+
+		checkOptions();
+
+		Map<Path, Throwable> failures = new LinkedHashMap<>();
+
+		if (workbooks.isEmpty()) {
+			return failures;
+		}
+
+		long start = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, workbooks.size()));
+
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (Path workbook : workbooks) {
+				futures.add(executor.submit(() -> {
+					generate(workbook);
+					return null;
+				}));
+			}
+
+			// 依輸入順序收集結果
+			for (int i = 0; i < workbooks.size(); i++) {
+				try {
+					futures.get(i).get();
+				} catch (ExecutionException e) {
+					failures.put(workbooks.get(i), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Batch generation interrupted", e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		failures.forEach((workbook, e) -> {
+			System.err.println(MessageFormat.format("batch: {0} failed: {1}", workbook, e));
+		});
+		System.out.println(MessageFormat.format("batch: {0} workbooks, {1} failed, {2,number,#} ms", workbooks.size(),
+				failures.size(), System.currentTimeMillis() - start));
+
+		return failures;
+	}
+
+	public String getJarDir() {
+		return jarDir;
+	}
+
+	public int getMaxMethodSize() {
+		return maxMethodSize;
+	}
+
+	public String getOutputDir() {
+		return outputDir;
+	}
+
+	public Set<String> getPeepholePasses() {
+		return peepholePasses;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public String getSessionScope() {
+		return sessionScope;
+	}
+
+	public String getSnapshotDir() {
+		return snapshotDir;
+	}
+
+	public TestFramework getTestFramework() {
+		return testFramework;
+	}
+
+	/**
+	 * 該Excel的輸出目錄，ex: out/login-1a2b3c4d
+	 *
+	 * @param workbook
+	 * @return
+	 */
+	public String getWorkbookOutputDir(Path workbook) {
+		if (merged) {
+			return outputDir;
+		}
+		return Paths.get(outputDir, ExcelReader.getWorkbookId(workbook.toString())).toString();
+	}
+
+	public boolean isCompileCheck() {
+		return compileCheck;
+	}
+
+	public boolean isDevicePool() {
+		return devicePool;
+	}
+
+	public boolean isExtractSequences() {
+		return extractSequences;
+	}
+
+	public boolean isMerged() {
+		return merged;
+	}
+
+	public boolean isPipelined() {
+		return pipelined;
+	}
+
+	public boolean isSharedBaseClass() {
+		return sharedBaseClass;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public void setCompileCheck(boolean compileCheck) {
+		this.compileCheck = compileCheck;
+	}
+
+	public void setDevicePool(boolean devicePool) {
+		this.devicePool = devicePool;
+	}
+
+	public void setExtractSequences(boolean extractSequences) {
+		this.extractSequences = extractSequences;
+	}
+
+	public void setJarDir(String jarDir) {
+		this.jarDir = jarDir;
+	}
+
+	public void setMaxMethodSize(int maxMethodSize) {
+		this.maxMethodSize = maxMethodSize;
+	}
+
+	/**
+	 * 合併輸出時，不同Excel產生相同Class會互相覆蓋
+	 *
+	 * @param merged
+	 */
+	public void setMerged(boolean merged) {
+		this.merged = merged;
+	}
+
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * 
+	 * @param peepholePasses
+	 *            見PeepholeOptimizer.getPassNames
+	 */
+	public void setPeepholePasses(Set<String> peepholePasses) {
+		this.peepholePasses = peepholePasses;
+	}
+
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
+	public void setSessionScope(String sessionScope) {
+		this.sessionScope = sessionScope;
+	}
+
+	public void setSharedBaseClass(boolean sharedBaseClass) {
+		this.sharedBaseClass = sharedBaseClass;
+	}
+
+	public void setSnapshotDir(String snapshotDir) {
+		this.snapshotDir = snapshotDir;
+	}
+
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public void setTestFramework(TestFramework testFramework) {
+		this.testFramework = testFramework;
+	}
+
+	/**
+	 * Glob之前的固定路徑，作為搜尋起點
+	 *
+	 * @param input
+	 * @return 非Glob或目錄不存在時回傳null
+	 */
+	static Path getGlobBase(String input) {
+
+		if (StringUtils.indexOfAny(input, GLOB_CHARACTERS) < 0) {
+			return null;
+		}
+
+		int length = getGlobBaseLength(input);
+		// 去掉結尾的分隔符號，根目錄除外
+		Path base = Paths.get(input.substring(0, length <= 1 ? length : length - 1));
+
+		return Files.isDirectory(base) ? base : null;
+	}
+
+	/**
+	 * 管線模式不建立完整的產生結果，無法編譯檢查、輸出Jar或抽出跨Feature的共用步驟，不可同時指定
+	 *
+	 * @throws IllegalArgumentException
+	 */
+	private void checkOptions() {
+		if (pipelined && (compileCheck || jarDir != null || extractSequences)) {
+			throw new IllegalArgumentException(
+					"--pipelined cannot be combined with --check, --jar or --extract-sequences");
+		}
+	}
+
+	/**
+	 * 單一Excel：讀取、產生、輸出
+	 *
+	 * @param workbook
+	 * @throws IOException
+	 */
+	private void generate(Path workbook) throws IOException {
+
+		if (pipelined) {
+			PipelinedGenerator generator = new PipelinedGenerator(workbook.toString(), getWorkbookOutputDir(workbook));
+			generator.setSharedBaseClass(sharedBaseClass);
+			generator.setMaxMethodSize(maxMethodSize);
+			generator.setSessionScope(sessionScope);
+			generator.setDevicePool(devicePool);
+			generator.setTestFramework(testFramework);
+			generator.setPeepholePasses(peepholePasses);
+			generator.generate();
+			return;
+		}
+
+		ExcelReader reader = new ExcelReader(workbook.toString(), streaming);
+		reader.setSnapshotDir(snapshotDir);
+		reader.read();
+
+		AppiumTestGenerator generator = new AppiumTestGenerator(reader);
+		generator.setOutputDir(getWorkbookOutputDir(workbook));
+		generator.setSharedBaseClass(sharedBaseClass);
+		generator.setMaxMethodSize(maxMethodSize);
+		generator.setExtractSequences(extractSequences);
+		generator.setSessionScope(sessionScope);
+		generator.setDevicePool(devicePool);
+		generator.setTestFramework(testFramework);
+		peepholePasses.forEach(pass -> generator.getOptimizer().setEnabled(pass, true));
+		generator.setCompileCheck(compileCheck);
+		generator.generate();
+		generator.writeTo();
+
+		long errors = generator.getCompileDiagnostics().stream()
+				.filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).count();
+		if (errors > 0) {
+			throw new IOException(MessageFormat.format("{0} compile errors", errors));
+		}
+
+		if (jarDir != null) {
+			generator.writeJar(Paths.get(jarDir, ExcelReader.getWorkbookId(workbook.toString()) + ".jar").toString());
+		}
+	}
+
+	/**
+	 * Glob之前(含分隔符號)的字元數
+	 *
+	 * @param input
+	 * @return
+	 */
+	private static int getGlobBaseLength(String input) {
+		int wildcard = StringUtils.indexOfAny(input, GLOB_CHARACTERS);
+		return Math.max(input.lastIndexOf('/', wildcard), input.lastIndexOf('\\', wildcard)) + 1;
+	}
+
+	private static boolean isWorkbook(Path file) {
+		String fileName = file.getFileName().toString();
+		return Files.isRegularFile(file) && StringUtils.endsWithIgnoreCase(fileName, WORKBOOK_SUFFIX)
+				&& !fileName.startsWith(EXCEL_LOCK_FILE_PREFIX);
+	}
+}
@@ -0,0 +1,195 @@
+package generator;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 編譯訊息對應回Excel：Sheet、Scenario(或共用步驟Method)與第幾個Step
+ *
+ * @author Cyndi
+ *
+ */
+public final class CompileDiagnostic {
+
+	/**
+	 * JavaPoet以兩個空白縮排Class成員，ex: "  public void scenario0() {"
+	 */
+	private static final Pattern METHOD_DECLARATION = Pattern.compile("^  \\w[\\w<>\\[\\],. ]*?(\\w+)\\(.*");
+
+	/**
+	 * 分割Method的Javadoc，ex: "   * scenario0 Step 5~8"
+	 */
+	private static final Pattern PART_JAVADOC = Pattern.compile("^   \\* (\\w+) Step (\\d+)~\\d+");
+
+	/**
+	 * Method內第一層的Step註解，ex: "    // When 點擊首頁 ByName [首頁, click]"
+	 */
+	private static final Pattern STEP_COMMENT = Pattern.compile("^    // (.*)");
+
+	/**
+	 * 產生的Java檔相對於輸出目錄的路徑
+	 */
+	private final String file;
+
+	private final Diagnostic.Kind kind;
+
+	private final long line;
+
+	private final String message;
+
+	/**
+	 * Scenario或共用步驟的Method Name，不在Method內時為null
+	 */
+	private final String methodName;
+
+	/**
+	 * 來源Sheet，非產生的檔案時為null
+	 */
+	private final String sheetName;
+
+	/**
+	 * Step註解內容
+	 */
+	private final String step;
+
+	/**
+	 * Method內第幾個Step(從1開始)，分割的Method加上其起始Step，不在Step內時為0
+	 */
+	private final int stepIndex;
+
+	private CompileDiagnostic(String file, String sheetName, Diagnostic.Kind kind, long line, String message,
+			String methodName, int stepIndex, String step) {
+		this.file = file;
+		this.sheetName = sheetName;
+		this.kind = kind;
+		this.line = line;
+		this.message = message;
+		this.methodName = methodName;
+		this.stepIndex = stepIndex;
+		this.step = step;
+	}
+
+	/**
+	 * 由原始碼往上找出所在的Method與Step，分割的Method(ex: scenario0Part2)依其Javadoc對應回Scenario
+	 *
+	 * @param diagnostic
+	 * @param file
+	 *            產生的Java檔相對於輸出目錄的路徑
+	 * @param sheetName
+	 * @return
+	 */
+	public static CompileDiagnostic of(Diagnostic<? extends JavaFileObject> diagnostic, String file,
+			String sheetName) {
+
+		String methodName = null;
+		int stepIndex = 0;
+		String step = null;
+
+		long line = diagnostic.getLineNumber();
+
+		if (diagnostic.getSource() != null && line > 0) {
+			String[] lines;
+			try {
+				lines = diagnostic.getSource().getCharContent(true).toString().split("\n", -1);
+			} catch (IOException e) {
+				lines = new String[0];
+			}
+
+			for (int i = (int) Math.min(line, lines.length) - 1; i >= 0; i--) {
+				Matcher stepComment = STEP_COMMENT.matcher(lines[i]);
+				if (stepComment.matches()) {
+					stepIndex++;
+					if (step == null) {
+						step = stepComment.group(1);
+					}
+					continue;
+				}
+
+				Matcher method = METHOD_DECLARATION.matcher(lines[i]);
+				if (method.matches()) {
+					methodName = method.group(1);
+
+					Matcher part = findPartJavadoc(lines, i);
+					if (part != null && methodName.startsWith(part.group(1) + "Part")) {
+						methodName = part.group(1);
+						stepIndex += Integer.parseInt(part.group(2)) - 1;
+					}
+					break;
+				}
+			}
+
+			if (methodName == null) {
+				stepIndex = 0;
+				step = null;
+			}
+		}
+
+		return new CompileDiagnostic(file, sheetName, diagnostic.getKind(), line,
+				diagnostic.getMessage(Locale.getDefault()), methodName, stepIndex, step);
+	}
+
+	public String getFile() {
+		return file;
+	}
+
+	public Diagnostic.Kind getKind() {
+		return kind;
+	}
+
+	public long getLine() {
+		return line;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	public String getStep() {
+		return step;
+	}
+
+	public int getStepIndex() {
+		return stepIndex;
+	}
+
+	/**
+	 * ex: ERROR sheet [login] method [login] step 3 [ByName [首頁, click]] LoginUtils.java:40 cannot find symbol
+	 */
+	@Override
+	public String toString() {
+		return MessageFormat.format("{0} sheet [{1}] method [{2}] step {3} [{4}] {5}:{6,number,#} {7}", kind,
+				sheetName, methodName, stepIndex, step, file, line, message);
+	}
+
+	/**
+	 * Method宣告上方的Javadoc中，分割Method的Step範圍
+	 *
+	 * @param lines
+	 * @param declaration
+	 *            Method宣告所在行
+	 * @return 非分割的Method時為null
+	 */
+	private static Matcher findPartJavadoc(String[] lines, int declaration) {
+		for (int i = declaration - 1; i >= 0 && lines[i].startsWith("   *"); i--) {
+			Matcher part = PART_JAVADOC.matcher(lines[i]);
+			if (part.lookingAt()) {
+				return part;
+			}
+		}
+		return null;
+	}
+}
@@ -1,23 +1,36 @@
 package generator;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import com.google.common.hash.Hashing;
+
 import generator.handlers.HandlerExecution;
-import generator.mappers.AccountMapper;
-import generator.mappers.CommonStepMapper;
-import generator.mappers.ExcelSheetMapper;
-import generator.mappers.ScriptMapper;
-import generator.mappers.SettingMapper;
+import generator.mappers.ExcelSheetMapperRegistry;
+import generator.readers.ModelSnapshot;
+import generator.readers.ModelSnapshot.WorkbookKey;
+import generator.readers.ParsedSheet;
+import generator.readers.SheetFingerprint;
+import generator.readers.SheetRow;
+import generator.readers.StreamingWorkbookReader;
+import generator.readers.XSSFSheetRow;
 import models.AccountInfo;
 import models.CommonUtilClass;
 import models.Feature;
@@ -32,7 +45,7 @@ public class ExcelReader {
 
 	private List<AccountInfo> accounts = new ArrayList<>();
 
-	private final int count;
+	private int count;
 
 	private Map<String, Object> data = new HashMap<>();
 
@@ -42,11 +55,30 @@ public class ExcelReader {
 
 	private List<Feature> features = new ArrayList<>();
 
-	private List<ExcelSheetMapper<?>> mappers = new ArrayList<>();
+	/**
+	 * 各Sheet內容的Hash，依Sheet順序
+	 */
+	private Map<String, String> fingerprints = new LinkedHashMap<>();
+
+	/**
+	 * 平行解析Sheet的Thread數量，1為依序讀取
+	 */
+	private int parallelism = 1;
 
 	private Map<String, Object> properties = new HashMap<>();
 
-	private final XSSFWorkbook wb;
+	private ExcelSheetMapperRegistry registry = ExcelSheetMapperRegistry.getDefault();
+
+	/**
+	 * 快照存放目錄，null表示不使用快照
+	 */
+	private String snapshotDir;
+
+	private boolean snapshotLoaded;
+
+	private final boolean streaming;
+
+	private XSSFWorkbook wb;
 
 	/**
 	 * 
@@ -55,20 +87,47 @@ public class ExcelReader {
 	 * @throws IOException
 	 */
 	public ExcelReader(String excelFile) throws FileNotFoundException, IOException {
+		this(excelFile, false);
+	}
+
+	/**
+	 * 
+	 * @param excelFile檔案路徑
+	 * @param streaming
+	 *            是否以串流(SAX)方式讀取，不建立整個XSSFWorkbook，適用於大型Excel
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public ExcelReader(String excelFile, boolean streaming) throws FileNotFoundException, IOException {
 		this.excelFile = excelFile;
-		wb = new XSSFWorkbook(new FileInputStream(excelFile));
-		count = wb.getNumberOfSheets();
+		this.streaming = streaming;
 
-		mappers.add(new ScriptMapper());
-		mappers.add(new SettingMapper());
-		mappers.add(new AccountMapper());
-		mappers.add(new CommonStepMapper());
+		if (!new File(excelFile).isFile()) {
+			throw new FileNotFoundException(excelFile);
+		}
+	}
+
+	/**
+	 * Excel的識別名稱：檔名加上絕對路徑的Hash，不同目錄下的同名Excel不會互相覆蓋，ex: login-1a2b3c4d
+	 * 
+	 * @param excelFile
+	 * @return
+	 */
+	public static String getWorkbookId(String excelFile) {
+		Path path = Paths.get(excelFile).toAbsolutePath().normalize();
+		String name = StringUtils.removeEndIgnoreCase(path.getFileName().toString(), ".xlsx");
+		return name + "-" + Hashing.sha256().hashString(path.toString(), StandardCharsets.UTF_8).toString().substring(0, 8);
 	}
 
 	public List<AccountInfo> getAccounts() {
 		return accounts;
 	}
 
+	/**
+	 * Sheet數量，read()之後才有值
+	 * 
+	 * @return
+	 */
 	public int getCount() {
 		return count;
 	}
@@ -89,25 +148,117 @@ public class ExcelReader {
 		return features;
 	}
 
+	/**
+	 * 已讀取Sheet的內容Hash(Sheet名稱 -> Hash)，增量產生時用於判斷Sheet是否變更
+	 * 
+	 * @return
+	 */
+	public Map<String, String> getFingerprints() {
+		return fingerprints;
+	}
+
 	public Map<String, Object> getProperties() {
 		return properties;
 	}
 
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public ExcelSheetMapperRegistry getRegistry() {
+		return registry;
+	}
+
+	public String getSnapshotDir() {
+		return snapshotDir;
+	}
+
+	/**
+	 * 
+	 * @return read()之後才有值，串流讀取或由快照載入時為null
+	 */
 	public XSSFWorkbook getWb() {
 		return wb;
 	}
 
 	/**
-	 * 開始讀取Excel
+	 * 是否由快照載入(未開啟Excel)
+	 * 
+	 * @return
+	 */
+	public boolean isSnapshotLoaded() {
+		return snapshotLoaded;
+	}
+
+	/**
+	 * 開始讀取Excel，有設定快照目錄且Excel未變更時直接載入快照
 	 * 
 	 * @throws IOException
 	 */
 	public void read() throws IOException {
-		IntStream.range(0, count).forEach((index) -> {
-			parseSheet(wb.getSheetAt(index));
-		});
 
-		wb.close();
+		Path snapshotFile = null;
+		WorkbookKey key = null;
+
+		// 過濾過的Registry只讀取部分Sheet，存成快照會被完整讀取誤用
+		if (snapshotDir != null && registry == ExcelSheetMapperRegistry.getDefault()) {
+			snapshotFile = Paths.get(snapshotDir, getWorkbookId(excelFile) + ".snapshot");
+			key = WorkbookKey.of(Paths.get(excelFile));
+
+			ModelSnapshot snapshot = ModelSnapshot.load(snapshotFile, key);
+			if (snapshot != null) {
+				data.putAll(snapshot.getData());
+				fingerprints.putAll(snapshot.getFingerprints());
+				count = snapshot.getCount();
+				snapshotLoaded = true;
+				return;
+			}
+		}
+
+		if (streaming) {
+			readStreaming();
+		} else {
+			readWorkbook();
+		}
+
+		if (snapshotFile != null) {
+			ModelSnapshot snapshot = ModelSnapshot.of(data, fingerprints, count);
+			if (snapshot != null) {
+				try {
+					snapshot.save(snapshotFile, key);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 設定平行解析Sheet的Thread數量，僅串流讀取時有效(POI DOM物件非thread-safe)
+	 * 
+	 * @param parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * 使用自訂的Sheet Type對應，預設為ExcelSheetMapperRegistry.getDefault()
+	 * 
+	 * @param registry
+	 */
+	public void setRegistry(ExcelSheetMapperRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * 設定快照存放目錄，讀取後將Model存成快照(檔名為getWorkbookId(excelFile).snapshot，即Excel檔名加路徑Hash)，
+	 * 下次Excel大小、修改時間及CRC32皆相同時直接載入。使用自訂的Sheet Type對應(setRegistry)時只讀取部分Sheet，不使用快照
+	 * 
+	 * @param snapshotDir
+	 */
+	public void setSnapshotDir(String snapshotDir) {
+		this.snapshotDir = snapshotDir;
 	}
 
 	/**
@@ -194,34 +345,77 @@ public class ExcelReader {
 	}
 
 	/**
+	 * 將Sheet讀取結果合併至data
 	 * 
-	 * @param sheet
-	 * @return
+	 * @param parsedSheet
 	 */
-	private HandlerExecution<?> getHandler(XSSFSheet sheet) {
-		for (ExcelSheetMapper<?> mapper : mappers) {
-			HandlerExecution<?> handle = mapper.getHandler(sheet);
-			if (handle != null)
-				return handle;
-		}
-		return null;
+	private void addParsedSheet(ParsedSheet parsedSheet) {
+		parsedSheet.getExecution().addRecordTo(data);
+
+		fingerprints.put(parsedSheet.getName(), parsedSheet.getFingerprint());
 	}
 
 	/**
 	 * 
 	 * @param sheet
+	 * @param evaluator
 	 */
-	private void parseSheet(XSSFSheet sheet) {
+	private void parseSheet(XSSFSheet sheet, FormulaEvaluator evaluator) {
 
-		HandlerExecution<?> execution = getHandler(sheet);
+		HandlerExecution<?> execution = registry.getHandler(sheet);
 
 		if (execution == null) {
 			return;
 		}
 
-		execution.generate();
+		SheetFingerprint fingerprint = new SheetFingerprint();
 
-		execution.addRecordTo(data);
+		for (Row row : sheet) {
+			SheetRow sheetRow = new XSSFSheetRow(row, evaluator);
+
+			execution.handleRow(sheetRow);
+			fingerprint.update(sheetRow);
+		}
+
+		execution.setSheetName(sheet.getSheetName());
+
+		addParsedSheet(new ParsedSheet(sheet.getSheetName(), execution, fingerprint.getValue()));
+	}
+
+	/**
+	 * 以串流方式逐列讀取，非對應的Sheet於第一列即略過。平行讀取時各Sheet獨立解析，
+	 * 再依Sheet順序合併至data，結果與依序讀取相同
+	 * 
+	 * @throws IOException
+	 */
+	private void readStreaming() throws IOException {
+		try (StreamingWorkbookReader reader = new StreamingWorkbookReader(excelFile)) {
+			List<ParsedSheet> parsedSheets = reader.read(registry::getHandler, parallelism);
+
+			count = reader.getSheetCount();
+
+			parsedSheets.forEach(this::addParsedSheet);
+		}
+	}
+
+	/**
+	 * 以XSSFWorkbook(DOM)讀取，所有Sheet共用同一個FormulaEvaluator，相同儲存格只計算一次
+	 * 
+	 * @throws IOException
+	 */
+	private void readWorkbook() throws IOException {
+		try (FileInputStream in = new FileInputStream(excelFile)) {
+			wb = new XSSFWorkbook(in);
+		}
+		count = wb.getNumberOfSheets();
+
+		FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+
+		IntStream.range(0, count).forEach((index) -> {
+			parseSheet(wb.getSheetAt(index), evaluator);
+		});
+
+		wb.close();
 	}
 
 }
@@ -0,0 +1,281 @@
+package generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.squareup.javapoet.JavaFile;
+
+/**
+ * 輸出產生的Java檔：先在記憶體轉為文字，與磁碟上的檔案相同時不寫入(保留修改時間，避免IDE、Maven重新編譯)，
+ * 不同時先寫入暫存檔再搬移。結束時刪除上次產生、這次沒有產生的檔案，產生過的檔案依來源Excel記錄於輸出目錄旁的清單，
+ * 多個Excel輸出至同一目錄時只刪除各自產生的檔案
+ *
+ * @author Cyndi
+ *
+ */
+public class GeneratedSourceWriter {
+
+	private final AtomicInteger deletedCount = new AtomicInteger();
+
+	private final Path indexFile;
+
+	private final Path outputDir;
+
+	/**
+	 * 同時寫入的Thread數量
+	 */
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * 上次產生的檔案清單
+	 */
+	private final Set<String> previousFiles;
+
+	/**
+	 * 這次產生(含內容未變更)的檔案
+	 */
+	private final Set<String> producedFiles = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger unchangedCount = new AtomicInteger();
+
+	private final AtomicInteger writtenCount = new AtomicInteger();
+
+	/**
+	 * 讀取上次產生的檔案清單
+	 *
+	 * @param outputDir
+	 * @throws IOException
+	 */
+	public GeneratedSourceWriter(String outputDir) throws IOException {
+		this(outputDir, null);
+	}
+
+	/**
+	 * 讀取來源Excel上次產生的檔案清單
+	 *
+	 * @param outputDir
+	 * @param sourceId
+	 *            來源Excel的識別名稱，見{@link ExcelReader#getWorkbookId(String)}，null表示不區分來源
+	 * @throws IOException
+	 */
+	public GeneratedSourceWriter(String outputDir, String sourceId) throws IOException {
+		this.outputDir = Paths.get(outputDir);
+		this.indexFile = getIndexFile(outputDir, sourceId);
+
+		previousFiles = Files.isRegularFile(indexFile)
+				? new LinkedHashSet<>(Files.readAllLines(indexFile, StandardCharsets.UTF_8))
+				: new LinkedHashSet<>();
+	}
+
+	/**
+	 * 輸出目錄旁的檔案清單，ex: examples/test => examples/test.files
+	 *
+	 * @param outputDir
+	 * @return
+	 */
+	public static Path getIndexFile(String outputDir) {
+		return getIndexFile(outputDir, null);
+	}
+
+	/**
+	 * 輸出目錄旁來源Excel的檔案清單，ex: examples/test => examples/test.login-1a2b3c4d.files
+	 *
+	 * @param outputDir
+	 * @param sourceId
+	 * @return
+	 */
+	public static Path getIndexFile(String outputDir, String sourceId) {
+		Path dir = Paths.get(outputDir).toAbsolutePath().normalize();
+		return dir.resolveSibling(dir.getFileName() + (sourceId == null ? "" : "." + sourceId) + ".files");
+	}
+
+	/**
+	 * JavaFile相對於輸出目錄的路徑
+	 *
+	 * @param javaFile
+	 * @return
+	 */
+	public static String getRelativeFile(JavaFile javaFile) {
+		String packagePath = javaFile.packageName.isEmpty() ? "" : javaFile.packageName.replace('.', '/') + "/";
+		return packagePath + javaFile.typeSpec.name + ".java";
+	}
+
+	/**
+	 * 刪除上次產生、這次沒有產生的檔案，儲存檔案清單並印出統計
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+
+		for (String staleFile : previousFiles) {
+			if (!producedFiles.contains(staleFile) && Files.deleteIfExists(outputDir.resolve(staleFile))) {
+				deletedCount.incrementAndGet();
+			}
+		}
+
+		if (indexFile.getParent() != null) {
+			Files.createDirectories(indexFile.getParent());
+		}
+		writeAtomically(indexFile, String.join("\n", new TreeSet<>(producedFiles)).getBytes(StandardCharsets.UTF_8));
+
+		System.out.println(MessageFormat.format("write: {0} written, {1} unchanged, {2} deleted", writtenCount.get(),
+				unchangedCount.get(), deletedCount.get()));
+	}
+
+	public int getDeletedCount() {
+		return deletedCount.get();
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public int getUnchangedCount() {
+		return unchangedCount.get();
+	}
+
+	public int getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	/**
+	 * 記錄未重新產生但仍有效的檔案(增量產生時略過的Class)，避免被當成過期檔案刪除
+	 *
+	 * @param relativeFile
+	 */
+	public void retain(String relativeFile) {
+		producedFiles.add(relativeFile);
+	}
+
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * 輸出單一檔案，可由多個Thread同時呼叫
+	 *
+	 * @param javaFile
+	 * @return 內容有變更而寫入時回傳true
+	 * @throws IOException
+	 */
+	public boolean write(JavaFile javaFile) throws IOException {
+
+		String relativeFile = getRelativeFile(javaFile);
+		Path target = outputDir.resolve(relativeFile);
+		byte[] content = javaFile.toString().getBytes(StandardCharsets.UTF_8);
+
+		producedFiles.add(relativeFile);
+
+		if (isSameContent(target, content)) {
+			unchangedCount.incrementAndGet();
+			return false;
+		}
+
+		Files.createDirectories(target.getParent());
+		writeAtomically(target, content);
+		writtenCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * 以固定數量的Thread同時輸出
+	 *
+	 * @param javaFiles
+	 * @throws IOException
+	 */
+	public void writeAll(List<JavaFile> javaFiles) throws IOException {
+
+		if (parallelism <= 1 || javaFiles.size() <= 1) {
+			for (JavaFile javaFile : javaFiles) {
+				write(javaFile);
+			}
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, javaFiles.size()));
+
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (JavaFile javaFile : javaFiles) {
+				futures.add(executor.submit(() -> write(javaFile)));
+			}
+
+			for (Future<Boolean> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException) {
+						throw (IOException) e.getCause();
+					}
+					throw new IOException(e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Writing interrupted", e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * 先比較檔案大小，相同時才讀取內容比對
+	 *
+	 * @param target
+	 * @param content
+	 * @return
+	 * @throws IOException
+	 */
+	private boolean isSameContent(Path target, byte[] content) throws IOException {
+		return Files.isRegularFile(target) && Files.size(target) == content.length
+				&& Arrays.equals(Files.readAllBytes(target), content);
+	}
+
+	/**
+	 * 寫入同目錄下的暫存檔再搬移，寫入中途失敗不會留下不完整的檔案。
+	 * 不使用Files.createTempFile，其建立的檔案權限僅限擁有者
+	 *
+	 * @param target
+	 * @param content
+	 * @throws IOException
+	 */
+	private void writeAtomically(Path target, byte[] content) throws IOException {
+
+		Path temp = target.resolveSibling(MessageFormat.format(".{0}.{1}.tmp", target.getFileName(),
+				Long.toHexString(ThreadLocalRandom.current().nextLong())));
+		try {
+			Files.write(temp, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package generator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import generator.mappers.AccountMapper;
+import generator.mappers.CommonStepMapper;
+import generator.mappers.SettingMapper;
+import io.appium.java_client.remote.MobileCapabilityType;
+import models.AccountInfo;
+import models.CommonMethod;
+import models.CommonUtilClass;
+
+/**
+ * 一次產生所需的裝置設定、測試資料與共用步驟對照，建立後不再變動，可供多個Thread同時使用
+ *
+ * @author Cyndi
+ *
+ */
+public final class GenerationContext {
+
+	/**
+	 * 測試資料，Key為使用者身份
+	 */
+	private final Map<String, AccountInfo> accountInfos;
+
+	private final Map<String, Object> desiredCapabilities;
+
+	/**
+	 * 為generate PackageName，DEVICE_NAME去掉空白轉為小寫
+	 */
+	private final String deviceName;
+
+	/**
+	 * 為generate PackageName，PLATFORM_VERSION的“.”以“_”取代
+	 */
+	private final String driverPlatformVersion;
+
+	private final Map<String, Object> driverProperties;
+
+	/**
+	 * 各Sheet內容Hash，增量產生用
+	 */
+	private final Map<String, String> fingerprints;
+
+	/**
+	 * 共用步驟，Key為中文MethodComment
+	 */
+	private final Map<String, CommonMethod> utilMethodsMapper;
+
+	@SuppressWarnings("unchecked")
+	public GenerationContext(ExcelReader reader) {
+
+		Map<String, Object> data = reader.getData();
+		Map<String, Map<String, Object>> settings = (Map<String, Map<String, Object>>) data.get(SettingMapper.TYPE);
+
+		// 讀取excel之裝置設定(Capabilities)
+		desiredCapabilities = Collections.unmodifiableMap(settings.get("desiredCapabilities"));
+		// 讀取excel之裝置設定(driver),處理等待時間用
+		driverProperties = unmodifiableMap(settings.get("driverProperties"));
+
+		deviceName = desiredCapabilities.containsKey(MobileCapabilityType.DEVICE_NAME)
+				? StringUtils.removeAll(StringUtils
+						.lowerCase(String.valueOf(desiredCapabilities.get(MobileCapabilityType.DEVICE_NAME))), " ")
+				: null;
+		driverPlatformVersion = desiredCapabilities.containsKey(MobileCapabilityType.PLATFORM_VERSION)
+				? StringUtils.replaceAll(
+						getPlatformVersion(desiredCapabilities.get(MobileCapabilityType.PLATFORM_VERSION)), "\\.", "_")
+				: null;
+
+		// 讀取excel之測試資料(data)
+		List<AccountInfo> accounts = (List<AccountInfo>) data.get(AccountMapper.TYPE);
+		Map<String, AccountInfo> accountInfos = new HashMap<>();
+		if (accounts != null)
+			for (AccountInfo acc : accounts) {
+				accountInfos.put(acc.getType(), acc);
+			}
+		this.accountInfos = Collections.unmodifiableMap(accountInfos);
+
+		fingerprints = Collections.unmodifiableMap(new HashMap<>(reader.getFingerprints()));
+
+		// 把中文MethodComment作為Key存起來，與Util-Method mapping)
+		List<CommonUtilClass> utils = (List<CommonUtilClass>) data.get(CommonStepMapper.TYPE);
+		Map<String, CommonMethod> utilMethodsMapper = new HashMap<>();
+		if (utils != null)
+			utils.forEach(util -> {
+				util.getMethods().forEach(method -> {
+					utilMethodsMapper.put(method.getDesc(), method);
+				});
+			});
+		this.utilMethodsMapper = Collections.unmodifiableMap(utilMethodsMapper);
+	}
+
+	/**
+	 * 將PLATFORM_VERSION去掉數字與“.”以外的字元
+	 *
+	 * @param version
+	 * @return
+	 */
+	public static String getPlatformVersion(Object version) {
+		return String.valueOf(version).replaceAll("[^\\.0123456789]", "");
+	}
+
+	public Map<String, AccountInfo> getAccountInfos() {
+		return accountInfos;
+	}
+
+	public Map<String, Object> getDesiredCapabilities() {
+		return desiredCapabilities;
+	}
+
+	public String getDeviceName() {
+		return deviceName;
+	}
+
+	public String getDriverPlatformVersion() {
+		return driverPlatformVersion;
+	}
+
+	public Map<String, Object> getDriverProperties() {
+		return driverProperties;
+	}
+
+	public Map<String, String> getFingerprints() {
+		return fingerprints;
+	}
+
+	public Map<String, CommonMethod> getUtilMethodsMapper() {
+		return utilMethodsMapper;
+	}
+
+	private static <K, V> Map<K, V> unmodifiableMap(Map<K, V> map) {
+		return map == null ? null : Collections.unmodifiableMap(map);
+	}
+}
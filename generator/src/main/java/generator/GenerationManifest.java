@@ -0,0 +1,114 @@
+package generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * 增量產生用的Manifest，記錄每個Sheet產生的檔案與其輸入(Sheet內容及相依資料)的Hash，依來源Excel存放於輸出目錄旁
+ * 
+ * @author Cyndi
+ *
+ */
+public class GenerationManifest {
+
+	private static final String FILE_SUFFIX = ".file";
+
+	private static final String HASH_SUFFIX = ".hash";
+
+	/**
+	 * 產生的程式碼格式改變時需調整，使舊的Manifest失效
+	 */
+	private static final String VERSION = "2";
+
+	private static final String VERSION_KEY = "version";
+
+	/**
+	 * 輸出目錄旁的Manifest檔案，ex: examples/test => examples/test.manifest
+	 * 
+	 * @param outputDir
+	 * @return
+	 */
+	public static Path getManifestFile(String outputDir) {
+		return getManifestFile(outputDir, null);
+	}
+
+	/**
+	 * 輸出目錄旁來源Excel的Manifest檔案，ex: examples/test => examples/test.login-1a2b3c4d.manifest
+	 * 
+	 * @param outputDir
+	 * @param sourceId
+	 *            來源Excel的識別名稱，null表示不區分來源
+	 * @return
+	 */
+	public static Path getManifestFile(String outputDir, String sourceId) {
+		Path dir = Paths.get(outputDir).toAbsolutePath().normalize();
+		return dir.resolveSibling(dir.getFileName() + (sourceId == null ? "" : "." + sourceId) + ".manifest");
+	}
+
+	private final Properties current = new Properties();
+
+	private final Path file;
+
+	private final Properties previous = new Properties();
+
+	/**
+	 * 讀取上次產生的Manifest，版本不同時視為全部需重新產生
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public GenerationManifest(Path file) throws IOException {
+		this.file = file;
+
+		if (Files.isRegularFile(file)) {
+			try (InputStream in = Files.newInputStream(file)) {
+				previous.load(in);
+			}
+			if (!VERSION.equals(previous.getProperty(VERSION_KEY))) {
+				previous.clear();
+			}
+		}
+		current.setProperty(VERSION_KEY, VERSION);
+	}
+
+	/**
+	 * 檢查Sheet的Hash是否與上次相同，且上次產生的檔案仍存在
+	 * 
+	 * @param key
+	 * @param hash
+	 * @param outputDir
+	 * @return
+	 */
+	public boolean isUpToDate(String key, String hash, String outputDir) {
+		String previousFile = previous.getProperty(key + FILE_SUFFIX);
+
+		return hash.equals(previous.getProperty(key + HASH_SUFFIX)) && previousFile != null
+				&& Files.isRegularFile(Paths.get(outputDir, previousFile));
+	}
+
+	/**
+	 * 記錄這次的Hash與產生的檔案
+	 * 
+	 * @param key
+	 * @param hash
+	 * @param relativeFile
+	 */
+	public void put(String key, String hash, String relativeFile) {
+		current.setProperty(key + HASH_SUFFIX, hash);
+		current.setProperty(key + FILE_SUFFIX, relativeFile);
+	}
+
+	public void save() throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (OutputStream out = Files.newOutputStream(file)) {
+			current.store(out, "appium-test-generator incremental manifest");
+		}
+	}
+}
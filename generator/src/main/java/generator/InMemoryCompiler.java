@@ -0,0 +1,203 @@
+package generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.squareup.javapoet.JavaFile;
+
+/**
+ * 以javax.tools在記憶體中編譯產生的JavaFile，所有檔案一次編譯，Class不寫入磁碟
+ *
+ * @author Cyndi
+ *
+ */
+public class InMemoryCompiler {
+
+	/**
+	 * 編譯產生的Class，保存於記憶體
+	 */
+	private static class ClassOutput extends SimpleJavaFileObject {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ClassOutput(String className) {
+			super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return bytes;
+		}
+	}
+
+	/**
+	 * 讀取交給標準FileManager，Class輸出改存於記憶體
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		private final Map<String, ClassOutput> outputs = new TreeMap<>();
+
+		MemoryFileManager(StandardJavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		StandardJavaFileManager getStandardFileManager() {
+			return fileManager;
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+				FileObject sibling) {
+			ClassOutput output = new ClassOutput(className);
+			outputs.put(className, output);
+			return output;
+		}
+	}
+
+	/**
+	 * 編譯結果
+	 */
+	public static final class Result {
+
+		/**
+		 * Key為Binary Class Name，ex: com.esun.automation.module.login.LoginUtils
+		 */
+		private final Map<String, byte[]> classes;
+
+		private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+		private final boolean success;
+
+		Result(boolean success, Map<String, byte[]> classes, List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+			this.success = success;
+			this.classes = Collections.unmodifiableMap(classes);
+			this.diagnostics = Collections.unmodifiableList(diagnostics);
+		}
+
+		public Map<String, byte[]> getClasses() {
+			return classes;
+		}
+
+		public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+			return diagnostics;
+		}
+
+		public boolean isSuccess() {
+			return success;
+		}
+	}
+
+	/**
+	 * 編譯時的Classpath，預設為目前的Classpath(含JUnit、Appium與generator.test)
+	 */
+	private String classpath = System.getProperty("java.class.path");
+
+	/**
+	 * 未一同編譯的Class由此目錄的原始碼解析(ex: 增量產生時未變更的Class)，不輸出其Class
+	 */
+	private String sourcepath;
+
+	/**
+	 *
+	 * @param javaFiles
+	 * @return
+	 * @throws IllegalStateException
+	 *             執行環境為JRE，無系統Java Compiler
+	 */
+	public Result compile(List<JavaFile> javaFiles) {
+		return compile(javaFiles, Collections.emptyList());
+	}
+
+	/**
+	 *
+	 * @param javaFiles
+	 * @param sourceFiles
+	 *            一同編譯的磁碟上原始碼(ex: 增量產生時未變更的Class)
+	 * @return
+	 * @throws IllegalStateException
+	 *             執行環境為JRE，無系統Java Compiler
+	 */
+	public Result compile(List<JavaFile> javaFiles, List<Path> sourceFiles) {
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("No system Java compiler, run the generator with a JDK");
+		}
+
+		List<JavaFileObject> sources = new ArrayList<>();
+		for (JavaFile javaFile : javaFiles) {
+			sources.add(javaFile.toJavaFileObject());
+		}
+
+		// 與產生的測試專案相同，編譯為Java 8
+		List<String> options = new ArrayList<>(Arrays.asList("-source", "1.8", "-target", "1.8", "-Xlint:-options",
+				"-proc:none", "-implicit:none", "-nowarn", "-encoding", StandardCharsets.UTF_8.name(), "-classpath",
+				classpath));
+		if (sourcepath != null && new File(sourcepath).isDirectory()) {
+			options.add("-sourcepath");
+			options.add(sourcepath);
+		}
+
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+		try (MemoryFileManager fileManager = new MemoryFileManager(
+				compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8))) {
+
+			for (JavaFileObject source : fileManager.getStandardFileManager()
+					.getJavaFileObjectsFromFiles(sourceFiles.stream().map(Path::toFile).collect(Collectors.toList()))) {
+				sources.add(source);
+			}
+
+			boolean success = sources.isEmpty()
+					|| compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+
+			Map<String, byte[]> classes = new TreeMap<>();
+			if (success) {
+				fileManager.outputs.forEach((className, output) -> classes.put(className, output.bytes.toByteArray()));
+			}
+
+			return new Result(success, classes, diagnostics.getDiagnostics());
+		} catch (IOException e) {
+			// 記憶體輸出，關閉時不會發生IOException
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public String getClasspath() {
+		return classpath;
+	}
+
+	public String getSourcepath() {
+		return sourcepath;
+	}
+
+	public void setClasspath(String classpath) {
+		this.classpath = classpath;
+	}
+
+	public void setSourcepath(String sourcepath) {
+		this.sourcepath = sourcepath;
+	}
+}
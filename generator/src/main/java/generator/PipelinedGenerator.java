@@ -0,0 +1,328 @@
+package generator;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+
+import generator.frameworks.JUnit4Framework;
+import generator.frameworks.TestFramework;
+import generator.mappers.ExcelSheetMapperRegistry;
+import generator.mappers.ScriptMapper;
+import generator.readers.StreamingWorkbookReader;
+import models.CommonUtilClass;
+import models.Feature;
+
+/**
+ * 管線模式：讀取、產生、輸出三個階段同時進行，以固定容量的Queue連接。
+ * 每個Feature讀完即產生並輸出，記憶體用量取決於單一Feature大小，而非整個Excel
+ *
+ * @author Cyndi
+ *
+ */
+public class PipelinedGenerator {
+
+	/**
+	 * 在Lambda中傳遞IOException
+	 */
+	private static class PipelineException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		PipelineException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+	/**
+	 * 結束訊號，以參照比對
+	 */
+	private static final Feature END_OF_FEATURES = new Feature();
+
+	private static final JavaFile END_OF_FILES = JavaFile.builder("", TypeSpec.classBuilder("End").build())
+			.build();
+
+	/**
+	 * 見AppiumTestGenerator.setDevicePool
+	 */
+	private boolean devicePool = false;
+
+	private final String excelFile;
+
+	/**
+	 * 見AppiumTestGenerator.setMaxMethodSize
+	 */
+	private int maxMethodSize = AppiumTestGenerator.DEFAULT_MAX_METHOD_SIZE;
+
+	private final String outputDir;
+
+	/**
+	 * 啟用的PeepholePass名稱，Pass以Scenario為單位，可於產生階段逐一套用
+	 */
+	private Set<String> peepholePasses = Collections.emptySet();
+
+	/**
+	 * 各階段之間Queue的容量，生產端在Queue滿時等待
+	 */
+	private int queueCapacity = 2;
+
+	private ExcelSheetMapperRegistry registry = ExcelSheetMapperRegistry.getDefault();
+
+	/**
+	 * 見AppiumTestGenerator.setSessionScope
+	 */
+	private String sessionScope;
+
+	/**
+	 * 見AppiumTestGenerator.setSharedBaseClass
+	 */
+	private boolean sharedBaseClass = false;
+
+	/**
+	 * 見AppiumTestGenerator.setTestFramework
+	 */
+	private TestFramework testFramework = new JUnit4Framework();
+
+	/**
+	 *
+	 * @param excelFile
+	 * @param outputDir
+	 */
+	public PipelinedGenerator(String excelFile, String outputDir) {
+		this.excelFile = excelFile;
+		this.outputDir = outputDir;
+	}
+
+	/**
+	 * 先讀取script以外的Sheet(設定、測試資料、共用步驟)，再逐一讀取script Sheet並送入管線
+	 *
+	 * @throws IOException
+	 */
+	public void generate() throws IOException {
+
+		long start = System.currentTimeMillis();
+
+		// 第一階段：Feature產生時需要的設定、測試資料與共用步驟，資料量小，完整讀取
+		ExcelReader reader = new ExcelReader(excelFile, true);
+		reader.setRegistry(registry.filter(type -> !ScriptMapper.TYPE.equals(type)));
+		reader.read();
+
+		AppiumTestGenerator generator = new AppiumTestGenerator(reader);
+		generator.setSharedBaseClass(sharedBaseClass);
+		generator.setMaxMethodSize(maxMethodSize);
+		generator.setSessionScope(sessionScope);
+		generator.setDevicePool(devicePool);
+		generator.setTestFramework(testFramework);
+		peepholePasses.forEach(pass -> generator.getOptimizer().setEnabled(pass, true));
+
+		BlockingQueue<Feature> features = new ArrayBlockingQueue<>(queueCapacity);
+		BlockingQueue<JavaFile> javaFiles = new ArrayBlockingQueue<>(queueCapacity);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try {
+			Future<Integer> writeTask = executor.submit(() -> write(javaFiles));
+			Future<?> generateTask = executor.submit(() -> {
+				generate(generator, features, javaFiles, writeTask);
+				return null;
+			});
+
+			if (generator.getUtils() != null) {
+				for (CommonUtilClass utilClass : generator.getUtils()) {
+					put(javaFiles, generator.generateUtilClass(utilClass), writeTask);
+				}
+			}
+			put(javaFiles, generator.generateBaseClass(), writeTask);
+
+			// 第二階段：只讀取script Sheet，每讀完一個Sheet即交給產生階段
+			ExcelSheetMapperRegistry scriptRegistry = registry.filter(ScriptMapper.TYPE::equals);
+			try (StreamingWorkbookReader scriptReader = new StreamingWorkbookReader(excelFile)) {
+				scriptReader.read(scriptRegistry::getHandler, parsedSheet -> {
+					put(features, (Feature) parsedSheet.getExecution().getData(), generateTask);
+				});
+			}
+
+			put(features, END_OF_FEATURES, generateTask);
+
+			get(generateTask);
+			int written = get(writeTask);
+
+			System.out.println(MessageFormat.format("pipelined: {0} files written, {1,number,#} ms", written,
+					System.currentTimeMillis() - start));
+		} catch (PipelineException e) {
+			throw e.getCause();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public int getMaxMethodSize() {
+		return maxMethodSize;
+	}
+
+	public Set<String> getPeepholePasses() {
+		return peepholePasses;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public ExcelSheetMapperRegistry getRegistry() {
+		return registry;
+	}
+
+	public String getSessionScope() {
+		return sessionScope;
+	}
+
+	public TestFramework getTestFramework() {
+		return testFramework;
+	}
+
+	public boolean isDevicePool() {
+		return devicePool;
+	}
+
+	public boolean isSharedBaseClass() {
+		return sharedBaseClass;
+	}
+
+	public void setDevicePool(boolean devicePool) {
+		this.devicePool = devicePool;
+	}
+
+	public void setMaxMethodSize(int maxMethodSize) {
+		this.maxMethodSize = maxMethodSize;
+	}
+
+	public void setPeepholePasses(Set<String> peepholePasses) {
+		this.peepholePasses = peepholePasses;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	public void setRegistry(ExcelSheetMapperRegistry registry) {
+		this.registry = registry;
+	}
+
+	public void setSessionScope(String sessionScope) {
+		this.sessionScope = sessionScope;
+	}
+
+	public void setSharedBaseClass(boolean sharedBaseClass) {
+		this.sharedBaseClass = sharedBaseClass;
+	}
+
+	public void setTestFramework(TestFramework testFramework) {
+		this.testFramework = testFramework;
+	}
+
+	/**
+	 * 產生階段：逐一取出Feature產生測試Class
+	 *
+	 * @param generator
+	 * @param features
+	 * @param javaFiles
+	 * @param writeTask
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void generate(AppiumTestGenerator generator, BlockingQueue<Feature> features,
+			BlockingQueue<JavaFile> javaFiles, Future<?> writeTask) throws IOException, InterruptedException {
+
+		try {
+			for (Feature feature = features.take(); feature != END_OF_FEATURES; feature = features.take()) {
+				put(javaFiles, generator.generateTestClass(feature), writeTask);
+				// 相同Step多在同一Feature內重複，跨Feature保存會使記憶體隨整個Excel成長
+				generator.getStepCache().clear();
+			}
+		} catch (PipelineException e) {
+			throw e.getCause();
+		}
+		put(javaFiles, END_OF_FILES, writeTask);
+	}
+
+	private <T> T get(Future<T> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Pipeline interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * 放入下一階段的Queue，Queue滿時等待；下一階段已失敗時拋出其例外，避免永遠等待
+	 *
+	 * @param queue
+	 * @param item
+	 *            null時略過(增量產生時未變更的Class)
+	 * @param consumer
+	 *            下一階段的Task
+	 */
+	private <T> void put(BlockingQueue<T> queue, T item, Future<?> consumer) {
+
+		if (item == null) {
+			return;
+		}
+
+		try {
+			while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+				if (consumer.isDone()) {
+					get(consumer);
+					throw new IOException("Pipeline stage stopped unexpectedly");
+				}
+			}
+		} catch (IOException e) {
+			throw new PipelineException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PipelineException(new IOException("Pipeline interrupted", e));
+		}
+	}
+
+	/**
+	 * 輸出階段，內容未變更的檔案不重新寫入
+	 *
+	 * @param javaFiles
+	 * @return 實際寫入的檔案數
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private int write(BlockingQueue<JavaFile> javaFiles) throws IOException, InterruptedException {
+		GeneratedSourceWriter writer = new GeneratedSourceWriter(outputDir, ExcelReader.getWorkbookId(excelFile));
+
+		for (JavaFile javaFile = javaFiles.take(); javaFile != END_OF_FILES; javaFile = javaFiles.take()) {
+			writer.write(javaFile);
+		}
+		writer.finish();
+
+		return writer.getWrittenCount();
+	}
+}
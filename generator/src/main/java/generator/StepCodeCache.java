@@ -0,0 +1,172 @@
+package generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.squareup.javapoet.CodeBlock;
+
+import models.Step;
+
+/**
+ * Step產生的Code(含註解)，相同內容的Step只產生一次。產生結果只與Step內容及GenerationContext有關，
+ * 因此每個AppiumTestGenerator各自一個，可供多個Thread同時使用
+ *
+ * @author Cyndi
+ *
+ */
+public class StepCodeCache {
+
+	/**
+	 * Step產生的Code及估計的bytecode大小
+	 */
+	public static final class StepCode {
+
+		/**
+		 * 原始碼字元數與bytecode大小的比例，依產生的Test Class實測約為0.25~0.4，取0.5保守估計
+		 */
+		private static final double BYTES_PER_CHAR = 0.5;
+
+		private final CodeBlock code;
+
+		private final int estimatedSize;
+
+		StepCode(CodeBlock code) {
+			this.code = code;
+			this.estimatedSize = estimateSize(code);
+		}
+
+		/**
+		 * 不計註解與空白的原始碼字元數換算bytecode大小
+		 *
+		 * @param code
+		 * @return
+		 */
+		private static int estimateSize(CodeBlock code) {
+			int chars = 0;
+			for (String line : code.toString().split("\n")) {
+				String trimmed = line.trim();
+				if (!trimmed.startsWith("//")) {
+					chars += trimmed.length();
+				}
+			}
+			return (int) Math.ceil(chars * BYTES_PER_CHAR);
+		}
+
+		public CodeBlock getCode() {
+			return code;
+		}
+
+		/**
+		 * 
+		 * @return 估計的bytecode大小
+		 */
+		public int getEstimatedSize() {
+			return estimatedSize;
+		}
+	}
+
+	/**
+	 * Step內容，建立後不再變動
+	 */
+	private static final class Signature {
+
+		private final String commandType;
+
+		private final String desc;
+
+		private final String gherkinType;
+
+		private final int hashCode;
+
+		private final List<Object> params;
+
+		/**
+		 * Script與共用步驟的產生方式不同，分開保存
+		 */
+		private final String scope;
+
+		Signature(String scope, Step step) {
+			this.scope = scope;
+			this.gherkinType = step.getGherkinType();
+			this.desc = step.getDesc();
+			this.commandType = step.getCommand().getType();
+			this.params = Collections.unmodifiableList(new ArrayList<>(step.getCommand().getParams()));
+			this.hashCode = Objects.hash(scope, gherkinType, desc, commandType, params);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			return hashCode == other.hashCode && scope.equals(other.scope)
+					&& Objects.equals(gherkinType, other.gherkinType) && Objects.equals(desc, other.desc)
+					&& Objects.equals(commandType, other.commandType) && params.equals(other.params);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	private final Map<Signature, StepCode> codes = new ConcurrentHashMap<>();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 取得Step的Code，沒有時以generator產生並保存
+	 *
+	 * @param scope
+	 *            產生方式，ex: scenario、util
+	 * @param step
+	 * @param generator
+	 * @return
+	 */
+	public StepCode get(String scope, Step step, Function<Step, CodeBlock> generator) {
+		Signature signature = new Signature(scope, step);
+
+		StepCode code = codes.get(signature);
+		if (code != null) {
+			hitCount.incrementAndGet();
+			return code;
+		}
+
+		missCount.incrementAndGet();
+		code = new StepCode(generator.apply(step));
+
+		StepCode previous = codes.putIfAbsent(signature, code);
+		return previous == null ? code : previous;
+	}
+
+	/**
+	 * 清除已保存的Code，命中次數不歸零。串流產生時每個Feature產生後清除，記憶體用量只與最大的Feature有關
+	 */
+	public void clear() {
+		codes.clear();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public int size() {
+		return codes.size();
+	}
+}
@@ -0,0 +1,311 @@
+package generator;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import models.Command;
+import models.CommonMethod;
+import models.Feature;
+import models.Scenario;
+import models.Step;
+import models.commands.StepSequenceCommand;
+
+/**
+ * 找出Scenario之間(含同一Scenario內)重複的連續Step，抽出為共用Class的static Method，Scenario中改為呼叫該Method。
+ * 不修改原本的Feature，相同的Feature產生相同的結果
+ *
+ * @author Cyndi
+ *
+ */
+public class StepSequenceExtractor {
+
+	/**
+	 * 抽出的Method與各Scenario抽出後的Step
+	 */
+	public static final class Result {
+
+		private final List<CommonMethod> methods;
+
+		private final Map<Scenario, List<Step>> steps;
+
+		Result(List<CommonMethod> methods, Map<Scenario, List<Step>> steps) {
+			this.methods = Collections.unmodifiableList(methods);
+			this.steps = steps;
+		}
+
+		/**
+		 *
+		 * @return 依抽出順序
+		 */
+		public List<CommonMethod> getMethods() {
+			return methods;
+		}
+
+		/**
+		 *
+		 * @param scenario
+		 * @return 抽出後的Step，抽出的部分為一個StepSequence Step；非extract()的Scenario回傳原本的Step
+		 */
+		public List<Step> getSteps(Scenario scenario) {
+			return steps.getOrDefault(scenario, scenario.getSteps());
+		}
+	}
+
+	/**
+	 * 抽出的Method Name前綴，ex: sequence1
+	 */
+	private static final String METHOD_PREFIX = "sequence";
+
+	/**
+	 * 無法抽出的Step
+	 */
+	private static final int NOT_EXTRACTABLE = -1;
+
+	private final String className;
+
+	/**
+	 * 可抽出的Step：產生的Code只使用driver、implicitlyWaitSec及螢幕寬高，且不影響Test Method的Annotation
+	 */
+	private final Predicate<Step> extractable;
+
+	/**
+	 * 抽出的連續Step數量上限
+	 */
+	private int maxLength = 20;
+
+	/**
+	 * 抽出的連續Step數量下限
+	 */
+	private int minLength = 3;
+
+	private final String packageName;
+
+	/**
+	 *
+	 * @param packageName
+	 *            抽出的Class完整PackageName
+	 * @param className
+	 * @param extractable
+	 */
+	public StepSequenceExtractor(String packageName, String className, Predicate<Step> extractable) {
+		this.packageName = packageName;
+		this.className = className;
+		this.extractable = extractable;
+	}
+
+	/**
+	 * 每次抽出可減少最多Step的重複序列(不重疊的出現次數-1)×長度，直到沒有出現兩次以上的序列
+	 *
+	 * @param features
+	 * @return
+	 */
+	public Result extract(List<Feature> features) {
+
+		List<Scenario> scenarios = new ArrayList<>();
+		List<List<Step>> steps = new ArrayList<>();
+		for (Feature feature : features) {
+			for (Scenario scenario : feature.getScenarios()) {
+				scenarios.add(scenario);
+				steps.add(new ArrayList<>(scenario.getSteps()));
+			}
+		}
+
+		List<CommonMethod> methods = new ArrayList<>();
+		Map<String, Integer> ids = new HashMap<>();
+		// 已抽出的呼叫不再抽出
+		Set<Step> calls = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		List<Integer> sequence;
+		while ((sequence = findMostRepeated(steps, ids, calls)) != null) {
+
+			List<Step> sequenceSteps = null;
+			Step call = null;
+
+			for (List<Step> scenarioSteps : steps) {
+				int[] tokens = tokenize(scenarioSteps, ids, calls);
+
+				// 由後往前取代，前面的位置不受影響；先找出不重疊的位置
+				List<Integer> starts = new ArrayList<>();
+				for (int i = 0; i + sequence.size() <= tokens.length; i++) {
+					if (matches(tokens, i, sequence)) {
+						starts.add(i);
+						i += sequence.size() - 1;
+					}
+				}
+
+				for (int s = starts.size() - 1; s >= 0; s--) {
+					List<Step> occurrence = scenarioSteps.subList(starts.get(s), starts.get(s) + sequence.size());
+
+					if (call == null) {
+						sequenceSteps = new ArrayList<>(occurrence);
+						call = createCall(methods.size() + 1, sequenceSteps);
+						calls.add(call);
+					}
+
+					occurrence.clear();
+					occurrence.add(call);
+				}
+			}
+
+			CommonMethod method = new CommonMethod();
+			method.setClassName(className);
+			method.setName(METHOD_PREFIX + (methods.size() + 1));
+			method.setDesc(call.getDesc());
+			method.setSteps(sequenceSteps);
+			methods.add(method);
+		}
+
+		Map<Scenario, List<Step>> result = new IdentityHashMap<>();
+		for (int i = 0; i < scenarios.size(); i++) {
+			result.put(scenarios.get(i), Collections.unmodifiableList(steps.get(i)));
+		}
+
+		return new Result(methods, result);
+	}
+
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	public int getMinLength() {
+		return minLength;
+	}
+
+	public void setMaxLength(int maxLength) {
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 *
+	 * @param minLength
+	 *            至少為2，呼叫本身即佔一個Step
+	 */
+	public void setMinLength(int minLength) {
+		if (minLength < 2) {
+			throw new IllegalArgumentException("minLength must be at least 2: " + minLength);
+		}
+		this.minLength = minLength;
+	}
+
+	/**
+	 * 呼叫抽出Method的Step，Gherkin Type沿用第一個Step，ex: 點擊首頁至輸入共14個Step
+	 *
+	 * @param index
+	 * @param sequenceSteps
+	 * @return
+	 */
+	private Step createCall(int index, List<Step> sequenceSteps) {
+
+		String methodName = METHOD_PREFIX + index;
+
+		Command command = new Command();
+		command.setType(StepSequenceCommand.KIND);
+		command.addParam(packageName + "." + className + "." + methodName);
+		command.setNode(new StepSequenceCommand(packageName, className, methodName));
+
+		Step call = new Step();
+		call.setGherkinType(sequenceSteps.get(0).getGherkinType());
+		call.setDesc(MessageFormat.format("{0}至{1}共{2}個Step", sequenceSteps.get(0).getDesc(),
+				sequenceSteps.get(sequenceSteps.size() - 1).getDesc(), sequenceSteps.size()));
+		call.setCommand(command);
+		return call;
+	}
+
+	/**
+	 *
+	 * @param steps
+	 * @param ids
+	 * @param calls
+	 * @return 可減少最多Step的序列，相同時取先出現者；無出現兩次以上的序列時回傳null
+	 */
+	private List<Integer> findMostRepeated(List<List<Step>> steps, Map<String, Integer> ids, Set<Step> calls) {
+
+		// Key為序列，Value為{不重疊的出現次數, 最後出現的Scenario, 最後出現的結束位置}
+		Map<List<Integer>, int[]> counts = new LinkedHashMap<>();
+
+		for (int s = 0; s < steps.size(); s++) {
+			int[] tokens = tokenize(steps.get(s), ids, calls);
+
+			for (int i = 0; i < tokens.length; i++) {
+				for (int length = 1; length <= maxLength && i + length <= tokens.length; length++) {
+					if (tokens[i + length - 1] == NOT_EXTRACTABLE) {
+						break;
+					}
+					if (length < minLength) {
+						continue;
+					}
+
+					List<Integer> sequence = new ArrayList<>(length);
+					for (int j = i; j < i + length; j++) {
+						sequence.add(tokens[j]);
+					}
+
+					int[] count = counts.computeIfAbsent(sequence, key -> new int[] { 0, -1, -1 });
+					if (count[1] != s || count[2] <= i) {
+						count[0]++;
+						count[1] = s;
+						count[2] = i + length;
+					}
+				}
+			}
+		}
+
+		List<Integer> best = null;
+		int bestSaving = 0;
+		for (Map.Entry<List<Integer>, int[]> entry : counts.entrySet()) {
+			int saving = (entry.getValue()[0] - 1) * entry.getKey().size();
+			if (saving > bestSaving) {
+				best = entry.getKey();
+				bestSaving = saving;
+			}
+		}
+		return best;
+	}
+
+	private boolean matches(int[] tokens, int start, List<Integer> sequence) {
+		for (int i = 0; i < sequence.size(); i++) {
+			if (tokens[start + i] != sequence.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 內容相同的Step對應相同的編號
+	 *
+	 * @param steps
+	 * @param ids
+	 * @param calls
+	 * @return
+	 */
+	private int[] tokenize(List<Step> steps, Map<String, Integer> ids, Set<Step> calls) {
+		int[] tokens = new int[steps.size()];
+		for (int i = 0; i < tokens.length; i++) {
+			Step step = steps.get(i);
+
+			if (calls.contains(step) || !extractable.test(step)) {
+				tokens[i] = NOT_EXTRACTABLE;
+				continue;
+			}
+
+			String key = step.getGherkinType() + "\0" + step.getDesc() + "\0" + step.getCommand().getType() + "\0"
+					+ step.getCommand().getParams();
+			Integer id = ids.get(key);
+			if (id == null) {
+				id = ids.size();
+				ids.put(key, id);
+			}
+			tokens[i] = id;
+		}
+		return tokens;
+	}
+}
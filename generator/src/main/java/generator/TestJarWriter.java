@@ -0,0 +1,140 @@
+package generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+
+import generator.test.rules.ExceptionRule;
+
+/**
+ * 將編譯後的測試Class與generator.test執行期Class(Rule、Annotation、CommandUtils)直接寫入Jar，
+ * 不經過另一個Maven專案。JUnit、Appium等相依套件不包含在Jar中
+ *
+ * @author Cyndi
+ *
+ */
+public class TestJarWriter {
+
+	/**
+	 * 產生的測試Class執行時需要的Package
+	 */
+	private static final String RUNTIME_PACKAGE = "generator/test/";
+
+	private final Path jarFile;
+
+	public TestJarWriter(String jarFile) {
+		this.jarFile = Paths.get(jarFile);
+	}
+
+	/**
+	 * 先寫入同目錄下的暫存檔再搬移，寫入中途失敗不會留下不完整的Jar
+	 *
+	 * @param classes
+	 *            Key為Binary Class Name
+	 * @return 寫入的Class數量
+	 * @throws IOException
+	 */
+	public int write(Map<String, byte[]> classes) throws IOException {
+
+		// 依路徑排序，相同內容產生相同順序的Jar
+		Map<String, byte[]> entries = new TreeMap<>();
+		classes.forEach((className, bytes) -> entries.put(className.replace('.', '/') + ".class", bytes));
+		readRuntimeClasses(entries);
+
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+		Path dir = jarFile.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+
+		Path temp = dir.resolve(MessageFormat.format(".{0}.{1}.tmp", jarFile.getFileName(),
+				Long.toHexString(ThreadLocalRandom.current().nextLong())));
+		try {
+			try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW);
+					JarOutputStream jar = new JarOutputStream(out, manifest)) {
+
+				for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+					jar.putNextEntry(new JarEntry(entry.getKey()));
+					jar.write(entry.getValue());
+					jar.closeEntry();
+				}
+			}
+
+			try {
+				Files.move(temp, jarFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, jarFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+		System.out.println(MessageFormat.format("jar: {0} ({1} classes, {2} entries)", jarFile, classes.size(),
+				entries.size()));
+
+		return classes.size();
+	}
+
+	/**
+	 * 由generator本身的Classpath(目錄或Jar)讀取generator.test下的Class
+	 *
+	 * @param entries
+	 * @throws IOException
+	 */
+	private void readRuntimeClasses(Map<String, byte[]> entries) throws IOException {
+
+		Path location;
+		try {
+			location = Paths.get(ExceptionRule.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+
+		if (Files.isDirectory(location)) {
+			Path runtimeDir = location.resolve(RUNTIME_PACKAGE);
+
+			try (Stream<Path> files = Files.walk(runtimeDir)) {
+				for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+					if (file.toString().endsWith(".class")) {
+						entries.put(location.relativize(file).toString().replace('\\', '/'),
+								Files.readAllBytes(file));
+					}
+				}
+			}
+			return;
+		}
+
+		try (JarFile jar = new JarFile(location.toFile())) {
+			Enumeration<JarEntry> jarEntries = jar.entries();
+			while (jarEntries.hasMoreElements()) {
+				JarEntry entry = jarEntries.nextElement();
+
+				if (entry.getName().startsWith(RUNTIME_PACKAGE) && entry.getName().endsWith(".class")) {
+					try (InputStream in = jar.getInputStream(entry)) {
+						entries.put(entry.getName(), IOUtils.toByteArray(in));
+					}
+				}
+			}
+		}
+	}
+}
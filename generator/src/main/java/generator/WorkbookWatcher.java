@@ -0,0 +1,186 @@
+package generator;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 監看模式：Excel存檔後，在同一個JVM內重新讀取並產生測試程式，省去JVM啟動與POI載入的時間
+ *
+ * @author Cyndi
+ *
+ */
+public class WorkbookWatcher implements Closeable {
+
+	private final BatchGenerator batchGenerator;
+
+	/**
+	 * Excel存檔時會連續產生暫存檔、鎖定檔等事件，最後一個事件後靜置這段時間才重新產生
+	 */
+	private long debounceMillis = 300;
+
+	private final String input;
+
+	/**
+	 * Glob輸入時需監看子目錄
+	 */
+	private final boolean recursive;
+
+	private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+
+	private final WatchService watchService;
+
+	/**
+	 *
+	 * @param batchGenerator
+	 * @param input
+	 *            目錄、單一Excel或Glob，與BatchGenerator相同
+	 * @throws IOException
+	 */
+	public WorkbookWatcher(BatchGenerator batchGenerator, String input) throws IOException {
+		this.batchGenerator = batchGenerator;
+		this.input = input;
+
+		Path path = Paths.get(input);
+		Path globBase = BatchGenerator.getGlobBase(input);
+
+		watchService = FileSystems.getDefault().newWatchService();
+		recursive = !Files.exists(path) && globBase != null;
+
+		if (Files.isDirectory(path)) {
+			register(path);
+		} else if (Files.isRegularFile(path)) {
+			register(path.toAbsolutePath().getParent());
+		} else if (recursive) {
+			registerAll(globBase);
+		} else {
+			throw new IOException("Nothing to watch: " + input);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+	public long getDebounceMillis() {
+		return debounceMillis;
+	}
+
+	/**
+	 * 先完整產生一次，之後持續監看直到close()或Thread中斷
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+
+		batchGenerator.generate(input);
+
+		System.out.println(MessageFormat.format("watch: watching {0}", input));
+
+		Set<Path> changed = new HashSet<>();
+
+		while (true) {
+			WatchKey key;
+			try {
+				key = changed.isEmpty() ? watchService.take()
+						: watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ClosedWatchServiceException e) {
+				return;
+			}
+
+			// 靜置期間沒有新事件
+			if (key == null) {
+				regenerate(changed);
+				changed.clear();
+				continue;
+			}
+
+			Path dir = watchedDirs.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				// 事件遺失時無法得知哪些檔案變動，全部重新產生
+				if (event.kind() == OVERFLOW) {
+					BatchGenerator.findWorkbooks(input).forEach(file -> changed.add(normalize(file)));
+					continue;
+				}
+
+				Path file = dir.resolve((Path) event.context());
+				if (recursive && event.kind() == ENTRY_CREATE && Files.isDirectory(file)) {
+					registerAll(file);
+				} else {
+					changed.add(normalize(file));
+				}
+			}
+
+			if (!key.reset()) {
+				watchedDirs.remove(key);
+			}
+		}
+	}
+
+	public void setDebounceMillis(long debounceMillis) {
+		this.debounceMillis = debounceMillis;
+	}
+
+	private static Path normalize(Path file) {
+		return file.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * 只重新產生仍符合輸入條件的Excel，暫存檔與鎖定檔在此被排除
+	 *
+	 * @param changed
+	 * @throws IOException
+	 */
+	private void regenerate(Set<Path> changed) throws IOException {
+
+		List<Path> workbooks = BatchGenerator.findWorkbooks(input).stream()
+				.filter(file -> changed.contains(normalize(file))).collect(Collectors.toList());
+
+		if (workbooks.isEmpty()) {
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+
+		batchGenerator.generate(workbooks);
+
+		System.out.println(MessageFormat.format("watch: regenerated {0} in {1,number,#} ms", workbooks,
+				System.currentTimeMillis() - start));
+	}
+
+	private void register(Path dir) throws IOException {
+		watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), dir);
+	}
+
+	private void registerAll(Path root) throws IOException {
+		try (Stream<Path> dirs = Files.walk(root)) {
+			for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+				register(dir);
+			}
+		}
+	}
+}
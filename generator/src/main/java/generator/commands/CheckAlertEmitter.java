@@ -0,0 +1,44 @@
+package generator.commands;
+
+import java.util.List;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.AppiumTestGenerator;
+import generator.GenerationContext;
+import generator.test.utils.CommandUtils;
+import models.commands.CheckAlertCommand;
+
+/**
+ * CheckAlert，第一個參數為按鈕ElementName
+ * 
+ * @author Cyndi
+ *
+ */
+public class CheckAlertEmitter implements CommandEmitter<CheckAlertCommand> {
+
+	@Override
+	public void emit(CodeBlock.Builder code, CheckAlertCommand command, GenerationContext context) {
+
+		if (command.getElement() == null) {
+			return;
+		}
+
+		code.add("$T.presenceClick($L,2L,$S,$L );\n", CommandUtils.class, AppiumTestGenerator.DRIVER_NAME,
+				command.getElement(), AppiumTestGenerator.DRIVER_IMPLICITLY_WAIT_SEC);
+	}
+
+	@Override
+	public String getKind() {
+		return CheckAlertCommand.KIND;
+	}
+
+	@Override
+	public CheckAlertCommand parse(String type, List<Object> params) {
+		if (!CheckAlertCommand.KIND.equals(type)) {
+			return null;
+		}
+
+		return new CheckAlertCommand(params.isEmpty() ? null : String.valueOf(params.get(0)));
+	}
+}
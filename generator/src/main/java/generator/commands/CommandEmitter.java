@@ -0,0 +1,54 @@
+package generator.commands;
+
+import java.util.List;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.GenerationContext;
+import models.commands.CommandNode;
+
+/**
+ * 解析並產生一種Command的Code，需為stateless。自訂Command可透過ServiceLoader
+ * (META-INF/services/generator.commands.CommandEmitter)註冊至CommandEmitterRegistry
+ * 
+ * @author Cyndi
+ *
+ * @param <T>
+ */
+public interface CommandEmitter<T extends CommandNode> {
+
+	/**
+	 * 產生Step的Code
+	 * 
+	 * @param code
+	 * @param command
+	 * @param context
+	 */
+	public void emit(CodeBlock.Builder code, T command, GenerationContext context);
+
+	/**
+	 * 產生Then Step的驗證Code，預設不產生
+	 * 
+	 * @param code
+	 * @param command
+	 * @param context
+	 */
+	public default void emitAssertion(CodeBlock.Builder code, T command, GenerationContext context) {
+	}
+
+	/**
+	 * 解析結果的Kind，為CommandEmitterRegistry的Key
+	 * 
+	 * @return
+	 */
+	public String getKind();
+
+	/**
+	 * 讀取Excel時解析Command Type與參數
+	 * 
+	 * @param type
+	 * @param params
+	 * @return 非此Emitter處理的Command Type時回傳null
+	 */
+	public T parse(String type, List<Object> params);
+}
@@ -0,0 +1,152 @@
+package generator.commands;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.GenerationContext;
+import models.Command;
+import models.commands.CommandNode;
+
+/**
+ * 以Command Kind對應CommandEmitter，建立後不再變動，可供多個Thread同時使用
+ * 
+ * @author Cyndi
+ *
+ */
+public class CommandEmitterRegistry {
+
+	private static class DefaultHolder {
+		private static final CommandEmitterRegistry INSTANCE = new CommandEmitterRegistry(
+				ServiceLoader.load(CommandEmitter.class));
+	}
+
+	/**
+	 * 內建Command加上ServiceLoader註冊的自訂Command
+	 * 
+	 * @return
+	 */
+	public static CommandEmitterRegistry getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	private final Map<String, CommandEmitter<?>> emitters;
+
+	/**
+	 * 
+	 * @param customEmitters
+	 *            自訂的emitter，Kind與內建相同時會取代內建的emitter
+	 */
+	@SuppressWarnings("rawtypes")
+	public CommandEmitterRegistry(Iterable<? extends CommandEmitter> customEmitters) {
+		Map<String, CommandEmitter<?>> emitters = new LinkedHashMap<>();
+
+		register(emitters, new ElementEmitter());
+		register(emitters, new TouchActionEmitter());
+		register(emitters, new WaitingEmitter());
+		register(emitters, new CheckAlertEmitter());
+		register(emitters, new PickerEmitter());
+		register(emitters, new StepSequenceEmitter());
+		register(emitters, new ElementChainEmitter());
+		register(emitters, new ExplicitWaitEmitter());
+
+		for (CommandEmitter<?> emitter : customEmitters) {
+			register(emitters, emitter);
+		}
+
+		this.emitters = Collections.unmodifiableMap(emitters);
+	}
+
+	/**
+	 * 
+	 * @param command
+	 * @return 有對應的Emitter時回傳true
+	 */
+	public boolean canEmit(CommandNode command) {
+		return getEmitter(command) != null;
+	}
+
+	/**
+	 * 產生Step的Code
+	 * 
+	 * @param command
+	 * @param context
+	 * @return 無對應的Emitter時回傳null
+	 */
+	public CodeBlock emit(CommandNode command, GenerationContext context) {
+		CommandEmitter<CommandNode> emitter = getEmitter(command);
+		if (emitter == null) {
+			return null;
+		}
+
+		CodeBlock.Builder code = CodeBlock.builder();
+		emitter.emit(code, command, context);
+		return code.build();
+	}
+
+	/**
+	 * 產生Then Step的驗證Code
+	 * 
+	 * @param command
+	 * @param context
+	 * @return 無對應的Emitter時回傳null
+	 */
+	public CodeBlock emitAssertion(CommandNode command, GenerationContext context) {
+		CommandEmitter<CommandNode> emitter = getEmitter(command);
+		if (emitter == null) {
+			return null;
+		}
+
+		CodeBlock.Builder code = CodeBlock.builder();
+		emitter.emitAssertion(code, command, context);
+		return code.build();
+	}
+
+	public Set<String> getKinds() {
+		return emitters.keySet();
+	}
+
+	/**
+	 * 依序交給各Emitter解析，由第一個可處理的Emitter產生結果
+	 * 
+	 * @param type
+	 * @param params
+	 * @return 無可處理的Emitter時回傳null
+	 */
+	public CommandNode parse(String type, List<Object> params) {
+		if (type == null) {
+			return null;
+		}
+
+		for (CommandEmitter<?> emitter : emitters.values()) {
+			CommandNode command = emitter.parse(type, params);
+			if (command != null) {
+				return command;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 解析Command並保存於Command，讀取Excel或快照時呼叫
+	 * 
+	 * @param command
+	 */
+	public void parse(Command command) {
+		command.setNode(parse(command.getType(), command.getParams()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private CommandEmitter<CommandNode> getEmitter(CommandNode command) {
+		return command == null ? null : (CommandEmitter<CommandNode>) emitters.get(command.getKind());
+	}
+
+	private void register(Map<String, CommandEmitter<?>> emitters, CommandEmitter<?> emitter) {
+		emitters.put(emitter.getKind(), emitter);
+	}
+}
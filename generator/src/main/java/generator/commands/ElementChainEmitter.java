@@ -0,0 +1,50 @@
+package generator.commands;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.AppiumTestGenerator;
+import generator.GenerationContext;
+import io.appium.java_client.MobileElement;
+import models.commands.ElementChainCommand;
+import models.commands.ElementCommand;
+
+/**
+ * ElementChain，由最佳化合併產生，不由Excel讀取。元件以區塊內的區域變數保存
+ * 
+ * @author Cyndi
+ *
+ */
+public class ElementChainEmitter implements CommandEmitter<ElementChainCommand> {
+
+	private static final String ELEMENT_VARIABLE = "element";
+
+	private final ElementEmitter elementEmitter = new ElementEmitter();
+
+	@Override
+	public void emit(CodeBlock.Builder code, ElementChainCommand command, GenerationContext context) {
+
+		code.add("{\n$>");
+		code.add("$T $L = $L.findElement($T.$L(\"$L\"));\n", MobileElement.class, ELEMENT_VARIABLE,
+				AppiumTestGenerator.DRIVER_NAME, By.class, command.getLocator(), command.getElement());
+
+		for (ElementCommand element : command.getCommands()) {
+			elementEmitter.emitAction(code, CodeBlock.of("$L", ELEMENT_VARIABLE), element, context);
+		}
+
+		code.add("$<}\n");
+	}
+
+	@Override
+	public String getKind() {
+		return ElementChainCommand.KIND;
+	}
+
+	@Override
+	public ElementChainCommand parse(String type, List<Object> params) {
+		return null;
+	}
+}
@@ -0,0 +1,132 @@
+package generator.commands;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.By;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.AppiumTestGenerator;
+import generator.GenerationContext;
+import io.appium.java_client.MobileElement;
+import models.AccountInfo;
+import models.commands.ElementCommand;
+
+/**
+ * ByName/ByXPath，參數依序為ElementName、Action、Value
+ * 
+ * @author Cyndi
+ *
+ */
+public class ElementEmitter implements CommandEmitter<ElementCommand> {
+
+	@Override
+	public void emit(CodeBlock.Builder code, ElementCommand command, GenerationContext context) {
+		emitAction(code, CodeBlock.of("$L.findElement($T.$L(\"$L\"))", AppiumTestGenerator.DRIVER_NAME, By.class,
+				command.getLocator(), command.getElement()), command, context);
+	}
+
+	/**
+	 * 驗證元件存在
+	 */
+	@Override
+	public void emitAssertion(CodeBlock.Builder code, ElementCommand command, GenerationContext context) {
+
+		if (command.getElement() == null) {
+			return;
+		}
+
+		code.add("$T<$T> expectedElements = $L.findElements($T.$L(\"$L\"));\n", List.class, MobileElement.class,
+				AppiumTestGenerator.DRIVER_NAME, By.class, command.getLocator(), command.getElement());
+
+		code.add("assertTrue(expectedElements.size() >0);\n");
+	}
+
+	@Override
+	public String getKind() {
+		return ElementCommand.KIND;
+	}
+
+	@Override
+	public ElementCommand parse(String type, List<Object> params) {
+		if (!"ByName".equals(type) && !"ByXPath".equals(type)) {
+			return null;
+		}
+
+		return new ElementCommand(StringUtils.lowerCase(type.substring(2)), getParam(params, 0),
+				getParam(params, 1), getParam(params, 2));
+	}
+
+	/**
+	 * 對已取得的元件執行Action
+	 * 
+	 * @param code
+	 * @param element
+	 *            元件，ex: driver.findElement(By.name("首頁"))
+	 * @param command
+	 * @param context
+	 */
+	void emitAction(CodeBlock.Builder code, CodeBlock element, ElementCommand command, GenerationContext context) {
+
+		if (command.getAction() == null) {
+			return;
+		}
+
+		if ("click".equals(command.getAction())) {
+			code.add("$L.click();\n", element);
+		} else if ("sendKeys".equals(command.getAction())) {
+			appendSendKeyCode(code, element, command, context);
+		} else if ("clear".equals(command.getAction())) {
+			code.add("$L.clear();\n", element);
+		}
+	}
+
+	/**
+	 * SendKey Code，Value為#{type.field}時以測試資料取代，${var}時為共用步驟的參數
+	 * 
+	 * @param code
+	 * @param element
+	 * @param command
+	 * @param context
+	 */
+	private void appendSendKeyCode(CodeBlock.Builder code, CodeBlock element, ElementCommand command,
+			GenerationContext context) {
+
+		String value = command.getValue();
+
+		if (value == null) {
+			return;
+		}
+
+		// Script時，處理AccountInfo用
+		if (value.startsWith("#{") && value.endsWith("}")) {
+
+			String[] tag = value.substring(2, value.length() - 1).split("\\.");
+			AccountInfo acc = context.getAccountInfos().get(tag[0]);
+
+			String m = tag[1];
+
+			if (acc != null) {
+				if (StringUtils.equalsIgnoreCase(m, "password")) {
+					value = acc.getPassword();
+				} else if (StringUtils.equalsIgnoreCase(m, "pid")) {
+					value = acc.getPid();
+				} else if (StringUtils.equalsIgnoreCase(m, "userName")) {
+					value = acc.getUserName();
+				}
+			}
+		}
+
+		// commonStep時，處理AccountInfo用
+		if (value.startsWith("${") && value.endsWith("}")) {
+			code.add("$L.sendKeys($L);\n", element, value.substring(2, value.length() - 1));
+		} else {
+			code.add("$L.sendKeys($L);\n", element, "\"" + value + "\"");
+		}
+	}
+
+	private String getParam(List<Object> params, int index) {
+		return params.size() > index ? String.valueOf(params.get(index)) : null;
+	}
+}
@@ -0,0 +1,38 @@
+package generator.commands;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.AppiumTestGenerator;
+import generator.GenerationContext;
+import generator.test.utils.CommandUtils;
+import models.commands.ExplicitWaitCommand;
+
+/**
+ * ExplicitWait，由Waiting最佳化產生，不由Excel讀取
+ * 
+ * @author Cyndi
+ *
+ */
+public class ExplicitWaitEmitter implements CommandEmitter<ExplicitWaitCommand> {
+
+	@Override
+	public void emit(CodeBlock.Builder code, ExplicitWaitCommand command, GenerationContext context) {
+		code.add("$T.waitFor($L,$LL,$T.$L($S),$S,$L);\n", CommandUtils.class, AppiumTestGenerator.DRIVER_NAME,
+				command.getSeconds(), By.class, command.getLocator(), command.getElement(), command.getCondition(),
+				AppiumTestGenerator.DRIVER_IMPLICITLY_WAIT_SEC);
+	}
+
+	@Override
+	public String getKind() {
+		return ExplicitWaitCommand.KIND;
+	}
+
+	@Override
+	public ExplicitWaitCommand parse(String type, List<Object> params) {
+		return null;
+	}
+}
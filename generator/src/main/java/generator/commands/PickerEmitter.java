@@ -0,0 +1,45 @@
+package generator.commands;
+
+import java.util.List;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.AppiumTestGenerator;
+import generator.GenerationContext;
+import models.commands.PickerCommand;
+
+/**
+ * Picker，第一個參數為選取的值
+ * 
+ * @author Cyndi
+ *
+ */
+public class PickerEmitter implements CommandEmitter<PickerCommand> {
+
+	@Override
+	public void emit(CodeBlock.Builder code, PickerCommand command, GenerationContext context) {
+
+		if (command.getValue() == null) {
+			return;
+		}
+
+		code.add("$L.findElement(By.xpath(\"//XCUIElementTypePickerWheel\")).setValue($S);\n",
+				AppiumTestGenerator.DRIVER_NAME, command.getValue());
+
+		code.add("$L.findElement(By.name(\"完成\")).click();\n", AppiumTestGenerator.DRIVER_NAME);
+	}
+
+	@Override
+	public String getKind() {
+		return PickerCommand.KIND;
+	}
+
+	@Override
+	public PickerCommand parse(String type, List<Object> params) {
+		if (!PickerCommand.KIND.equals(type)) {
+			return null;
+		}
+
+		return new PickerCommand(params.isEmpty() ? null : String.valueOf(params.get(0)));
+	}
+}
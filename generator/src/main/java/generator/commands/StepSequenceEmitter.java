@@ -0,0 +1,50 @@
+package generator.commands;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+
+import generator.AppiumTestGenerator;
+import generator.GenerationContext;
+import models.commands.StepSequenceCommand;
+
+/**
+ * StepSequence，第一個參數為完整Method Name，ex: com.esun.automation.module.shared.SharedSteps.sequence1
+ * 
+ * @author Cyndi
+ *
+ */
+public class StepSequenceEmitter implements CommandEmitter<StepSequenceCommand> {
+
+	@Override
+	public void emit(CodeBlock.Builder code, StepSequenceCommand command, GenerationContext context) {
+		code.add("$T.$L($L,$L,$L,$L,$L);\n", ClassName.get(command.getPackageName(), command.getClassName()),
+				command.getMethodName(), AppiumTestGenerator.DRIVER_NAME, AppiumTestGenerator.ACCOUNT_USERNAME,
+				AppiumTestGenerator.ACCOUNT_PASSWORD, AppiumTestGenerator.ACCOUNT_PID,
+				AppiumTestGenerator.DRIVER_IMPLICITLY_WAIT_SEC);
+	}
+
+	@Override
+	public String getKind() {
+		return StepSequenceCommand.KIND;
+	}
+
+	@Override
+	public StepSequenceCommand parse(String type, List<Object> params) {
+		if (!StepSequenceCommand.KIND.equals(type)) {
+			return null;
+		}
+
+		String method = params.isEmpty() ? "" : String.valueOf(params.get(0));
+		String className = StringUtils.substringBeforeLast(method, ".");
+		if (!className.contains(".")) {
+			throw new IllegalArgumentException("StepSequence requires a qualified method name: " + params);
+		}
+
+		return new StepSequenceCommand(StringUtils.substringBeforeLast(className, "."),
+				StringUtils.substringAfterLast(className, "."), StringUtils.substringAfterLast(method, "."));
+	}
+}
@@ -0,0 +1,48 @@
+package generator.commands;
+
+import java.util.List;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.AppiumTestGenerator;
+import generator.GenerationContext;
+import io.appium.java_client.TouchAction;
+import models.commands.TouchActionCommand;
+
+/**
+ * TouchAction_{distance}，ex: TouchAction_1.5
+ * 
+ * @author Cyndi
+ *
+ */
+public class TouchActionEmitter implements CommandEmitter<TouchActionCommand> {
+
+	private static final String PREFIX = "TouchAction_";
+
+	@Override
+	public void emit(CodeBlock.Builder code, TouchActionCommand command, GenerationContext context) {
+		for (int i = 0; i < command.getTimes(); i++) {
+			code.add("(new $T($L)).press( ($L/2), $L -25).moveTo(0, (-1) * $L / 2 ).release().perform();\n",
+					TouchAction.class, AppiumTestGenerator.DRIVER_NAME, AppiumTestGenerator.PHONE_WIDTH,
+					AppiumTestGenerator.PHONE_HEIGHT, AppiumTestGenerator.PHONE_HEIGHT);
+		}
+	}
+
+	@Override
+	public String getKind() {
+		return TouchActionCommand.KIND;
+	}
+
+	@Override
+	public TouchActionCommand parse(String type, List<Object> params) {
+		if (!type.startsWith(PREFIX)) {
+			return null;
+		}
+
+		try {
+			return new TouchActionCommand(Double.parseDouble(type.replaceAll(PREFIX, "")));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid TouchAction distance: " + type, e);
+		}
+	}
+}
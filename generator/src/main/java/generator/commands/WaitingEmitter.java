@@ -0,0 +1,67 @@
+package generator.commands;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.GenerationContext;
+import models.commands.WaitingCommand;
+
+/**
+ * Waiting_{n}s(下拉式選單預設)，或Waiting加上第一個參數為秒數(自訂)。參數含sleep時為固定等待
+ * 
+ * @author Cyndi
+ *
+ */
+public class WaitingEmitter implements CommandEmitter<WaitingCommand> {
+
+	/**
+	 * 固定等待的參數
+	 */
+	private static final String FIXED = "sleep";
+
+	private static final String PREFIX = "Waiting";
+
+	@Override
+	public void emit(CodeBlock.Builder code, WaitingCommand command, GenerationContext context) {
+
+		if (command.getSeconds() == null) {
+			return;
+		}
+
+		code.add("try { \n	$T.sleep($L* 1000);\n}catch($T e) { e.printStackTrace();\n}\n", Thread.class,
+				command.getSeconds(), InterruptedException.class);
+	}
+
+	@Override
+	public String getKind() {
+		return WaitingCommand.KIND;
+	}
+
+	@Override
+	public WaitingCommand parse(String type, List<Object> params) {
+		if (!type.startsWith(PREFIX)) {
+			return null;
+		}
+
+		String secString = StringUtils.trim(type.replaceAll(PREFIX, ""));
+		boolean fixed = params.stream()
+				.anyMatch(param -> FIXED.equalsIgnoreCase(StringUtils.trim(String.valueOf(param))));
+
+		try {
+			if (StringUtils.isBlank(secString)) {
+				// 下拉式選單自訂Waiting time
+				return new WaitingCommand(
+						params.isEmpty() ? null : Double.valueOf(String.valueOf(params.get(0))).intValue(), fixed);
+			}
+			// 下拉式選單預設Waiting time，去底線/去S/去空白
+			return new WaitingCommand(
+					Integer.parseInt(StringUtils.trim(StringUtils.strip(StringUtils.strip(secString, "_"), "s"))),
+					fixed);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid Waiting time: " + type + " " + params, e);
+		}
+	}
+}
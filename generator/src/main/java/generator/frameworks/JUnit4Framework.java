@@ -0,0 +1,93 @@
+package generator.frameworks;
+
+import java.lang.annotation.Annotation;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import generator.test.rules.DevicePoolRule;
+import generator.test.rules.ExceptionRule;
+import generator.test.rules.NoResetSettingRule;
+import generator.test.rules.UserLoginTestRule;
+import models.Feature;
+
+/**
+ * JUnit 4：@Before、@Rule、org.junit.Assert，預設的測試框架
+ * 
+ * @author Cyndi
+ *
+ */
+public class JUnit4Framework implements TestFramework {
+
+	@Override
+	public void addClassAnnotations(TypeSpec.Builder classBuilder, Feature feature, String deviceLock) {
+	}
+
+	@Override
+	public void addTestAnnotations(MethodSpec.Builder methodBuilder) {
+		methodBuilder.addAnnotation(Test.class);
+	}
+
+	@Override
+	public Class<? extends Annotation> getAfterAll() {
+		return AfterClass.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getAfterEach() {
+		return After.class;
+	}
+
+	@Override
+	public Class<?> getAssertions() {
+		return Assert.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getBeforeEach() {
+		return Before.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getClassExtension() {
+		return ClassRule.class;
+	}
+
+	@Override
+	public Class<?> getDevicePool() {
+		return DevicePoolRule.class;
+	}
+
+	@Override
+	public Class<?> getExceptionHandler() {
+		return ExceptionRule.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getExtension() {
+		return Rule.class;
+	}
+
+	@Override
+	public String getName() {
+		return "junit4";
+	}
+
+	@Override
+	public Class<?> getNoResetSetting() {
+		return NoResetSettingRule.class;
+	}
+
+	@Override
+	public Class<?> getUserLogin() {
+		return UserLoginTestRule.class;
+	}
+}
@@ -0,0 +1,120 @@
+package generator.frameworks;
+
+import java.lang.annotation.Annotation;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import generator.test.extensions.DevicePoolExtension;
+import generator.test.extensions.ExceptionExtension;
+import generator.test.extensions.NoResetSettingExtension;
+import generator.test.extensions.UserLoginExtension;
+import models.Feature;
+
+/**
+ * JUnit 5(Jupiter)：Extension取代Rule。Test Class可同時執行，同一Class的Test Method與Class在同一Thread依序執行，
+ * 共用租借的裝置與Session；未使用DevicePool時以裝置的ResourceLock避免同時使用同一裝置。以Feature的Package為Tag
+ * 
+ * @author Cyndi
+ *
+ */
+public class JUnit5Framework implements TestFramework {
+
+	/**
+	 * Tag不可包含的字元
+	 */
+	private static final String TAG_RESERVED_CHARS = " ,()&|!";
+
+	@Override
+	public void addClassAnnotations(TypeSpec.Builder classBuilder, Feature feature, String deviceLock) {
+
+		String tag = StringUtils.replaceChars(StringUtils.trimToEmpty(feature.getPackageName()), TAG_RESERVED_CHARS,
+				StringUtils.repeat('_', TAG_RESERVED_CHARS.length()));
+		if (!tag.isEmpty()) {
+			classBuilder.addAnnotation(AnnotationSpec.builder(Tag.class).addMember("value", "$S", tag).build());
+		}
+
+		classBuilder.addAnnotation(AnnotationSpec.builder(Execution.class)
+				.addMember("value", "$T.$L", ExecutionMode.class, ExecutionMode.CONCURRENT).build());
+
+		if (deviceLock != null) {
+			classBuilder.addAnnotation(
+					AnnotationSpec.builder(ResourceLock.class).addMember("value", "$S", deviceLock).build());
+		}
+	}
+
+	@Override
+	public void addTestAnnotations(MethodSpec.Builder methodBuilder) {
+		methodBuilder.addAnnotation(Test.class);
+		methodBuilder.addAnnotation(AnnotationSpec.builder(Execution.class)
+				.addMember("value", "$T.$L", ExecutionMode.class, ExecutionMode.SAME_THREAD).build());
+	}
+
+	@Override
+	public Class<? extends Annotation> getAfterAll() {
+		return AfterAll.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getAfterEach() {
+		return AfterEach.class;
+	}
+
+	@Override
+	public Class<?> getAssertions() {
+		return Assertions.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getBeforeEach() {
+		return BeforeEach.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getClassExtension() {
+		return RegisterExtension.class;
+	}
+
+	@Override
+	public Class<?> getDevicePool() {
+		return DevicePoolExtension.class;
+	}
+
+	@Override
+	public Class<?> getExceptionHandler() {
+		return ExceptionExtension.class;
+	}
+
+	@Override
+	public Class<? extends Annotation> getExtension() {
+		return RegisterExtension.class;
+	}
+
+	@Override
+	public String getName() {
+		return "junit5";
+	}
+
+	@Override
+	public Class<?> getNoResetSetting() {
+		return NoResetSettingExtension.class;
+	}
+
+	@Override
+	public Class<?> getUserLogin() {
+		return UserLoginExtension.class;
+	}
+}
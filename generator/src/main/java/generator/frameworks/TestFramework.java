@@ -0,0 +1,92 @@
+package generator.frameworks;
+
+import java.lang.annotation.Annotation;
+
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import models.Feature;
+
+/**
+ * 產生的Test Class使用的測試框架：生命週期Annotation、Rule/Extension與Assertion。Step的Code與框架無關，共用CommandEmitter
+ * 
+ * @author Cyndi
+ *
+ */
+public interface TestFramework {
+
+	/**
+	 * 加入Test Class的Annotation
+	 * 
+	 * @param classBuilder
+	 * @param feature
+	 * @param deviceLock
+	 *            使用同一裝置的Test Class不可同時執行時的Lock名稱，由DevicePool租借裝置時為null
+	 */
+	public void addClassAnnotations(TypeSpec.Builder classBuilder, Feature feature, String deviceLock);
+
+	/**
+	 * 加入Test Method的Annotation
+	 * 
+	 * @param methodBuilder
+	 */
+	public void addTestAnnotations(MethodSpec.Builder methodBuilder);
+
+	/**
+	 * 
+	 * @return Test Class結束後執行的static Method
+	 */
+	public Class<? extends Annotation> getAfterAll();
+
+	public Class<? extends Annotation> getAfterEach();
+
+	/**
+	 * 
+	 * @return Assertion Method所在的Class，以static import引用
+	 */
+	public Class<?> getAssertions();
+
+	public Class<? extends Annotation> getBeforeEach();
+
+	/**
+	 * 
+	 * @return static Rule/Extension Field的Annotation
+	 */
+	public Class<? extends Annotation> getClassExtension();
+
+	/**
+	 * 
+	 * @return 租借裝置的Rule/Extension，建構子為(裝置名稱, Appium URL)
+	 */
+	public Class<?> getDevicePool();
+
+	/**
+	 * 
+	 * @return 失敗時截圖的Rule/Extension，提供setDriver
+	 */
+	public Class<?> getExceptionHandler();
+
+	/**
+	 * 
+	 * @return Rule/Extension Field的Annotation
+	 */
+	public Class<? extends Annotation> getExtension();
+
+	/**
+	 * 
+	 * @return 輸入Hash使用，ex: junit4
+	 */
+	public String getName();
+
+	/**
+	 * 
+	 * @return 讀取NoResetSetting的Rule/Extension，提供isNoReset
+	 */
+	public Class<?> getNoResetSetting();
+
+	/**
+	 * 
+	 * @return 讀取TestingAccount的Rule/Extension，提供getHasUser、getUserName、getPid、getPassword
+	 */
+	public Class<?> getUserLogin();
+}
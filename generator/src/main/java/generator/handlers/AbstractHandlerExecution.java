@@ -0,0 +1,22 @@
+package generator.handlers;
+
+/**
+ * 實作HandlerExecution抽象類別
+ * 
+ * @author Cyndi
+ *
+ * @param <T>
+ */
+public abstract class AbstractHandlerExecution<T> implements HandlerExecution<T> {
+
+	private final String typeName;
+
+	protected AbstractHandlerExecution(String typeName) {
+		this.typeName = typeName;
+	}
+
+	@Override
+	public String getTypeName() {
+		return typeName;
+	}
+}
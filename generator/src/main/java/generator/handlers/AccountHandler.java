@@ -1,18 +1,13 @@
 package generator.handlers;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-
-import com.google.common.collect.Iterators;
 
+import generator.readers.SheetRow;
 import models.AccountInfo;
 
 /**
@@ -21,22 +16,16 @@ import models.AccountInfo;
  * @author Cyndi
  *
  */
-public class AccountHandler implements HandlerExecution<List<AccountInfo>> {
+public class AccountHandler extends AbstractHandlerExecution<List<AccountInfo>> {
 
 	private List<AccountInfo> accounts = new ArrayList<>();
 
-	private final XSSFSheet sheet;
-
-	private String typeName;
-
 	/**
 	 * 
-	 * @param sheet
 	 * @param typeName
 	 */
-	public AccountHandler(XSSFSheet sheet, String typeName) {
-		this.sheet = sheet;
-		this.typeName = typeName;
+	public AccountHandler(String typeName) {
+		super(typeName);
 	}
 
 	@Override
@@ -55,42 +44,31 @@ public class AccountHandler implements HandlerExecution<List<AccountInfo>> {
 	}
 
 	@Override
-	public void generate() {
-
-		Iterator<Row> rowIterator = sheet.iterator();
-
-		// 前進兩格，由第三列開始
-		Iterators.advance(rowIterator, 2);
-
-		while (rowIterator.hasNext()) {
-
-			Row row = rowIterator.next();
+	public List<AccountInfo> getData() {
+		return accounts;
+	}
 
-			if (!checkAccountInfo(row))
-				continue;
+	@Override
+	public void handleRow(SheetRow row) {
 
-			if (isTitleColumn(row))
-				continue;
+		// 略過前兩列，由第三列開始
+		if (row.getRowNum() < 2)
+			return;
 
-			AccountInfo accountInfo = new AccountInfo();
-			accountInfo.setType(row.getCell(0).getStringCellValue());
-			accountInfo.setPid(row.getCell(1).getStringCellValue());
-			accountInfo.setUserName(row.getCell(2).getStringCellValue());
-			accountInfo.setPassword(row.getCell(3).getStringCellValue());
-			accountInfo.setComment(row.getCell(4).getStringCellValue());
+		if (!checkAccountInfo(row))
+			return;
 
-			accounts.add(accountInfo);
-		}
-	}
+		if (isTitleColumn(row))
+			return;
 
-	@Override
-	public List<AccountInfo> getData() {
-		return accounts;
-	}
+		AccountInfo accountInfo = new AccountInfo();
+		accountInfo.setType(row.getStringCellValue(0));
+		accountInfo.setPid(row.getStringCellValue(1));
+		accountInfo.setUserName(row.getStringCellValue(2));
+		accountInfo.setPassword(row.getStringCellValue(3));
+		accountInfo.setComment(row.getStringCellValue(4));
 
-	@Override
-	public String getTypeName() {
-		return typeName;
+		accounts.add(accountInfo);
 	}
 
 	/**
@@ -99,15 +77,9 @@ public class AccountHandler implements HandlerExecution<List<AccountInfo>> {
 	 * @param row
 	 * @return
 	 */
-	private boolean checkAccountInfo(Row row) {
+	private boolean checkAccountInfo(SheetRow row) {
 		return !IntStream.range(0, 4).anyMatch((index) -> {
-			Cell cell = row.getCell(index);
-			String cellValue;
-			if (cell == null) {
-				return true;
-			}
-			cellValue = cell.getStringCellValue();
-			return StringUtils.isEmpty(cellValue);
+			return StringUtils.isEmpty(row.getStringCellValue(index));
 		});
 	}
 
@@ -117,8 +89,8 @@ public class AccountHandler implements HandlerExecution<List<AccountInfo>> {
 	 * @param row
 	 * @return
 	 */
-	private boolean isTitleColumn(Row row) {
-		return "使用者身份".equals(row.getCell(0).getStringCellValue());
+	private boolean isTitleColumn(SheetRow row) {
+		return "使用者身份".equals(row.getStringCellValue(0));
 	}
 
 }
@@ -1,19 +1,14 @@
 package generator.handlers;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
 
-import com.google.common.collect.Iterators;
-
-import generator.utils.ExcelUtils;
+import generator.commands.CommandEmitterRegistry;
+import generator.readers.SheetRow;
 import models.Command;
 import models.CommonMethod;
 import models.CommonUtilClass;
@@ -25,20 +20,19 @@ import models.Step;
  * @author Cyndi
  *
  */
-public class CommonStepHandler implements HandlerExecution<CommonUtilClass> {
+public class CommonStepHandler extends AbstractHandlerExecution<CommonUtilClass> {
 	private static final String METHOD_COMMENT_TAG = "MethodComment";
 
 	private static final String METHOD_NAME_TAG = "MethodName";
 
 	private static final String METHOD_NOREST_TAG = "noReset";
 
-	private final XSSFSheet sheet;
-	private String typeName;
+	private CommonMethod method;
+
 	private CommonUtilClass utilClass;
 
-	public CommonStepHandler(XSSFSheet sheet, String typeName) {
-		this.sheet = sheet;
-		this.typeName = typeName;
+	public CommonStepHandler(String typeName) {
+		super(typeName);
 		utilClass = new CommonUtilClass();
 		utilClass.setMethods(new ArrayList<>());
 	}
@@ -58,122 +52,101 @@ public class CommonStepHandler implements HandlerExecution<CommonUtilClass> {
 	}
 
 	@Override
-	public void generate() {
-
-		int rowNumber = populateClassInfo(sheet);
-
-		Iterator<Row> rowIterator = sheet.iterator();
-		Iterators.advance(rowIterator, rowNumber);
-
-		CommonMethod method = null;
-
-		while (rowIterator.hasNext()) {
-			Row row = rowIterator.next();
-
-			String firstCell = getStringCellValue(row, 0);
+	public CommonUtilClass getData() {
+		return utilClass;
+	}
 
-			// 檢查第一欄名稱是否等於METHOD_NAME_TAG，若有則Create一個新的Method
-			if (METHOD_NAME_TAG.equals(firstCell)) {
-				String name = row.getCell(1).getStringCellValue();
-				method = new CommonMethod();
-				method.setName(name);
-				method.setPackageName(utilClass.getPackageName());
-				method.setClassName(utilClass.getName());
-				method.setSteps(new ArrayList<>());
+	@Override
+	public void handleRow(SheetRow row) {
 
-				utilClass.getMethods().add(method);
+		// 前四列為Sheet Type與Class資訊
+		if (row.getRowNum() < 4) {
+			populateClassInfo(row);
+			return;
+		}
 
-			} else if (METHOD_COMMENT_TAG.equals(firstCell)) {
-				if (method != null) {
-					String desc = row.getCell(1).getStringCellValue();
-					method.setDesc(desc);
+		String firstCell = row.getStringCellValue(0);
 
-					Iterator<Cell> cellIterator = row.iterator();
-					Iterators.advance(cellIterator, 2);
+		// 檢查第一欄名稱是否等於METHOD_NAME_TAG，若有則Create一個新的Method
+		if (METHOD_NAME_TAG.equals(firstCell)) {
+			String name = row.getStringCellValue(1);
+			method = new CommonMethod();
+			method.setName(name);
+			method.setPackageName(utilClass.getPackageName());
+			method.setClassName(utilClass.getName());
+			method.setSteps(new ArrayList<>());
 
-					while (cellIterator.hasNext()) {
-						Cell cell = cellIterator.next();
-						String column = cell.getStringCellValue();
+			utilClass.getMethods().add(method);
 
-						if (METHOD_NOREST_TAG.equals(column)) {
-							if (cellIterator.hasNext()) {
-								Cell noResetCell = cellIterator.next();
+		} else if (METHOD_COMMENT_TAG.equals(firstCell)) {
+			if (method != null) {
+				String desc = row.getStringCellValue(1);
+				method.setDesc(desc);
 
-								Optional<Boolean> noReset = ExcelUtils.getCellValueToBoolean(noResetCell);
-								if (noReset.isPresent()) {
-									method.setNoReset(noReset.get());
-								} else {
-									method.setNoReset(false);
-								}
-							}
+				for (int cn = 2; cn < row.getLastCellNum(); cn++) {
+					String column = row.getStringCellValue(cn);
+
+					if (METHOD_NOREST_TAG.equals(column) && cn + 1 < row.getLastCellNum()) {
+						// 下一格為noReset值
+						Optional<Boolean> noReset = row.getCellValueToBoolean(++cn);
+						if (noReset.isPresent()) {
+							method.setNoReset(noReset.get());
+						} else {
+							method.setNoReset(false);
 						}
 					}
 				}
-			} else if (StringUtils.isNotBlank(firstCell) && !StringUtils.equals(firstCell, "Step")) {
-
-				String desc = row.getCell(0).getStringCellValue();
-				Step step = new Step();
-				step.setDesc(desc);
+			}
+		} else if (StringUtils.isNotBlank(firstCell) && !StringUtils.equals(firstCell, "Step")) {
 
-				String commandType = row.getCell(1).getStringCellValue();
+			String desc = row.getStringCellValue(0);
+			Step step = new Step();
+			step.setDesc(desc);
 
-				Command command = new Command();
-				command.setType(commandType);
+			String commandType = row.getStringCellValue(1);
 
-				// 將第三欄開始的內容都當為Command參數
-				for (int cn = 2; cn < row.getLastCellNum(); cn++) {
-					Cell cell = row.getCell(cn);
+			Command command = new Command();
+			command.setType(commandType);
 
-					Optional<Object> value = ExcelUtils.getCellValue(cell);
+			// 將第三欄開始的內容都當為Command參數
+			for (int cn = 2; cn < row.getLastCellNum(); cn++) {
+				Optional<Object> value = row.getCellValue(cn);
 
-					if (value.isPresent()) {
-						command.addParam(value.get());
-					}
+				if (value.isPresent()) {
+					command.addParam(value.get());
 				}
-				step.setCommand(command);
-
-				method.getSteps().add(step);
 			}
+			CommandEmitterRegistry.getDefault().parse(command);
+			step.setCommand(command);
 
+			method.getSteps().add(step);
 		}
 	}
 
 	@Override
-	public CommonUtilClass getData() {
-		return utilClass;
-	}
-
-	@Override
-	public String getTypeName() {
-		return typeName;
+	public void setSheetName(String sheetName) {
+		utilClass.setSheetName(sheetName);
 	}
 
 	/**
-	 * 取第i格欄位(Cell)的值
+	 * 第二~四列第二格為ClassName、ClassComment、PackageName
 	 * 
 	 * @param row
-	 * @param i
-	 * @return
 	 */
-	private String getStringCellValue(Row row, int i) {
-		Cell cell = row.getCell(i);
-		if (cell == null) {
-			return "";
+	private void populateClassInfo(SheetRow row) {
+		switch (row.getRowNum()) {
+		case 1:
+			utilClass.setName(row.getStringCellValue(1));
+			break;
+		case 2:
+			utilClass.setDesc(row.getStringCellValue(1));
+			break;
+		case 3:
+			utilClass.setPackageName(row.getStringCellValue(1));
+			break;
+		default:
+			break;
 		}
-
-		return cell.getStringCellValue();
-	}
-
-	private int populateClassInfo(XSSFSheet sheet) {
-		String className = sheet.getRow(1).getCell(1).getStringCellValue();
-		String desc = sheet.getRow(2).getCell(1).getStringCellValue();
-		String packageName = sheet.getRow(3).getCell(1).getStringCellValue();
-
-		utilClass.setName(className);
-		utilClass.setDesc(desc);
-		utilClass.setPackageName(packageName);
-
-		return 4;
 	}
 
 }
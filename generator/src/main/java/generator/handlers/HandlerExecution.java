@@ -2,6 +2,8 @@ package generator.handlers;
 
 import java.util.Map;
 
+import generator.readers.SheetRow;
+
 public interface HandlerExecution<T> {
 
 	/**
@@ -11,12 +13,22 @@ public interface HandlerExecution<T> {
 	 */
 	public void addRecordTo(Map<String, Object> store);
 
-	/**
-	 * 定義讀取規則
-	 */
-	public void generate();
-
 	public T getData();
 
 	public String getTypeName();
+
+	/**
+	 * 定義讀取規則：處理Sheet中的一列，DOM與串流讀取共用
+	 * 
+	 * @param row
+	 */
+	public void handleRow(SheetRow row);
+
+	/**
+	 * 設定來源Sheet名稱，讀完Sheet後呼叫
+	 * 
+	 * @param sheetName
+	 */
+	public default void setSheetName(String sheetName) {
+	}
 }
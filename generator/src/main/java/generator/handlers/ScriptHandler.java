@@ -2,26 +2,20 @@ package generator.handlers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
 
-import com.google.common.collect.Iterators;
-
-import generator.utils.ExcelUtils;
+import generator.commands.CommandEmitterRegistry;
+import generator.readers.SheetRow;
 import models.Command;
 import models.Feature;
 import models.Scenario;
 import models.Step;
 
-public class ScriptHandler implements HandlerExecution<Feature> {
+public class ScriptHandler extends AbstractHandlerExecution<Feature> {
 
 	private static final List<String> gherkins = Arrays.asList("Given", "And", "When", "Then");
 
@@ -29,14 +23,12 @@ public class ScriptHandler implements HandlerExecution<Feature> {
 
 	private static final String SCENARIO_NAME_TAG = "MethodName";
 
-	private Feature feature;
-	private final XSSFSheet sheet;
+	private Scenario currentScenario;
 
-	private String typeName;
+	private Feature feature;
 
-	public ScriptHandler(XSSFSheet sheet, String typeName) {
-		this.sheet = sheet;
-		this.typeName = typeName;
+	public ScriptHandler(String typeName) {
+		super(typeName);
 		feature = new Feature();
 		feature.setScenarios(new ArrayList<>());
 	}
@@ -56,107 +48,93 @@ public class ScriptHandler implements HandlerExecution<Feature> {
 	}
 
 	@Override
-	public void generate() {
-
-		int rowNumber = populateClassInfo(sheet);
-
-		Iterator<Row> rowIterator = sheet.iterator();
-		Iterators.advance(rowIterator, rowNumber);
-
-		Scenario currentScenario = null;
+	public Feature getData() {
+		return feature;
+	}
 
-		while (rowIterator.hasNext()) {
-			Row row = rowIterator.next();
+	@Override
+	public void handleRow(SheetRow row) {
 
-			String firstCell = getStringCellValue(row, 0);
+		// 前四列為Sheet Type與Class資訊
+		if (row.getRowNum() < 4) {
+			populateClassInfo(row);
+			return;
+		}
 
-			if (StringUtils.isBlank(firstCell)) {
-				continue;
-			}
+		String firstCell = row.getStringCellValue(0);
 
-			if (gherkins.contains(firstCell)) {
+		if (StringUtils.isBlank(firstCell)) {
+			return;
+		}
 
-				if (currentScenario != null) {
-					String stepType = row.getCell(0).getStringCellValue();
-					String desc = row.getCell(1).getStringCellValue();
-					String commandType = row.getCell(2).getStringCellValue();
+		if (gherkins.contains(firstCell)) {
 
-					Step step = new Step();
-					step.setDesc(desc);
+			if (currentScenario != null) {
+				String stepType = row.getStringCellValue(0);
+				String desc = row.getStringCellValue(1);
+				String commandType = row.getStringCellValue(2);
 
-					if ("And".equals(stepType) && currentScenario.getSteps().size() > 0) {
-						stepType = currentScenario.getSteps().get(currentScenario.getSteps().size() - 1)
-								.getGherkinType();
-					}
+				Step step = new Step();
+				step.setDesc(desc);
 
-					step.setGherkinType(stepType);
+				if ("And".equals(stepType) && currentScenario.getSteps().size() > 0) {
+					stepType = currentScenario.getSteps().get(currentScenario.getSteps().size() - 1).getGherkinType();
+				}
 
-					Command command = new Command();
-					command.setType(commandType);
+				step.setGherkinType(stepType);
 
-					step.setCommand(command);
+				Command command = new Command();
+				command.setType(commandType);
 
-					for (int cn = 3; cn < row.getLastCellNum(); cn++) {
-						Cell cell = row.getCell(cn);
+				step.setCommand(command);
 
-						Optional<Object> value = ExcelUtils.getCellValue(cell);
+				for (int cn = 3; cn < row.getLastCellNum(); cn++) {
+					Optional<Object> value = row.getCellValue(cn);
 
-						if (value.isPresent()) {
-							command.addParam(value.get());
-						}
+					if (value.isPresent()) {
+						command.addParam(value.get());
 					}
-
-					currentScenario.getSteps().add(step);
 				}
-			} else if (SCENARIO_NAME_TAG.equals(firstCell)) {
+				CommandEmitterRegistry.getDefault().parse(command);
 
-				String name = row.getCell(1).getStringCellValue();
-				currentScenario = new Scenario();
-				currentScenario.setName(name);
-				currentScenario.setSteps(new ArrayList<>());
+				currentScenario.getSteps().add(step);
+			}
+		} else if (SCENARIO_NAME_TAG.equals(firstCell)) {
 
-				feature.getScenarios().add(currentScenario);
+			String name = row.getStringCellValue(1);
+			currentScenario = new Scenario();
+			currentScenario.setName(name);
+			currentScenario.setSteps(new ArrayList<>());
 
-			} else if (SCENARIO_COMMENT_TAG.equals(firstCell)) {
+			feature.getScenarios().add(currentScenario);
 
-				if (currentScenario != null) {
-					String desc = row.getCell(1).getStringCellValue();
-					currentScenario.setDesc(desc);
-				}
-			}
+		} else if (SCENARIO_COMMENT_TAG.equals(firstCell)) {
 
+			if (currentScenario != null) {
+				String desc = row.getStringCellValue(1);
+				currentScenario.setDesc(desc);
+			}
 		}
-
 	}
 
 	@Override
-	public Feature getData() {
-		return feature;
+	public void setSheetName(String sheetName) {
+		feature.setSheetName(sheetName);
 	}
 
-	@Override
-	public String getTypeName() {
-		return typeName;
-	}
-
-	private String getStringCellValue(Row row, int i) {
-		Cell cell = row.getCell(i);
-		if (cell == null) {
-			return "";
+	private void populateClassInfo(SheetRow row) {
+		switch (row.getRowNum()) {
+		case 1:
+			feature.setName(row.getStringCellValue(1));
+			break;
+		case 2:
+			feature.setDesc(row.getStringCellValue(1));
+			break;
+		case 3:
+			feature.setPackageName(row.getStringCellValue(1));
+			break;
+		default:
+			break;
 		}
-
-		return cell.getStringCellValue();
-	}
-
-	private int populateClassInfo(XSSFSheet sheet) {
-		String className = sheet.getRow(1).getCell(1).getStringCellValue();
-		String desc = sheet.getRow(2).getCell(1).getStringCellValue();
-		String packageName = sheet.getRow(3).getCell(1).getStringCellValue();
-
-		feature.setName(className);
-		feature.setDesc(desc);
-		feature.setPackageName(packageName);
-
-		return 4;
 	}
 }
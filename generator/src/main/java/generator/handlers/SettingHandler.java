@@ -1,19 +1,13 @@
 package generator.handlers;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-
-import com.google.common.collect.Iterators;
 
+import generator.readers.SheetRow;
 import generator.utils.DesiredCapabilityUtils;
-import generator.utils.ExcelUtils;
 import io.appium.java_client.remote.MobileCapabilityType;
 
 /**
@@ -22,7 +16,7 @@ import io.appium.java_client.remote.MobileCapabilityType;
  * @author Cyndi
  *
  */
-public class SettingHandler implements HandlerExecution<Map<String, Map<String, Object>>> {
+public class SettingHandler extends AbstractHandlerExecution<Map<String, Map<String, Object>>> {
 
 	private static final String DESIRED_CAPABILITIES = "desiredCapabilities";
 
@@ -36,13 +30,8 @@ public class SettingHandler implements HandlerExecution<Map<String, Map<String,
 
 	private Map<String, Map<String, Object>> properties = new HashMap<>();
 
-	private final XSSFSheet sheet;
-
-	private String typeName;
-
-	public SettingHandler(XSSFSheet sheet, String typeName) {
-		this.sheet = sheet;
-		this.typeName = typeName;
+	public SettingHandler(String typeName) {
+		super(typeName);
 		mapper = getCapabilityNameMapper();
 
 		properties.put(DESIRED_CAPABILITIES, desiredCapabilities);
@@ -74,62 +63,43 @@ public class SettingHandler implements HandlerExecution<Map<String, Map<String,
 	}
 
 	@Override
-	public void generate() {
-
-		Iterator<Row> rowIterator = sheet.iterator();
+	public Map<String, Map<String, Object>> getData() {
 
-		// 前進一格，由第二列開始
-		Iterators.advance(rowIterator, 1);
+		return properties;
+	}
 
-		while (rowIterator.hasNext()) {
-			Row row = rowIterator.next();
+	@Override
+	public void handleRow(SheetRow row) {
 
-			if (StringUtils.isBlank(row.getCell(0).getStringCellValue())) {
-				continue;
-			}
+		// 略過第一列，由第二列開始
+		if (row.getRowNum() < 1) {
+			return;
+		}
 
-			if (isDesiredCapability(row)) {
-				String column = row.getCell(0).getStringCellValue();
+		if (StringUtils.isBlank(row.getStringCellValue(0))) {
+			return;
+		}
 
-				String key = mapper.getOrDefault(column, column);
+		if (isDesiredCapability(row)) {
+			String column = row.getStringCellValue(0);
 
-				Cell cell = row.getCell(1);
-				if (cell == null)
-					continue;
+			String key = mapper.getOrDefault(column, column);
 
-				Optional<Object> value = ExcelUtils.getCellValue(cell);
+			Optional<Object> value = row.getCellValue(1);
 
-				if (value.isPresent()) {
-					desiredCapabilities.put(key, value.get());
-				}
+			if (value.isPresent()) {
+				desiredCapabilities.put(key, value.get());
 			}
+		}
 
-			if (implicitlyWaitProperty(row)) {
-
-				Cell valueCell = row.getCell(1);
-
-				if (valueCell != null) {
+		if (implicitlyWaitProperty(row)) {
 
-					Optional<Integer> waitSec = ExcelUtils.getCellValueToInteger(valueCell);
+			Optional<Integer> waitSec = row.getCellValueToInteger(1);
 
-					if (waitSec.isPresent()) {
-						driverProperties.put("implicitlyWait", waitSec.get());
-					}
-				}
+			if (waitSec.isPresent()) {
+				driverProperties.put("implicitlyWait", waitSec.get());
 			}
 		}
-
-	}
-
-	@Override
-	public Map<String, Map<String, Object>> getData() {
-
-		return properties;
-	}
-
-	@Override
-	public String getTypeName() {
-		return typeName;
 	}
 
 	/**
@@ -149,16 +119,16 @@ public class SettingHandler implements HandlerExecution<Map<String, Map<String,
 		return mapper;
 	}
 
-	private boolean implicitlyWaitProperty(Row row) {
+	private boolean implicitlyWaitProperty(SheetRow row) {
 
-		String title = row.getCell(0).getStringCellValue();
+		String title = row.getStringCellValue(0);
 
 		return "尋找元素等待時間".equals(title);
 	}
 
-	private boolean isDesiredCapability(Row row) {
+	private boolean isDesiredCapability(SheetRow row) {
 
-		String title = row.getCell(0).getStringCellValue();
+		String title = row.getStringCellValue(0);
 
 		if (mapper.get(title) != null) {
 			return true;
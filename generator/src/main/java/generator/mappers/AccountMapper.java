@@ -12,17 +12,17 @@ import models.AccountInfo;
  * @author Cyndi
  *
  */
-public class AccountMapper extends AbstractExcelSheetMapper<List<AccountInfo>> {
+public class AccountMapper implements ExcelSheetMapper<List<AccountInfo>> {
 
 	public static final String TYPE = "data";
 
 	@Override
-	protected HandlerExecution<List<AccountInfo>> defaultHandle() {
-		return new AccountHandler(sheet, getType());
+	public HandlerExecution<List<AccountInfo>> createHandler() {
+		return new AccountHandler(getType());
 	}
 
 	@Override
-	protected String getType() {
+	public String getType() {
 		return TYPE;
 	}
 }
@@ -10,17 +10,17 @@ import models.CommonUtilClass;
  * @author Cyndi
  *
  */
-public class CommonStepMapper extends AbstractExcelSheetMapper<CommonUtilClass> {
+public class CommonStepMapper implements ExcelSheetMapper<CommonUtilClass> {
 
 	public static final String TYPE = "commonStep";
 
 	@Override
-	protected HandlerExecution<CommonUtilClass> defaultHandle() {
-		return new CommonStepHandler(sheet, getType());
+	public HandlerExecution<CommonUtilClass> createHandler() {
+		return new CommonStepHandler(getType());
 	}
 
 	@Override
-	protected String getType() {
+	public String getType() {
 		return TYPE;
 	}
 }
@@ -1,10 +1,28 @@
 package generator.mappers;
 
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-
 import generator.handlers.HandlerExecution;
 
+/**
+ * Sheet Type對應的Handler Factory，需為stateless。自訂Sheet Type可透過ServiceLoader
+ * (META-INF/services/generator.mappers.ExcelSheetMapper)註冊至ExcelSheetMapperRegistry
+ * 
+ * @author Cyndi
+ *
+ * @param <T>
+ */
 public interface ExcelSheetMapper<T> {
 
-	public HandlerExecution<T> getHandler(XSSFSheet sheet);
+	/**
+	 * 建立新的Handler，每個Sheet各自一個
+	 * 
+	 * @return
+	 */
+	public HandlerExecution<T> createHandler();
+
+	/**
+	 * Sheet第一列第一格的Type
+	 * 
+	 * @return
+	 */
+	public String getType();
 }
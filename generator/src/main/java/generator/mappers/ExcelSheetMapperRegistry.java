@@ -0,0 +1,128 @@
+package generator.mappers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+
+import generator.handlers.HandlerExecution;
+import generator.readers.SheetRow;
+import generator.readers.XSSFSheetRow;
+
+/**
+ * 以Sheet Type(第一列第一格)對應ExcelSheetMapper，建立後不再變動，可供多個Thread同時使用
+ * 
+ * @author Cyndi
+ *
+ */
+public class ExcelSheetMapperRegistry {
+
+	private static class DefaultHolder {
+		private static final ExcelSheetMapperRegistry INSTANCE = new ExcelSheetMapperRegistry(
+				ServiceLoader.load(ExcelSheetMapper.class));
+	}
+
+	/**
+	 * 內建Sheet Type加上ServiceLoader註冊的自訂Sheet Type
+	 * 
+	 * @return
+	 */
+	public static ExcelSheetMapperRegistry getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	private final Map<String, ExcelSheetMapper<?>> mappers;
+
+	/**
+	 * 
+	 * @param customMappers
+	 *            自訂的mapper，Type與內建相同時會取代內建的mapper
+	 */
+	@SuppressWarnings("rawtypes")
+	public ExcelSheetMapperRegistry(Iterable<? extends ExcelSheetMapper> customMappers) {
+		Map<String, ExcelSheetMapper<?>> mappers = new LinkedHashMap<>();
+
+		register(mappers, new ScriptMapper());
+		register(mappers, new SettingMapper());
+		register(mappers, new AccountMapper());
+		register(mappers, new CommonStepMapper());
+
+		for (ExcelSheetMapper<?> mapper : customMappers) {
+			register(mappers, mapper);
+		}
+
+		this.mappers = Collections.unmodifiableMap(mappers);
+	}
+
+	private ExcelSheetMapperRegistry(Map<String, ExcelSheetMapper<?>> mappers) {
+		this.mappers = Collections.unmodifiableMap(mappers);
+	}
+
+	/**
+	 * 只保留部分Type，其餘Type的Sheet讀取時會被略過
+	 * 
+	 * @param types
+	 * @return 新的Registry，原Registry不變
+	 */
+	public ExcelSheetMapperRegistry filter(Predicate<String> types) {
+		Map<String, ExcelSheetMapper<?>> filtered = new LinkedHashMap<>();
+
+		mappers.forEach((type, mapper) -> {
+			if (types.test(type)) {
+				filtered.put(type, mapper);
+			}
+		});
+
+		return new ExcelSheetMapperRegistry(filtered);
+	}
+
+	/**
+	 * 依Type建立Handler
+	 * 
+	 * @param type
+	 * @return 無對應的Type時回傳null
+	 */
+	public HandlerExecution<?> getHandler(String type) {
+		ExcelSheetMapper<?> mapper = mappers.get(type);
+		return mapper == null ? null : mapper.createHandler();
+	}
+
+	/**
+	 * 讀第一列第一格判斷Type
+	 * 
+	 * @param typeRow
+	 * @return
+	 */
+	public HandlerExecution<?> getHandler(SheetRow typeRow) {
+		return getHandler(typeRow.getStringCellValue(0));
+	}
+
+	/**
+	 * 讀Sheet第一列第一格判斷Type
+	 * 
+	 * @param sheet
+	 * @return
+	 */
+	public HandlerExecution<?> getHandler(XSSFSheet sheet) {
+		XSSFRow typeRow = sheet.getRow(0);
+
+		if (typeRow == null) {
+			return null;
+		}
+
+		return getHandler(new XSSFSheetRow(typeRow));
+	}
+
+	public Set<String> getTypes() {
+		return mappers.keySet();
+	}
+
+	private void register(Map<String, ExcelSheetMapper<?>> mappers, ExcelSheetMapper<?> mapper) {
+		mappers.put(mapper.getType(), mapper);
+	}
+}
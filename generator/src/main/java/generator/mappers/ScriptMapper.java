@@ -10,16 +10,16 @@ import models.Feature;
  * @author Cyndi
  *
  */
-public class ScriptMapper extends AbstractExcelSheetMapper<Feature> {
+public class ScriptMapper implements ExcelSheetMapper<Feature> {
 	public static final String TYPE = "script";
 
 	@Override
-	protected HandlerExecution<Feature> defaultHandle() {
-		return new ScriptHandler(sheet, getType());
+	public HandlerExecution<Feature> createHandler() {
+		return new ScriptHandler(getType());
 	}
 
 	@Override
-	protected String getType() {
+	public String getType() {
 		return TYPE;
 	}
 }
@@ -11,17 +11,17 @@ import generator.handlers.SettingHandler;
  * @author Cyndi
  *
  */
-public class SettingMapper extends AbstractExcelSheetMapper<Map<String, Map<String, Object>>> {
+public class SettingMapper implements ExcelSheetMapper<Map<String, Map<String, Object>>> {
 
 	public static final String TYPE = "settings";
 
 	@Override
-	protected HandlerExecution<Map<String, Map<String, Object>>> defaultHandle() {
-		return new SettingHandler(sheet, getType());
+	public HandlerExecution<Map<String, Map<String, Object>>> createHandler() {
+		return new SettingHandler(getType());
 	}
 
 	@Override
-	protected String getType() {
+	public String getType() {
 		return TYPE;
 	}
 }
@@ -0,0 +1,68 @@
+package generator.peephole;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import models.Step;
+import models.commands.CheckAlertCommand;
+import models.commands.CommandNode;
+import models.commands.ElementCommand;
+
+/**
+ * 刪除與前一個Step相同、重複執行無作用的Step：同一元件連續clear、同一按鈕連續CheckAlert
+ * 
+ * @author Cyndi
+ *
+ */
+public class DropRepeatedPass implements PeepholePass {
+
+	@Override
+	public List<Step> apply(List<Step> steps, Function<Step, CommandNode> nodes, Consumer<String> log) {
+
+		List<Step> optimized = new ArrayList<>(steps.size());
+		CommandNode previous = null;
+
+		for (Step step : steps) {
+			CommandNode node = PeepholeOptimizer.isThen(step) ? null : nodes.apply(step);
+
+			if (previous != null && node != null && isRepeated(previous, node)) {
+				log.accept(MessageFormat.format("drop {0} {1} {2}", step.getDesc(), step.getCommand().getType(),
+						step.getCommand().getParams()));
+				continue;
+			}
+
+			optimized.add(step);
+			previous = node;
+		}
+
+		return optimized.size() == steps.size() ? steps : optimized;
+	}
+
+	@Override
+	public String getName() {
+		return "drop-repeated";
+	}
+
+	private boolean isRepeated(CommandNode previous, CommandNode node) {
+
+		if (previous instanceof ElementCommand && node instanceof ElementCommand) {
+			ElementCommand first = (ElementCommand) previous;
+			ElementCommand second = (ElementCommand) node;
+
+			return "clear".equals(first.getAction()) && "clear".equals(second.getAction())
+					&& Objects.equals(first.getLocator(), second.getLocator())
+					&& Objects.equals(first.getElement(), second.getElement());
+		}
+
+		if (previous instanceof CheckAlertCommand && node instanceof CheckAlertCommand) {
+			String element = ((CheckAlertCommand) node).getElement();
+			return element != null && element.equals(((CheckAlertCommand) previous).getElement());
+		}
+
+		return false;
+	}
+}
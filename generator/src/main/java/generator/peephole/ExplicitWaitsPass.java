@@ -0,0 +1,104 @@
+package generator.peephole;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import generator.test.utils.CommandUtils;
+import models.Step;
+import models.commands.CheckAlertCommand;
+import models.commands.CommandNode;
+import models.commands.ElementCommand;
+import models.commands.ExplicitWaitCommand;
+import models.commands.WaitingCommand;
+
+/**
+ * 下一個Step操作元件時，Waiting改為等待該元件，秒數為等待上限：click等待可點擊，Then與CheckAlert等待存在，其餘等待可見。
+ * 固定等待(參數含sleep)或下一個Step無元件時不變
+ * 
+ * @author Cyndi
+ *
+ */
+public class ExplicitWaitsPass implements PeepholePass {
+
+	@Override
+	public List<Step> apply(List<Step> steps, Function<Step, CommandNode> nodes, Consumer<String> log) {
+
+		List<Step> optimized = null;
+
+		for (int i = 0; i + 1 < steps.size(); i++) {
+			Step step = steps.get(i);
+			CommandNode node = PeepholeOptimizer.isThen(step) ? null : nodes.apply(step);
+
+			if (!(node instanceof WaitingCommand) || ((WaitingCommand) node).isFixed()
+					|| ((WaitingCommand) node).getSeconds() == null) {
+				continue;
+			}
+
+			ExplicitWaitCommand wait = getWait(steps.get(i + 1), nodes, ((WaitingCommand) node).getSeconds());
+			if (wait == null) {
+				continue;
+			}
+
+			if (optimized == null) {
+				optimized = new ArrayList<>(steps);
+			}
+			optimized.set(i,
+					PeepholeOptimizer.merge(Collections.singletonList(step), ExplicitWaitCommand.KIND,
+							Arrays.<Object>asList(wait.getSeconds(), wait.getLocator(), wait.getElement(),
+									wait.getCondition()),
+							wait));
+			log.accept(MessageFormat.format("{0} {1}s -> wait {2} {3} {4}", step.getDesc(), wait.getSeconds(),
+					wait.getCondition(), wait.getLocator(), wait.getElement()));
+		}
+
+		return optimized == null ? steps : optimized;
+	}
+
+	@Override
+	public String getName() {
+		return "explicit-waits";
+	}
+
+	/**
+	 * 
+	 * @param next
+	 *            Waiting的下一個Step
+	 * @param nodes
+	 * @param seconds
+	 * @return 下一個Step無元件時回傳null
+	 */
+	private ExplicitWaitCommand getWait(Step next, Function<Step, CommandNode> nodes, int seconds) {
+
+		CommandNode node = nodes.apply(next);
+
+		if (node instanceof ElementCommand) {
+			ElementCommand element = (ElementCommand) node;
+			if (element.getElement() == null || (element.getAction() == null && !PeepholeOptimizer.isThen(next))) {
+				return null;
+			}
+
+			String condition;
+			if (PeepholeOptimizer.isThen(next)) {
+				condition = CommandUtils.PRESENT;
+			} else if ("click".equals(element.getAction())) {
+				condition = CommandUtils.CLICKABLE;
+			} else {
+				condition = CommandUtils.VISIBLE;
+			}
+			return new ExplicitWaitCommand(element.getLocator(), element.getElement(), condition, seconds);
+		}
+
+		if (node instanceof CheckAlertCommand && !PeepholeOptimizer.isThen(next)
+				&& ((CheckAlertCommand) node).getElement() != null) {
+			return new ExplicitWaitCommand("name", ((CheckAlertCommand) node).getElement(), CommandUtils.PRESENT,
+					seconds);
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,92 @@
+package generator.peephole;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import models.Step;
+import models.commands.CommandNode;
+import models.commands.ElementChainCommand;
+import models.commands.ElementCommand;
+
+/**
+ * 對同一元件的連續操作只取得一次元件。第二個之後的操作限sendKeys、clear，click可能換頁使元件失效
+ * 
+ * @author Cyndi
+ *
+ */
+public class FuseLookupsPass implements PeepholePass {
+
+	@Override
+	public List<Step> apply(List<Step> steps, Function<Step, CommandNode> nodes, Consumer<String> log) {
+
+		List<Step> optimized = new ArrayList<>(steps.size());
+
+		for (int i = 0; i < steps.size();) {
+
+			ElementCommand first = getElementCommand(steps.get(i), nodes);
+
+			List<Step> chain = new ArrayList<>();
+			List<ElementCommand> commands = new ArrayList<>();
+			chain.add(steps.get(i));
+			commands.add(first);
+
+			if (first != null) {
+				for (int j = i + 1; j < steps.size(); j++) {
+					ElementCommand next = getElementCommand(steps.get(j), nodes);
+					if (next == null || !isInput(next) || !Objects.equals(first.getLocator(), next.getLocator())
+							|| !Objects.equals(first.getElement(), next.getElement())) {
+						break;
+					}
+					chain.add(steps.get(j));
+					commands.add(next);
+				}
+			}
+
+			if (chain.size() > 1) {
+				List<Object> params = chain.stream().map(step -> step.getCommand().getParams())
+						.collect(Collectors.toList());
+				optimized.add(PeepholeOptimizer.merge(chain, steps.get(i).getCommand().getType(), params,
+						new ElementChainCommand(commands)));
+				log.accept(MessageFormat.format("{0} on {1} {2}",
+						commands.stream().map(ElementCommand::getAction).collect(Collectors.joining(" + ")),
+						first.getLocator(), first.getElement()));
+			} else {
+				optimized.add(steps.get(i));
+			}
+			i += chain.size();
+		}
+
+		return optimized.size() == steps.size() ? steps : optimized;
+	}
+
+	@Override
+	public String getName() {
+		return "fuse-lookups";
+	}
+
+	/**
+	 * 
+	 * @param step
+	 * @param nodes
+	 * @return 非Element或無Action時回傳null
+	 */
+	private ElementCommand getElementCommand(Step step, Function<Step, CommandNode> nodes) {
+		if (PeepholeOptimizer.isThen(step)) {
+			return null;
+		}
+		CommandNode node = nodes.apply(step);
+		if (!(node instanceof ElementCommand) || ((ElementCommand) node).getAction() == null) {
+			return null;
+		}
+		return (ElementCommand) node;
+	}
+
+	private boolean isInput(ElementCommand command) {
+		return "sendKeys".equals(command.getAction()) || "clear".equals(command.getAction());
+	}
+}
@@ -0,0 +1,90 @@
+package generator.peephole;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import models.Step;
+import models.commands.CommandNode;
+import models.commands.WaitingCommand;
+
+/**
+ * 連續的Waiting合併為一個，等待秒數相加；固定等待只與固定等待合併
+ * 
+ * @author Cyndi
+ *
+ */
+public class MergeWaitsPass implements PeepholePass {
+
+	/**
+	 * 固定等待的參數，見WaitingEmitter
+	 */
+	private static final String FIXED = "sleep";
+
+	@Override
+	public List<Step> apply(List<Step> steps, Function<Step, CommandNode> nodes, Consumer<String> log) {
+
+		List<Step> optimized = new ArrayList<>(steps.size());
+
+		for (int i = 0; i < steps.size();) {
+
+			WaitingCommand first = getWaiting(steps.get(i), nodes);
+
+			List<Step> waits = new ArrayList<>();
+			int seconds = 0;
+			WaitingCommand wait;
+			while (i < steps.size() && (wait = getWaiting(steps.get(i), nodes)) != null
+					&& wait.isFixed() == first.isFixed()) {
+				seconds += wait.getSeconds();
+				waits.add(steps.get(i));
+				i++;
+			}
+
+			if (waits.size() > 1) {
+				List<Object> params = new ArrayList<>();
+				params.add(seconds);
+				if (first.isFixed()) {
+					params.add(FIXED);
+				}
+				optimized.add(PeepholeOptimizer.merge(waits, WaitingCommand.KIND, params,
+						new WaitingCommand(seconds, first.isFixed())));
+				log.accept(MessageFormat.format("{0} -> {1}s",
+						waits.stream().map(step -> step.getDesc() + " " + getWaiting(step, nodes).getSeconds() + "s")
+								.collect(Collectors.joining(" + ")),
+						seconds));
+			} else if (waits.size() == 1) {
+				optimized.add(waits.get(0));
+			} else {
+				optimized.add(steps.get(i));
+				i++;
+			}
+		}
+
+		return optimized.size() == steps.size() ? steps : optimized;
+	}
+
+	@Override
+	public String getName() {
+		return "merge-waits";
+	}
+
+	/**
+	 * 
+	 * @param step
+	 * @param nodes
+	 * @return 非Waiting或未指定秒數時回傳null
+	 */
+	private WaitingCommand getWaiting(Step step, Function<Step, CommandNode> nodes) {
+		if (PeepholeOptimizer.isThen(step)) {
+			return null;
+		}
+		CommandNode node = nodes.apply(step);
+		if (!(node instanceof WaitingCommand) || ((WaitingCommand) node).getSeconds() == null) {
+			return null;
+		}
+		return (WaitingCommand) node;
+	}
+}
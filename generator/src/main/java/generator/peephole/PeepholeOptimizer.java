@@ -0,0 +1,156 @@
+package generator.peephole;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import models.Command;
+import models.Step;
+import models.commands.CommandNode;
+
+/**
+ * 依序執行啟用的PeepholePass並印出每項變更，預設全部停用。需於產生前設定，產生時可供多個Thread同時使用
+ * 
+ * @author Cyndi
+ *
+ */
+public class PeepholeOptimizer {
+
+	private final AtomicLong changeCount = new AtomicLong();
+
+	private final Set<String> enabled = Collections.synchronizedSet(new TreeSet<>());
+
+	private final Map<String, PeepholePass> passes = new LinkedHashMap<>();
+
+	public PeepholeOptimizer() {
+		register(new DropRepeatedPass());
+		register(new MergeWaitsPass());
+		register(new ExplicitWaitsPass());
+		register(new FuseLookupsPass());
+	}
+
+	/**
+	 * 合併數個Step為一個，Gherkin Type沿用第一個Step，描述以「、」串接
+	 * 
+	 * @param steps
+	 * @param type
+	 * @param params
+	 * @param node
+	 * @return
+	 */
+	static Step merge(List<Step> steps, String type, List<Object> params, CommandNode node) {
+
+		Command command = new Command();
+		command.setType(type);
+		params.forEach(command::addParam);
+		command.setNode(node);
+
+		Step step = new Step();
+		step.setGherkinType(steps.get(0).getGherkinType());
+		step.setDesc(steps.stream().map(Step::getDesc).collect(Collectors.joining("、")));
+		step.setCommand(command);
+		return step;
+	}
+
+	/**
+	 * Then Step產生驗證Code，不最佳化
+	 * 
+	 * @param step
+	 * @return
+	 */
+	static boolean isThen(Step step) {
+		return "Then".equals(step.getGherkinType());
+	}
+
+	public long getChangeCount() {
+		return changeCount.get();
+	}
+
+	/**
+	 * 
+	 * @return 啟用的Pass名稱，依名稱排序
+	 */
+	public Set<String> getEnabled() {
+		synchronized (enabled) {
+			return new TreeSet<>(enabled);
+		}
+	}
+
+	/**
+	 * 
+	 * @return 依執行順序
+	 */
+	public Set<String> getPassNames() {
+		return Collections.unmodifiableSet(passes.keySet());
+	}
+
+	public boolean isEnabled(String name) {
+		return enabled.contains(name);
+	}
+
+	/**
+	 * 
+	 * @param label
+	 *            印出時的位置，ex: LoginFeatureTest.scenario0
+	 * @param steps
+	 *            不修改
+	 * @param nodes
+	 * @return 未啟用任何Pass時回傳steps
+	 */
+	public List<Step> optimize(String label, List<Step> steps, Function<Step, CommandNode> nodes) {
+
+		List<Step> optimized = steps;
+
+		for (PeepholePass pass : passes.values()) {
+			if (!enabled.contains(pass.getName())) {
+				continue;
+			}
+
+			optimized = pass.apply(optimized, nodes, change -> {
+				changeCount.incrementAndGet();
+				System.out.println(MessageFormat.format("peephole: [{0}] {1}: {2}", pass.getName(), label, change));
+			});
+		}
+		return optimized;
+	}
+
+	/**
+	 * 
+	 * @param name
+	 * @param enabled
+	 * @throws IllegalArgumentException
+	 *             無此Pass
+	 */
+	public void setEnabled(String name, boolean enabled) {
+		if (!passes.containsKey(name)) {
+			throw new IllegalArgumentException(
+					"Unknown peephole pass: " + name + ", expected one of " + passes.keySet());
+		}
+
+		if (enabled) {
+			this.enabled.add(name);
+		} else {
+			this.enabled.remove(name);
+		}
+	}
+
+	/**
+	 * 啟用或停用所有Pass
+	 * 
+	 * @param enabled
+	 */
+	public void setEnabledAll(boolean enabled) {
+		passes.keySet().forEach(name -> setEnabled(name, enabled));
+	}
+
+	private void register(PeepholePass pass) {
+		passes.put(pass.getName(), pass);
+	}
+}
@@ -0,0 +1,35 @@
+package generator.peephole;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import models.Step;
+import models.commands.CommandNode;
+
+/**
+ * 產生Code前對一個Method的Step清單做的最佳化，只比對相鄰的Step
+ * 
+ * @author Cyndi
+ *
+ */
+public interface PeepholePass {
+
+	/**
+	 * 
+	 * @param steps
+	 *            不修改
+	 * @param nodes
+	 *            取得Step的Command，無對應的Emitter時為null
+	 * @param log
+	 *            每項變更的說明
+	 * @return 最佳化後的Step，無變更時回傳steps
+	 */
+	List<Step> apply(List<Step> steps, Function<Step, CommandNode> nodes, Consumer<String> log);
+
+	/**
+	 * 
+	 * @return 開關用的名稱，ex: merge-waits
+	 */
+	String getName();
+}
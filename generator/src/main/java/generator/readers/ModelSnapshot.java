@@ -0,0 +1,557 @@
+package generator.readers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import generator.commands.CommandEmitterRegistry;
+import generator.mappers.AccountMapper;
+import generator.mappers.CommonStepMapper;
+import generator.mappers.ScriptMapper;
+import generator.mappers.SettingMapper;
+import models.AccountInfo;
+import models.Command;
+import models.CommonMethod;
+import models.CommonUtilClass;
+import models.Feature;
+import models.Scenario;
+import models.Step;
+
+/**
+ * 將讀取後的Model(Feature、CommonUtilClass、AccountInfo、裝置設定)存成二進位快照，
+ * Excel未變更時直接載入快照，不需再經過POI。字串集中存於字串表，重複的字串只存一次
+ * 
+ * @author Cyndi
+ *
+ */
+public class ModelSnapshot {
+
+	/**
+	 * 快照對應的Excel檔案資訊(大小、修改時間、CRC32)
+	 */
+	public static class WorkbookKey {
+
+		/**
+		 * 
+		 * @param excelFile
+		 * @return
+		 * @throws IOException
+		 */
+		public static WorkbookKey of(Path excelFile) throws IOException {
+			try (FileChannel channel = FileChannel.open(excelFile, StandardOpenOption.READ)) {
+				long size = channel.size();
+
+				CRC32 crc = new CRC32();
+				if (size > 0) {
+					crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+				}
+
+				return new WorkbookKey(size, Files.getLastModifiedTime(excelFile).toMillis(), crc.getValue());
+			}
+		}
+
+		private final long checksum;
+
+		private final long lastModified;
+
+		private final long size;
+
+		public WorkbookKey(long size, long lastModified, long checksum) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.checksum = checksum;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof WorkbookKey)) {
+				return false;
+			}
+			WorkbookKey other = (WorkbookKey) obj;
+			return size == other.size && lastModified == other.lastModified && checksum == other.checksum;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(new long[] { size, lastModified, checksum });
+		}
+	}
+
+	private static final int MAGIC = 0x41544753;
+
+	private static final byte VALUE_BOOLEAN = 2;
+
+	private static final byte VALUE_DOUBLE = 5;
+
+	private static final byte VALUE_INTEGER = 3;
+
+	private static final byte VALUE_LONG = 4;
+
+	private static final byte VALUE_NULL = 0;
+
+	private static final byte VALUE_STRING = 1;
+
+	/**
+	 * Model或Handler讀取規則改變時需調整，使舊版產生的快照失效
+	 */
+	public static final int VERSION = 3;
+
+	/**
+	 * 載入快照，檔案不存在、版本不同、對應的Excel已變更或內容損毀時回傳null
+	 * 
+	 * @param snapshotFile
+	 * @param key
+	 * @return
+	 */
+	public static ModelSnapshot load(Path snapshotFile, WorkbookKey key) {
+		if (!Files.isRegularFile(snapshotFile)) {
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return null;
+			}
+
+			if (!key.equals(new WorkbookKey(buffer.getLong(), buffer.getLong(), buffer.getLong()))) {
+				return null;
+			}
+
+			return new Decoder(buffer).readSnapshot();
+
+		} catch (IOException | RuntimeException e) {
+			// 快照損毀時視為沒有快照，改由Excel讀取
+			return null;
+		}
+	}
+
+	/**
+	 * 
+	 * @param data
+	 *            ExcelReader讀取結果
+	 * @param fingerprints
+	 * @param count
+	 * @return data包含無法存成快照的Sheet Type(ex: ServiceLoader註冊的自訂Type)時回傳null
+	 */
+	public static ModelSnapshot of(Map<String, Object> data, Map<String, String> fingerprints, int count) {
+		for (String type : data.keySet()) {
+			if (!Arrays.asList(ScriptMapper.TYPE, CommonStepMapper.TYPE, AccountMapper.TYPE, SettingMapper.TYPE)
+					.contains(type)) {
+				return null;
+			}
+		}
+		return new ModelSnapshot(data, fingerprints, count);
+	}
+
+	private final int count;
+
+	private final Map<String, Object> data;
+
+	private final Map<String, String> fingerprints;
+
+	private ModelSnapshot(Map<String, Object> data, Map<String, String> fingerprints, int count) {
+		this.data = data;
+		this.fingerprints = fingerprints;
+		this.count = count;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public Map<String, Object> getData() {
+		return data;
+	}
+
+	public Map<String, String> getFingerprints() {
+		return fingerprints;
+	}
+
+	/**
+	 * 先寫入暫存檔再搬移，避免寫到一半的快照被讀取
+	 * 
+	 * @param snapshotFile
+	 * @param key
+	 * @throws IOException
+	 */
+	public void save(Path snapshotFile, WorkbookKey key) throws IOException {
+
+		Encoder encoder = new Encoder();
+		encoder.writeSnapshot(this);
+
+		if (snapshotFile.getParent() != null) {
+			Files.createDirectories(snapshotFile.getParent());
+		}
+
+		Path temp = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName().toString(),
+				".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				DataOutputStream header = new DataOutputStream(out);
+				header.writeInt(MAGIC);
+				header.writeInt(VERSION);
+				header.writeLong(key.size);
+				header.writeLong(key.lastModified);
+				header.writeLong(key.checksum);
+				encoder.writeTo(header);
+				header.flush();
+			}
+
+			try {
+				Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * 由MappedByteBuffer讀回Model
+	 */
+	private static class Decoder {
+
+		private final ByteBuffer buffer;
+
+		private String[] strings;
+
+		Decoder(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		ModelSnapshot readSnapshot() {
+			strings = new String[buffer.getInt()];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[buffer.getInt()];
+				buffer.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			int count = buffer.getInt();
+
+			Map<String, String> fingerprints = new LinkedHashMap<>();
+			for (int i = buffer.getInt(); i > 0; i--) {
+				fingerprints.put(readString(), readString());
+			}
+
+			Map<String, Object> data = new HashMap<>();
+
+			int size = buffer.getInt();
+			if (size >= 0) {
+				List<Feature> features = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					features.add(readFeature());
+				}
+				data.put(ScriptMapper.TYPE, features);
+			}
+
+			size = buffer.getInt();
+			if (size >= 0) {
+				List<CommonUtilClass> utils = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					utils.add(readUtilClass());
+				}
+				data.put(CommonStepMapper.TYPE, utils);
+			}
+
+			size = buffer.getInt();
+			if (size >= 0) {
+				List<AccountInfo> accounts = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					AccountInfo acc = new AccountInfo();
+					acc.setType(readString());
+					acc.setPid(readString());
+					acc.setUserName(readString());
+					acc.setPassword(readString());
+					acc.setComment(readString());
+					accounts.add(acc);
+				}
+				data.put(AccountMapper.TYPE, accounts);
+			}
+
+			size = buffer.getInt();
+			if (size >= 0) {
+				Map<String, Map<String, Object>> settings = new HashMap<>();
+				for (int i = 0; i < size; i++) {
+					String name = readString();
+					Map<String, Object> values = new HashMap<>();
+					for (int j = buffer.getInt(); j > 0; j--) {
+						values.put(readString(), readValue());
+					}
+					settings.put(name, values);
+				}
+				data.put(SettingMapper.TYPE, settings);
+			}
+
+			return new ModelSnapshot(data, fingerprints, count);
+		}
+
+		private Feature readFeature() {
+			Feature feature = new Feature();
+			feature.setName(readString());
+			feature.setDesc(readString());
+			feature.setPackageName(readString());
+			feature.setSheetName(readString());
+
+			int size = buffer.getInt();
+			List<Scenario> scenarios = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				Scenario scenario = new Scenario();
+				scenario.setName(readString());
+				scenario.setDesc(readString());
+				scenario.setSteps(readSteps());
+				scenarios.add(scenario);
+			}
+			feature.setScenarios(scenarios);
+			return feature;
+		}
+
+		private List<Step> readSteps() {
+			int size = buffer.getInt();
+			List<Step> steps = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				Step step = new Step();
+				step.setDesc(readString());
+				step.setGherkinType(readString());
+
+				Command command = new Command();
+				command.setType(readString());
+				for (int j = buffer.getInt(); j > 0; j--) {
+					command.addParam(readValue());
+				}
+				// 快照只保存Command原始內容，載入後重新解析
+				CommandEmitterRegistry.getDefault().parse(command);
+				step.setCommand(command);
+				steps.add(step);
+			}
+			return steps;
+		}
+
+		private String readString() {
+			int index = buffer.getInt();
+			return index < 0 ? null : strings[index];
+		}
+
+		private CommonUtilClass readUtilClass() {
+			CommonUtilClass utilClass = new CommonUtilClass();
+			utilClass.setName(readString());
+			utilClass.setDesc(readString());
+			utilClass.setPackageName(readString());
+			utilClass.setSheetName(readString());
+
+			int size = buffer.getInt();
+			List<CommonMethod> methods = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				CommonMethod method = new CommonMethod();
+				method.setName(readString());
+				method.setDesc(readString());
+				method.setClassName(readString());
+				method.setPackageName(readString());
+				method.setNoReset(buffer.get() == 1);
+				method.setSteps(readSteps());
+				methods.add(method);
+			}
+			utilClass.setMethods(methods);
+			return utilClass;
+		}
+
+		private Object readValue() {
+			byte type = buffer.get();
+			switch (type) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_STRING:
+				return readString();
+			case VALUE_BOOLEAN:
+				return buffer.get() == 1;
+			case VALUE_INTEGER:
+				return buffer.getInt();
+			case VALUE_LONG:
+				return buffer.getLong();
+			case VALUE_DOUBLE:
+				return buffer.getDouble();
+			default:
+				throw new IllegalStateException("unknown value type " + type);
+			}
+		}
+	}
+
+	/**
+	 * 將Model寫成字串表 + 內容
+	 */
+	private static class Encoder {
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private final DataOutputStream out = new DataOutputStream(body);
+
+		private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+		void writeTo(DataOutputStream target) throws IOException {
+			target.writeInt(strings.size());
+			for (String value : strings.keySet()) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				target.writeInt(bytes.length);
+				target.write(bytes);
+			}
+			out.flush();
+			body.writeTo(target);
+		}
+
+		@SuppressWarnings("unchecked")
+		void writeSnapshot(ModelSnapshot snapshot) throws IOException {
+			out.writeInt(snapshot.count);
+
+			out.writeInt(snapshot.fingerprints.size());
+			for (Map.Entry<String, String> entry : snapshot.fingerprints.entrySet()) {
+				writeString(entry.getKey());
+				writeString(entry.getValue());
+			}
+
+			List<Feature> features = (List<Feature>) snapshot.data.get(ScriptMapper.TYPE);
+			out.writeInt(features == null ? -1 : features.size());
+			if (features != null) {
+				for (Feature feature : features) {
+					writeFeature(feature);
+				}
+			}
+
+			List<CommonUtilClass> utils = (List<CommonUtilClass>) snapshot.data.get(CommonStepMapper.TYPE);
+			out.writeInt(utils == null ? -1 : utils.size());
+			if (utils != null) {
+				for (CommonUtilClass utilClass : utils) {
+					writeUtilClass(utilClass);
+				}
+			}
+
+			List<AccountInfo> accounts = (List<AccountInfo>) snapshot.data.get(AccountMapper.TYPE);
+			out.writeInt(accounts == null ? -1 : accounts.size());
+			if (accounts != null) {
+				for (AccountInfo acc : accounts) {
+					writeString(acc.getType());
+					writeString(acc.getPid());
+					writeString(acc.getUserName());
+					writeString(acc.getPassword());
+					writeString(acc.getComment());
+				}
+			}
+
+			Map<String, Map<String, Object>> settings = (Map<String, Map<String, Object>>) snapshot.data
+					.get(SettingMapper.TYPE);
+			out.writeInt(settings == null ? -1 : settings.size());
+			if (settings != null) {
+				for (Map.Entry<String, Map<String, Object>> entry : settings.entrySet()) {
+					writeString(entry.getKey());
+					out.writeInt(entry.getValue().size());
+					for (Map.Entry<String, Object> value : entry.getValue().entrySet()) {
+						writeString(value.getKey());
+						writeValue(value.getValue());
+					}
+				}
+			}
+		}
+
+		private void writeFeature(Feature feature) throws IOException {
+			writeString(feature.getName());
+			writeString(feature.getDesc());
+			writeString(feature.getPackageName());
+			writeString(feature.getSheetName());
+
+			out.writeInt(feature.getScenarios().size());
+			for (Scenario scenario : feature.getScenarios()) {
+				writeString(scenario.getName());
+				writeString(scenario.getDesc());
+				writeSteps(scenario.getSteps());
+			}
+		}
+
+		private void writeSteps(List<Step> steps) throws IOException {
+			out.writeInt(steps.size());
+			for (Step step : steps) {
+				writeString(step.getDesc());
+				writeString(step.getGherkinType());
+				writeString(step.getCommand().getType());
+
+				List<Object> params = step.getCommand().getParams();
+				out.writeInt(params.size());
+				for (Object param : params) {
+					writeValue(param);
+				}
+			}
+		}
+
+		private void writeString(String value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+
+			Integer index = strings.get(value);
+			if (index == null) {
+				index = strings.size();
+				strings.put(value, index);
+			}
+			out.writeInt(index);
+		}
+
+		private void writeUtilClass(CommonUtilClass utilClass) throws IOException {
+			writeString(utilClass.getName());
+			writeString(utilClass.getDesc());
+			writeString(utilClass.getPackageName());
+			writeString(utilClass.getSheetName());
+
+			out.writeInt(utilClass.getMethods().size());
+			for (CommonMethod method : utilClass.getMethods()) {
+				writeString(method.getName());
+				writeString(method.getDesc());
+				writeString(method.getClassName());
+				writeString(method.getPackageName());
+				out.writeByte(method.isNoReset() ? 1 : 0);
+				writeSteps(method.getSteps());
+			}
+		}
+
+		private void writeValue(Object value) throws IOException {
+			if (value == null) {
+				out.writeByte(VALUE_NULL);
+			} else if (value instanceof String) {
+				out.writeByte(VALUE_STRING);
+				writeString((String) value);
+			} else if (value instanceof Boolean) {
+				out.writeByte(VALUE_BOOLEAN);
+				out.writeByte((Boolean) value ? 1 : 0);
+			} else if (value instanceof Integer) {
+				out.writeByte(VALUE_INTEGER);
+				out.writeInt((Integer) value);
+			} else if (value instanceof Long) {
+				out.writeByte(VALUE_LONG);
+				out.writeLong((Long) value);
+			} else if (value instanceof Double) {
+				out.writeByte(VALUE_DOUBLE);
+				out.writeDouble((Double) value);
+			} else {
+				throw new IOException("unsupported value type " + value.getClass());
+			}
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package generator.readers;
+
+import generator.handlers.HandlerExecution;
+
+/**
+ * 單一Sheet的讀取結果
+ * 
+ * @author Cyndi
+ *
+ */
+public class ParsedSheet {
+
+	private final HandlerExecution<?> execution;
+
+	private final String fingerprint;
+
+	private final String name;
+
+	public ParsedSheet(String name, HandlerExecution<?> execution, String fingerprint) {
+		this.name = name;
+		this.execution = execution;
+		this.fingerprint = fingerprint;
+	}
+
+	public HandlerExecution<?> getExecution() {
+		return execution;
+	}
+
+	/**
+	 * Sheet內容的Hash
+	 * 
+	 * @return
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Sheet名稱
+	 * 
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+}
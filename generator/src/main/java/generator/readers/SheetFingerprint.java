@@ -0,0 +1,41 @@
+package generator.readers;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * 依各列欄位內容計算Sheet的Hash，用於判斷Sheet內容是否變更
+ * 
+ * @author Cyndi
+ *
+ */
+public class SheetFingerprint {
+
+	private final Hasher hasher = Hashing.sha256().newHasher();
+
+	/**
+	 * 
+	 * @return Hash(hex)
+	 */
+	public String getValue() {
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * 加入一列的內容，DOM與串流讀取對相同內容會得到相同結果
+	 * 
+	 * @param row
+	 */
+	public void update(SheetRow row) {
+		hasher.putInt(row.getRowNum());
+
+		for (int cn = 0; cn < row.getLastCellNum(); cn++) {
+			String value = row.getCellValue(cn).map(String::valueOf).orElse("");
+
+			hasher.putInt(cn).putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+		}
+		hasher.putInt(-1);
+	}
+}
@@ -0,0 +1,58 @@
+package generator.readers;
+
+import java.util.Optional;
+
+/**
+ * Excel Sheet中的一列，供各Handler逐列讀取，不綁定DOM(XSSFRow)或串流(SAX)讀取方式
+ * 
+ * @author Cyndi
+ *
+ */
+public interface SheetRow {
+
+	/**
+	 * 最後一格欄位之index + 1，若該列無任何欄位則回傳-1
+	 * 
+	 * @return
+	 */
+	public int getLastCellNum();
+
+	/**
+	 * 列號(由0開始)
+	 * 
+	 * @return
+	 */
+	public int getRowNum();
+
+	/**
+	 * 取第i格欄位的字串值，欄位不存在時回傳空字串
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public String getStringCellValue(int index);
+
+	/**
+	 * 取第i格欄位的值(String/Boolean)
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public Optional<Object> getCellValue(int index);
+
+	/**
+	 * 取第i格欄位的值並轉為Boolean
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public Optional<Boolean> getCellValueToBoolean(int index);
+
+	/**
+	 * 取第i格欄位的值並轉為Integer
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public Optional<Integer> getCellValueToInteger(int index);
+}
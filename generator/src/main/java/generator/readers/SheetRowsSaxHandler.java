@@ -0,0 +1,179 @@
+package generator.readers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import generator.utils.ExcelUtils;
+
+/**
+ * 解析sheetN.xml，每讀完一列(row)就轉成StreamedSheetRow交給consumer
+ * 
+ * @author Cyndi
+ *
+ */
+class SheetRowsSaxHandler extends DefaultHandler {
+
+	private int cellIndex;
+
+	private String cellStyle;
+
+	private String cellType;
+
+	private final Consumer<SheetRow> consumer;
+
+	private boolean inPhonetic;
+
+	private boolean inValue;
+
+	private final List<Double> numbers = new ArrayList<>();
+
+	private int rowNum = -1;
+
+	private final ReadOnlySharedStringsTable sharedStrings;
+
+	private final StylesTable styles;
+
+	private final StringBuilder text = new StringBuilder();
+
+	private final List<CellType> types = new ArrayList<>();
+
+	private final List<String> values = new ArrayList<>();
+
+	SheetRowsSaxHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, Consumer<SheetRow> consumer) {
+		this.sharedStrings = sharedStrings;
+		this.styles = styles;
+		this.consumer = consumer;
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		if (inValue && !inPhonetic) {
+			text.append(ch, start, length);
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) {
+
+		switch (localName) {
+		case "v":
+		case "t":
+			inValue = false;
+			break;
+		case "rPh":
+			inPhonetic = false;
+			break;
+		case "c":
+			endCell();
+			break;
+		case "row":
+			endRow();
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes attributes) {
+
+		switch (localName) {
+		case "row":
+			String r = attributes.getValue("r");
+			rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+			cellIndex = -1;
+			types.clear();
+			values.clear();
+			numbers.clear();
+			break;
+		case "c":
+			String ref = attributes.getValue("r");
+			cellIndex = ref == null ? cellIndex + 1 : new CellReference(ref).getCol();
+			cellType = attributes.getValue("t");
+			cellStyle = attributes.getValue("s");
+			text.setLength(0);
+			break;
+		case "v":
+		case "t":
+			inValue = true;
+			break;
+		case "rPh":
+			inPhonetic = true;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * 依儲存格型別(t)轉換值，共用字串(s)由SharedStrings取出，數值依儲存格格式轉為顯示的字串
+	 */
+	private void endCell() {
+
+		String value = text.toString();
+		Double number = null;
+		CellType type;
+
+		// 公式欄位依存檔時的結果型別(t)處理，與一般欄位相同
+		if ("s".equals(cellType)) {
+			type = CellType.STRING;
+			value = value.isEmpty() ? "" : sharedStrings.getEntryAt(Integer.parseInt(value));
+		} else if ("inlineStr".equals(cellType) || "str".equals(cellType)) {
+			type = CellType.STRING;
+		} else if ("b".equals(cellType)) {
+			type = CellType.BOOLEAN;
+		} else if ("e".equals(cellType)) {
+			type = CellType.ERROR;
+		} else if (value.isEmpty()) {
+			type = CellType.BLANK;
+		} else {
+			type = CellType.NUMERIC;
+			number = Double.valueOf(value);
+			value = formatNumber(number);
+		}
+
+		while (types.size() < cellIndex) {
+			types.add(null);
+			values.add(null);
+			numbers.add(null);
+		}
+		types.add(type);
+		values.add(ExcelUtils.intern(value));
+		numbers.add(number);
+	}
+
+	private void endRow() {
+		consumer.accept(new StreamedSheetRow(rowNum, types.toArray(new CellType[types.size()]),
+				values.toArray(new String[values.size()]), numbers.toArray(new Double[numbers.size()])));
+	}
+
+	/**
+	 * 與DOM讀取相同，依儲存格樣式的資料格式轉換
+	 * 
+	 * @param number
+	 * @return
+	 */
+	private String formatNumber(double number) {
+
+		if (styles == null) {
+			return ExcelUtils.formatNumber(number, 0, null);
+		}
+
+		XSSFCellStyle style = cellStyle == null ? styles.getStyleAt(0) : styles.getStyleAt(Integer.parseInt(cellStyle));
+
+		if (style == null) {
+			return ExcelUtils.formatNumber(number, 0, null);
+		}
+
+		return ExcelUtils.formatNumber(number, style.getDataFormat(), style.getDataFormatString());
+	}
+}
@@ -0,0 +1,130 @@
+package generator.readers;
+
+import java.util.Optional;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * 串流(SAX)讀取時的一列，只保留欄位型別與原始值，不建立POI Cell物件
+ * 
+ * @author Cyndi
+ *
+ */
+public class StreamedSheetRow implements SheetRow {
+
+	private final Double[] numbers;
+
+	private final int rowNum;
+
+	private final CellType[] types;
+
+	private final String[] values;
+
+	/**
+	 * 
+	 * @param rowNum
+	 * @param types
+	 *            各欄位型別，null表示欄位不存在
+	 * @param values
+	 *            各欄位的值(字串已由SharedStrings轉換，數值已依格式轉為顯示的字串)
+	 * @param numbers
+	 *            數值欄位的原始值，其他欄位為null
+	 */
+	public StreamedSheetRow(int rowNum, CellType[] types, String[] values, Double[] numbers) {
+		this.rowNum = rowNum;
+		this.types = types;
+		this.values = values;
+		this.numbers = numbers;
+	}
+
+	@Override
+	public Optional<Object> getCellValue(int index) {
+		CellType type = getCellType(index);
+
+		if (type == null) {
+			return Optional.empty();
+		}
+
+		switch (type) {
+		case STRING:
+		case NUMERIC:
+			return Optional.of(values[index]);
+		case BOOLEAN:
+			return Optional.of(toBoolean(values[index]));
+		default:
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public Optional<Boolean> getCellValueToBoolean(int index) {
+		CellType type = getCellType(index);
+
+		if (type == null) {
+			return Optional.empty();
+		}
+
+		switch (type) {
+		case STRING:
+			return Optional.of(Boolean.valueOf(values[index]));
+		case BOOLEAN:
+			return Optional.of(toBoolean(values[index]));
+		default:
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public Optional<Integer> getCellValueToInteger(int index) {
+		CellType type = getCellType(index);
+
+		if (type == null) {
+			return Optional.empty();
+		}
+
+		switch (type) {
+		case STRING:
+			return Optional.of(Integer.valueOf(values[index]));
+		case NUMERIC:
+			return Optional.of(numbers[index].intValue());
+		default:
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public int getLastCellNum() {
+		return types.length == 0 ? -1 : types.length;
+	}
+
+	@Override
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	@Override
+	public String getStringCellValue(int index) {
+		CellType type = getCellType(index);
+
+		if (type == null) {
+			return "";
+		}
+
+		if (type == CellType.BOOLEAN) {
+			return toBoolean(values[index]) ? "TRUE" : "FALSE";
+		}
+
+		return values[index] == null ? "" : values[index];
+	}
+
+	private CellType getCellType(int index) {
+		if (index < 0 || index >= types.length) {
+			return null;
+		}
+		return types[index];
+	}
+
+	private boolean toBoolean(String value) {
+		return "1".equals(value) || "true".equalsIgnoreCase(value);
+	}
+}
@@ -0,0 +1,271 @@
+package generator.readers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import generator.handlers.HandlerExecution;
+
+/**
+ * 以POI event model(XSSFReader + SAX)逐列讀取Excel，不建立整個XSSFWorkbook
+ * 
+ * @author Cyndi
+ *
+ */
+public class StreamingWorkbookReader implements Closeable {
+
+	/**
+	 * 第一列判斷不是可處理的Sheet時，中斷該Sheet的解析
+	 */
+	private static class SkipSheetException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		SkipSheetException() {
+			super(null, null, false, false);
+		}
+	}
+
+	private final OPCPackage pkg;
+
+	private final ReadOnlySharedStringsTable sharedStrings;
+
+	private int sheetCount;
+
+	/**
+	 * 儲存格樣式，數值格式轉換用；Excel沒有styles.xml時為null
+	 */
+	private final StylesTable styles;
+
+	private final XSSFReader xssfReader;
+
+	/**
+	 * 
+	 * @param excelFile檔案路徑
+	 * @throws IOException
+	 */
+	public StreamingWorkbookReader(String excelFile) throws IOException {
+		try {
+			pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+			xssfReader = new XSSFReader(pkg);
+			sharedStrings = new ReadOnlySharedStringsTable(pkg);
+			styles = xssfReader.getStylesTable();
+		} catch (OpenXML4JException | SAXException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		pkg.revert();
+	}
+
+	/**
+	 * 已讀取的Sheet數量(含略過的Sheet)
+	 * 
+	 * @return
+	 */
+	public int getSheetCount() {
+		return sheetCount;
+	}
+
+	/**
+	 * 依序讀取每個Sheet，由resolver依第一列判斷對應的Handler，並將每一列交給Handler
+	 * 
+	 * @param resolver
+	 *            回傳null表示略過該Sheet
+	 * @return 依Sheet順序排列的讀取結果
+	 * @throws IOException
+	 */
+	public List<ParsedSheet> read(Function<SheetRow, HandlerExecution<?>> resolver) throws IOException {
+
+		List<ParsedSheet> parsedSheets = new ArrayList<>();
+
+		read(resolver, parsedSheets::add);
+
+		return parsedSheets;
+	}
+
+	/**
+	 * 依序讀取每個Sheet，每讀完一個Sheet就交給consumer，不保留讀取結果
+	 * 
+	 * @param resolver
+	 *            回傳null表示略過該Sheet
+	 * @param consumer
+	 * @throws IOException
+	 */
+	public void read(Function<SheetRow, HandlerExecution<?>> resolver, Consumer<ParsedSheet> consumer)
+			throws IOException {
+
+		XSSFReader.SheetIterator sheets = getSheetIterator();
+
+		while (sheets.hasNext()) {
+			try (InputStream sheet = sheets.next()) {
+				sheetCount++;
+				ParsedSheet parsedSheet = readSheet(sheet, sheets.getSheetName(), resolver);
+				if (parsedSheet != null) {
+					consumer.accept(parsedSheet);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 以固定大小的Thread Pool平行解析各Sheet(每個Sheet一個Task)，回傳結果仍依Sheet順序排列
+	 * 
+	 * @param resolver
+	 *            會被多個Thread同時呼叫，需為thread-safe
+	 * @param parallelism
+	 *            Thread數量上限，小於等於1時依序讀取
+	 * @return 依Sheet順序排列的讀取結果
+	 * @throws IOException
+	 */
+	public List<ParsedSheet> read(Function<SheetRow, HandlerExecution<?>> resolver, int parallelism)
+			throws IOException {
+
+		if (parallelism <= 1) {
+			return read(resolver);
+		}
+
+		// 先依序開啟每個Sheet的InputStream，解析工作再交給Thread Pool
+		List<InputStream> sheets = new ArrayList<>();
+		List<String> sheetNames = new ArrayList<>();
+
+		XSSFReader.SheetIterator iterator = getSheetIterator();
+		while (iterator.hasNext()) {
+			sheets.add(iterator.next());
+			sheetNames.add(iterator.getSheetName());
+		}
+
+		sheetCount += sheets.size();
+
+		if (sheets.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, sheets.size()));
+
+		try {
+			List<Future<ParsedSheet>> futures = new ArrayList<>();
+
+			for (int i = 0; i < sheets.size(); i++) {
+				InputStream sheet = sheets.get(i);
+				String sheetName = sheetNames.get(i);
+
+				futures.add(executor.submit(() -> {
+					try (InputStream in = sheet) {
+						return readSheet(in, sheetName, resolver);
+					}
+				}));
+			}
+
+			List<ParsedSheet> parsedSheets = new ArrayList<>();
+
+			for (Future<ParsedSheet> future : futures) {
+				ParsedSheet parsedSheet = future.get();
+				if (parsedSheet != null) {
+					parsedSheets.add(parsedSheet);
+				}
+			}
+			return parsedSheets;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+			closeQuietly(sheets);
+		}
+	}
+
+	/**
+	 * 解析單一Sheet，第一列(row 0)不符合任何Sheet Type時立即停止解析
+	 * 
+	 * @param sheet
+	 * @param sheetName
+	 * @param resolver
+	 * @return 略過的Sheet回傳null
+	 * @throws IOException
+	 */
+	public ParsedSheet readSheet(InputStream sheet, String sheetName,
+			Function<SheetRow, HandlerExecution<?>> resolver) throws IOException {
+
+		List<HandlerExecution<?>> holder = new ArrayList<>(1);
+		SheetFingerprint fingerprint = new SheetFingerprint();
+
+		SheetRowsSaxHandler saxHandler = new SheetRowsSaxHandler(sharedStrings, styles, (row) -> {
+			if (holder.isEmpty()) {
+				HandlerExecution<?> execution = row.getRowNum() == 0 ? resolver.apply(row) : null;
+				if (execution == null) {
+					throw new SkipSheetException();
+				}
+				holder.add(execution);
+			}
+			holder.get(0).handleRow(row);
+			fingerprint.update(row);
+		});
+
+		try {
+			XMLReader xmlReader = SAXHelper.newXMLReader();
+			xmlReader.setContentHandler(saxHandler);
+			xmlReader.parse(new InputSource(sheet));
+		} catch (SkipSheetException e) {
+			return null;
+		} catch (SAXException | ParserConfigurationException e) {
+			throw new IOException(e);
+		}
+
+		if (holder.isEmpty()) {
+			return null;
+		}
+
+		HandlerExecution<?> execution = holder.get(0);
+		execution.setSheetName(sheetName);
+
+		return new ParsedSheet(sheetName, execution, fingerprint.getValue());
+	}
+
+	private XSSFReader.SheetIterator getSheetIterator() throws IOException {
+		try {
+			return (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+		} catch (OpenXML4JException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void closeQuietly(List<InputStream> streams) {
+		for (InputStream stream : streams) {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package generator.readers;
+
+import java.util.Optional;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+
+import generator.utils.ExcelUtils;
+
+/**
+ * 以POI Row(DOM)實作SheetRow
+ * 
+ * @author Cyndi
+ *
+ */
+public class XSSFSheetRow implements SheetRow {
+
+	private final FormulaEvaluator evaluator;
+
+	private final Row row;
+
+	public XSSFSheetRow(Row row) {
+		this(row, null);
+	}
+
+	/**
+	 * 
+	 * @param row
+	 * @param evaluator
+	 *            計算公式欄位，null時使用存檔時的結果
+	 */
+	public XSSFSheetRow(Row row, FormulaEvaluator evaluator) {
+		this.row = row;
+		this.evaluator = evaluator;
+	}
+
+	@Override
+	public Optional<Object> getCellValue(int index) {
+		Cell cell = row.getCell(index);
+		if (cell == null) {
+			return Optional.empty();
+		}
+		return ExcelUtils.getCellValue(cell, evaluator);
+	}
+
+	@Override
+	public Optional<Boolean> getCellValueToBoolean(int index) {
+		Cell cell = row.getCell(index);
+		if (cell == null) {
+			return Optional.empty();
+		}
+		return ExcelUtils.getCellValueToBoolean(cell, evaluator);
+	}
+
+	@Override
+	public Optional<Integer> getCellValueToInteger(int index) {
+		Cell cell = row.getCell(index);
+		if (cell == null) {
+			return Optional.empty();
+		}
+		return ExcelUtils.getCellValueToInteger(cell, evaluator);
+	}
+
+	@Override
+	public int getLastCellNum() {
+		return row.getLastCellNum();
+	}
+
+	@Override
+	public int getRowNum() {
+		return row.getRowNum();
+	}
+
+	@Override
+	public String getStringCellValue(int index) {
+		Cell cell = row.getCell(index);
+		if (cell == null) {
+			return "";
+		}
+		return ExcelUtils.getStringCellValue(cell, evaluator);
+	}
+}
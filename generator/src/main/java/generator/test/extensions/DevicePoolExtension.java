@@ -0,0 +1,103 @@
+package generator.test.extensions;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import generator.test.rules.DevicePoolRule;
+import generator.test.utils.AppiumDevice;
+import generator.test.utils.AppiumSessions;
+import generator.test.utils.DevicePool;
+
+/**
+ * 以static @RegisterExtension使用(JUnit 5)：Test Class開始前由DevicePool租借裝置，結束後歸還。租借的裝置依Test Class保存
+ * 
+ * @author Cyndi
+ *
+ */
+public class DevicePoolExtension implements BeforeAllCallback, AfterAllCallback {
+
+	private final AppiumDevice defaultDevice;
+
+	/**
+	 * 各Test Class租借的裝置
+	 */
+	private final Map<Class<?>, AppiumDevice> devices = new ConcurrentHashMap<>();
+
+	private DevicePool pool;
+
+	private long timeoutSec = DevicePoolRule.DEFAULT_TIMEOUT_SEC;
+
+	/**
+	 * 使用DevicePool.getShared
+	 * 
+	 * @param deviceName
+	 *            未設定裝置清單時使用的裝置
+	 * @param url
+	 */
+	public DevicePoolExtension(String deviceName, String url) {
+		try {
+			this.defaultDevice = new AppiumDevice(deviceName, new URL(url), 0, null);
+		} catch (MalformedURLException e) {
+			throw new IllegalArgumentException("invalid appium url: " + url, e);
+		}
+	}
+
+	public DevicePoolExtension(DevicePool pool) {
+		this.defaultDevice = null;
+		this.pool = pool;
+	}
+
+	@Override
+	public void afterAll(ExtensionContext context) {
+		Class<?> testClass = context.getRequiredTestClass();
+		AppiumDevice leased = devices.remove(testClass);
+		if (leased == null) {
+			return;
+		}
+
+		// 歸還前結束該Test Class在各Thread沿用的Session，以免下一個租借者的Session衝突
+		AppiumSessions.quit(testClass);
+		getPool().release(leased);
+	}
+
+	@Override
+	public void beforeAll(ExtensionContext context) throws Exception {
+		devices.put(context.getRequiredTestClass(), getPool().lease(timeoutSec, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * 
+	 * @param testClass
+	 * @return 該Test Class租借的裝置
+	 */
+	public AppiumDevice getDevice(Class<?> testClass) {
+		AppiumDevice leased = devices.get(testClass);
+		if (leased == null) {
+			throw new IllegalStateException(
+					"no device leased, DevicePoolExtension must be a static field with @RegisterExtension");
+		}
+		return leased;
+	}
+
+	public synchronized DevicePool getPool() {
+		if (pool == null) {
+			pool = DevicePool.getShared(defaultDevice);
+		}
+		return pool;
+	}
+
+	public long getTimeoutSec() {
+		return timeoutSec;
+	}
+
+	public void setTimeoutSec(long timeoutSec) {
+		this.timeoutSec = timeoutSec;
+	}
+}
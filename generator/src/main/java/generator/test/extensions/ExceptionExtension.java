@@ -0,0 +1,40 @@
+package generator.test.extensions;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.TestExecutionExceptionHandler;
+import org.openqa.selenium.WebDriver;
+
+import generator.test.utils.ScreenshotUtils;
+
+/**
+ * 截圖例外處理(JUnit 5)，driver只在執行中的Test Method所在Thread有效
+ * 
+ * @author Cyndi
+ *
+ */
+public class ExceptionExtension implements TestExecutionExceptionHandler, AfterEachCallback {
+
+	private final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+
+	@Override
+	public void afterEach(ExtensionContext context) {
+		driver.remove();
+	}
+
+	@Override
+	public void handleTestExecutionException(ExtensionContext context, Throwable throwable) throws Throwable {
+		ScreenshotUtils.takeScreenshot(driver.get(), context.getRequiredTestClass().getName(),
+				context.getRequiredTestMethod().getName());
+		throw throwable;
+	}
+
+	/**
+	 * 
+	 * @param driver
+	 *            需於@BeforeEach設定，Test Method結束後清除
+	 */
+	public void setDriver(WebDriver driver) {
+		this.driver.set(driver);
+	}
+}
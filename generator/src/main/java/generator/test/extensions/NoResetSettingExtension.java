@@ -0,0 +1,37 @@
+package generator.test.extensions;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import generator.test.annotation.NoResetSetting;
+
+/**
+ * NoResetSetting Extension(JUnit 5)，設定值只在執行中的Test Method所在Thread有效
+ * 
+ * @author Cyndi
+ *
+ */
+public class NoResetSettingExtension implements BeforeEachCallback, AfterEachCallback {
+
+	private final ThreadLocal<Boolean> noReset = new ThreadLocal<>();
+
+	@Override
+	public void afterEach(ExtensionContext context) {
+		noReset.remove();
+	}
+
+	@Override
+	public void beforeEach(ExtensionContext context) {
+		NoResetSetting noResetSetting = context.getRequiredTestMethod().getAnnotation(NoResetSetting.class);
+		noReset.set(noResetSetting == null ? null : noResetSetting.noReset());
+	}
+
+	/**
+	 * 
+	 * @return 無NoResetSetting annotation時為null
+	 */
+	public Boolean isNoReset() {
+		return noReset.get();
+	}
+}
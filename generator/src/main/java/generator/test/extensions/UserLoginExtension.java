@@ -0,0 +1,47 @@
+package generator.test.extensions;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import generator.test.annotation.TestingAccount;
+
+/**
+ * UserLogin Extension(JUnit 5)，帳號只在執行中的Test Method所在Thread有效
+ * 
+ * @author Cyndi
+ *
+ */
+public class UserLoginExtension implements BeforeEachCallback, AfterEachCallback {
+
+	/**
+	 * 無TestingAccount annotation時為null
+	 */
+	private final ThreadLocal<TestingAccount> account = new ThreadLocal<>();
+
+	@Override
+	public void afterEach(ExtensionContext context) {
+		account.remove();
+	}
+
+	@Override
+	public void beforeEach(ExtensionContext context) {
+		account.set(context.getRequiredTestMethod().getAnnotation(TestingAccount.class));
+	}
+
+	public Boolean getHasUser() {
+		return account.get() != null;
+	}
+
+	public String getPassword() {
+		return account.get() == null ? null : account.get().password();
+	}
+
+	public String getPid() {
+		return account.get() == null ? null : account.get().pid();
+	}
+
+	public String getUserName() {
+		return account.get() == null ? null : account.get().userName();
+	}
+}
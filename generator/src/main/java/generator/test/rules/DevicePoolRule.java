@@ -0,0 +1,113 @@
+package generator.test.rules;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import generator.test.utils.AppiumDevice;
+import generator.test.utils.AppiumSessions;
+import generator.test.utils.DevicePool;
+
+/**
+ * 以@ClassRule使用：Test Class開始前由DevicePool租借裝置，結束後歸還。租借的裝置依Test Class保存，
+ * 共用Base Class的static Rule可供同時執行的Test Class使用，Test Method在其他Thread執行時(ParallelComputer)也可取得
+ * 
+ * @author Cyndi
+ *
+ */
+public class DevicePoolRule implements TestRule {
+
+	/**
+	 * 等待裝置的秒數
+	 */
+	public static final long DEFAULT_TIMEOUT_SEC = 600;
+
+	private final AppiumDevice defaultDevice;
+
+	/**
+	 * 各Test Class租借的裝置
+	 */
+	private final Map<Class<?>, AppiumDevice> devices = new ConcurrentHashMap<>();
+
+	private DevicePool pool;
+
+	private long timeoutSec = DEFAULT_TIMEOUT_SEC;
+
+	/**
+	 * 使用DevicePool.getShared
+	 * 
+	 * @param deviceName
+	 *            未設定裝置清單時使用的裝置
+	 * @param url
+	 */
+	public DevicePoolRule(String deviceName, String url) {
+		try {
+			this.defaultDevice = new AppiumDevice(deviceName, new URL(url), 0, null);
+		} catch (MalformedURLException e) {
+			throw new IllegalArgumentException("invalid appium url: " + url, e);
+		}
+	}
+
+	public DevicePoolRule(DevicePool pool) {
+		this.defaultDevice = null;
+		this.pool = pool;
+	}
+
+	@Override
+	public Statement apply(Statement base, Description description) {
+		return new Statement() {
+
+			@Override
+			public void evaluate() throws Throwable {
+
+				Class<?> testClass = description.getTestClass();
+				DevicePool devicePool = getPool();
+				AppiumDevice leased = devicePool.lease(timeoutSec, TimeUnit.SECONDS);
+				devices.put(testClass, leased);
+
+				try {
+					base.evaluate();
+				} finally {
+					// 歸還前結束該Test Class在各Thread沿用的Session，以免下一個租借者的Session衝突
+					AppiumSessions.quit(testClass);
+					devices.remove(testClass);
+					devicePool.release(leased);
+				}
+			}
+		};
+	}
+
+	/**
+	 * 
+	 * @param testClass
+	 * @return 該Test Class租借的裝置
+	 */
+	public AppiumDevice getDevice(Class<?> testClass) {
+		AppiumDevice leased = devices.get(testClass);
+		if (leased == null) {
+			throw new IllegalStateException("no device leased, DevicePoolRule must be used as @ClassRule");
+		}
+		return leased;
+	}
+
+	public synchronized DevicePool getPool() {
+		if (pool == null) {
+			pool = DevicePool.getShared(defaultDevice);
+		}
+		return pool;
+	}
+
+	public long getTimeoutSec() {
+		return timeoutSec;
+	}
+
+	public void setTimeoutSec(long timeoutSec) {
+		this.timeoutSec = timeoutSec;
+	}
+}
@@ -1,27 +1,14 @@
 package generator.test.rules;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.text.DateFormat;
-import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
 
-import io.appium.java_client.MobileElement;
-import io.appium.java_client.ios.IOSDriver;
+import generator.test.utils.ScreenshotUtils;
 
 /**
- * 截圖例外處理
+ * 截圖例外處理，driver只在執行中的Test Method所在Thread有效，可供平行執行的Test共用
  * 
  * @author Cyndi
  *
@@ -45,52 +32,15 @@ public class ExceptionRule implements TestRule {
 			try {
 				base.evaluate();
 			} catch (Throwable e) {
-
-				if (driver != null) {
-					try {
-						// 拍照語法
-						File srcFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-
-						// com.esun.automation.iphone8.ios11_2.demoCommonUtils.InstructionManualTest
-						// 取最後一個符號之前＝>com.esun.automation.iphone8.ios11_2.demoCommonUtils
-						String packageName = StringUtils.substringBeforeLast(description.getClassName(), ".");
-
-						// com.esun.automation.iphone8.ios11_2.demoCommonUtils
-						// 取最後一個符號之後=>demoCommonUtils
-						packageName = StringUtils.substringAfterLast(packageName, ".");
-
-						// com.esun.automation.iphone8.ios11_2.demoCommonUtils.InstructionManualTest
-						// 取最後一個符號之 後＝>InstructionManualTest
-						String className = StringUtils.substringAfterLast(description.getClassName(), ".");
-
-						// create folder
-						Path path = Paths.get("img" + File.separator + packageName);
-
-						if (!Files.exists(path)) {
-							Files.createDirectories(path);
-						}
-
-						String methodName = description.getMethodName();
-
-						DateFormat df = new SimpleDateFormat("MMddHHmm");
-						Date now = new Date();
-						String dateString = df.format(now);
-
-						String fileName = MessageFormat.format("{0}-{1}-{2}.png", className, methodName, dateString);
-
-						FileUtils.copyFile(srcFile, new File(path + File.separator + fileName));
-
-					} catch (Exception ex) {
-						System.out.println(ex);
-						System.out.println("TakesScreenshot failed");
-					}
-				}
+				ScreenshotUtils.takeScreenshot(driver.get(), description.getClassName(), description.getMethodName());
 				throw e;
+			} finally {
+				driver.remove();
 			}
 		}
 	}
 
-	private IOSDriver<MobileElement> driver;
+	private final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
 
 	public ExceptionRule() {
 	}
@@ -101,7 +51,12 @@ public class ExceptionRule implements TestRule {
 		return new BusinessExceptionStatement(base, description);
 	}
 
-	public void setDriver(IOSDriver<MobileElement> driver) {
-		this.driver = driver;
+	/**
+	 * 
+	 * @param driver
+	 *            需於Rule執行中(ex: setUp)設定，Test Method結束後清除
+	 */
+	public void setDriver(WebDriver driver) {
+		this.driver.set(driver);
 	}
 }
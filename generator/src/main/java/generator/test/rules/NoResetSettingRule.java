@@ -7,26 +7,40 @@ import org.junit.runners.model.Statement;
 import generator.test.annotation.NoResetSetting;
 
 /**
- * NoResetSettingRule TestRule
+ * NoResetSetting TestRule，設定值只在執行中的Test Method所在Thread有效，可供平行執行的Test共用
  * 
  * @author Cyndi
  *
  */
 public class NoResetSettingRule implements TestRule {
 
-	private Boolean noReset;
+	private final ThreadLocal<Boolean> noReset = new ThreadLocal<>();
 
 	@Override
 	public Statement apply(Statement base, Description description) {
 
 		NoResetSetting noResetSetting = description.getAnnotation(NoResetSetting.class);
-		if (noResetSetting != null) {
-			noReset = noResetSetting.noReset();
-		}
-		return base;
+		Boolean value = noResetSetting == null ? null : noResetSetting.noReset();
+
+		return new Statement() {
+
+			@Override
+			public void evaluate() throws Throwable {
+				noReset.set(value);
+				try {
+					base.evaluate();
+				} finally {
+					noReset.remove();
+				}
+			}
+		};
 	}
 
+	/**
+	 * 
+	 * @return 無NoResetSetting annotation時為null
+	 */
 	public Boolean isNoReset() {
-		return noReset;
+		return noReset.get();
 	}
 }
@@ -7,64 +7,87 @@ import org.junit.runners.model.Statement;
 import generator.test.annotation.TestingAccount;
 
 /**
- * UserLogin TestRule
+ * UserLogin TestRule，帳號只在執行中的Test Method所在Thread有效，可供平行執行的Test共用
  * 
  * @author Cyndi
  *
  */
 public class UserLoginTestRule implements TestRule {
 
-	private Boolean hasUser;
+	/**
+	 * 單一Test Method的帳號
+	 */
+	private static class Account {
 
-	private String password;
-	private String pid;
-	private String userName;
+		private Boolean hasUser;
+
+		private String password;
+		private String pid;
+		private String userName;
+	}
+
+	private final ThreadLocal<Account> account = ThreadLocal.withInitial(Account::new);
 
 	@Override
 	public Statement apply(Statement base, Description description) {
 
 		TestingAccount testingAccount = description.getAnnotation(TestingAccount.class);
-		if (testingAccount != null) {
-			userName = testingAccount.userName();
-			pid = testingAccount.pid();
-			password = testingAccount.password();
-			hasUser = true;
-		} else {
-			hasUser = false;
-		}
-		return base;
+
+		return new Statement() {
+
+			@Override
+			public void evaluate() throws Throwable {
+
+				Account current = new Account();
+				if (testingAccount != null) {
+					current.userName = testingAccount.userName();
+					current.pid = testingAccount.pid();
+					current.password = testingAccount.password();
+					current.hasUser = true;
+				} else {
+					current.hasUser = false;
+				}
+
+				account.set(current);
+				try {
+					base.evaluate();
+				} finally {
+					account.remove();
+				}
+			}
+		};
 	}
 
 	public Boolean getHasUser() {
-		return hasUser;
+		return account.get().hasUser;
 	}
 
 	public String getPassword() {
-		return password;
+		return account.get().password;
 	}
 
 	public String getPid() {
-		return pid;
+		return account.get().pid;
 	}
 
 	public String getUserName() {
-		return userName;
+		return account.get().userName;
 	}
 
 	public void setHasUser(Boolean hasUser) {
-		this.hasUser = hasUser;
+		account.get().hasUser = hasUser;
 	}
 
 	public void setPassword(String password) {
-		this.password = password;
+		account.get().password = password;
 	}
 
 	public void setPid(String pid) {
-		this.pid = pid;
+		account.get().pid = pid;
 	}
 
 	public void setUserName(String userName) {
-		this.userName = userName;
+		account.get().userName = userName;
 	}
 
 }
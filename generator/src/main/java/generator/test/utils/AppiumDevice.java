@@ -0,0 +1,77 @@
+package generator.test.utils;
+
+import java.net.URL;
+
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import io.appium.java_client.remote.MobileCapabilityType;
+
+/**
+ * DevicePool租借的裝置：裝置名稱、Appium URL及WebDriverAgent Port
+ * 
+ * @author Cyndi
+ *
+ */
+public class AppiumDevice {
+
+	private static final String WDA_LOCAL_PORT = "wdaLocalPort";
+
+	private final String name;
+
+	/**
+	 * 同名模擬器以udid區分，null時不指定
+	 */
+	private final String udid;
+
+	private final URL url;
+
+	/**
+	 * 同一台Mac同時執行多個模擬器時各自的WebDriverAgent Port，0時不指定
+	 */
+	private final int wdaLocalPort;
+
+	public AppiumDevice(String name, URL url, int wdaLocalPort, String udid) {
+		this.name = name;
+		this.url = url;
+		this.wdaLocalPort = wdaLocalPort;
+		this.udid = udid;
+	}
+
+	/**
+	 * 以裝置設定覆蓋Capabilities
+	 * 
+	 * @param capabilities
+	 */
+	public void applyTo(DesiredCapabilities capabilities) {
+		if (name != null) {
+			capabilities.setCapability(MobileCapabilityType.DEVICE_NAME, name);
+		}
+		if (udid != null) {
+			capabilities.setCapability(MobileCapabilityType.UDID, udid);
+		}
+		if (wdaLocalPort > 0) {
+			capabilities.setCapability(WDA_LOCAL_PORT, wdaLocalPort);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getUdid() {
+		return udid;
+	}
+
+	public URL getUrl() {
+		return url;
+	}
+
+	public int getWdaLocalPort() {
+		return wdaLocalPort;
+	}
+
+	@Override
+	public String toString() {
+		return name + "@" + url + (wdaLocalPort > 0 ? "#" + wdaLocalPort : "");
+	}
+}
@@ -0,0 +1,144 @@
+package generator.test.utils;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import io.appium.java_client.MobileElement;
+import io.appium.java_client.ios.IOSDriver;
+
+/**
+ * 重複使用Appium Session：同一Thread內Appium URL與Capabilities(noReset除外)相同時沿用driver，只重新啟動App；
+ * 不同時結束舊的Session再建立。Session記錄最後使用的Test Class，Test Method在多個Thread執行時可依Test Class一併結束。
+ * 未結束的Session於JVM結束時quit
+ * 
+ * @author Cyndi
+ *
+ */
+public class AppiumSessions {
+
+	private static class Session {
+
+		private final Map<String, Object> capabilities;
+
+		private final IOSDriver<MobileElement> driver;
+
+		/**
+		 * 最後使用此Session的Test Class，由其他Thread結束Session時讀取
+		 */
+		private volatile Class<?> testClass;
+
+		/**
+		 * 以字串比對，URL.equals會解析主機名稱的IP
+		 */
+		private final String url;
+
+		Session(Class<?> testClass, URL url, Map<String, Object> capabilities, IOSDriver<MobileElement> driver) {
+			this.testClass = testClass;
+			this.url = url.toExternalForm();
+			this.capabilities = capabilities;
+			this.driver = driver;
+		}
+	}
+
+	private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+	private static final String NO_RESET = "noReset";
+
+	/**
+	 * 所有Thread尚未結束的Session，由其他Thread結束的Session會從此移除
+	 */
+	private static final Set<Session> OPEN = ConcurrentHashMap.newKeySet();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(AppiumSessions::quitAll));
+	}
+
+	/**
+	 * 沿用Session時，noReset為true只重新啟動App(保留App資料)，否則重設App
+	 * 
+	 * @param testClass
+	 *            使用Session的Test Class，見quit(Class)
+	 * @param url
+	 * @param capabilities
+	 * @return
+	 */
+	public static IOSDriver<MobileElement> acquire(Class<?> testClass, URL url, DesiredCapabilities capabilities) {
+
+		Map<String, Object> required = new HashMap<>(capabilities.asMap());
+		boolean noReset = Boolean.parseBoolean(String.valueOf(required.remove(NO_RESET)));
+
+		Session session = CURRENT.get();
+		if (session != null && OPEN.contains(session) && session.url.equals(url.toExternalForm())
+				&& session.capabilities.equals(required)) {
+			session.testClass = testClass;
+			if (noReset) {
+				session.driver.closeApp();
+				session.driver.launchApp();
+			} else {
+				session.driver.resetApp();
+			}
+			return session.driver;
+		}
+
+		quit();
+
+		IOSDriver<MobileElement> driver = new IOSDriver<MobileElement>(url, capabilities);
+		session = new Session(testClass, url, required, driver);
+		CURRENT.set(session);
+		OPEN.add(session);
+		return driver;
+	}
+
+	/**
+	 * 結束目前Thread的Session
+	 */
+	public static void quit() {
+		Session session = CURRENT.get();
+		if (session == null) {
+			return;
+		}
+
+		CURRENT.remove();
+		quit(session);
+	}
+
+	/**
+	 * 結束該Test Class在所有Thread使用中的Session，Test Class結束或歸還裝置時呼叫
+	 * 
+	 * @param testClass
+	 */
+	public static void quit(Class<?> testClass) {
+		for (Session session : OPEN) {
+			if (session.testClass == testClass) {
+				quit(session);
+			}
+		}
+	}
+
+	/**
+	 * 只由移除成功的Thread結束，避免重複quit
+	 * 
+	 * @param session
+	 */
+	private static void quit(Session session) {
+		if (!OPEN.remove(session)) {
+			return;
+		}
+
+		try {
+			session.driver.quit();
+		} catch (WebDriverException e) {
+			// Session已逾時或Appium已停止
+		}
+	}
+
+	private static void quitAll() {
+		OPEN.forEach(AppiumSessions::quit);
+	}
+}
@@ -5,17 +5,39 @@ import java.util.concurrent.TimeUnit;
 import org.openqa.selenium.By;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 /**
- * Utils
+ * Utils，不保存狀態；暫時調整implicitlyWait時以driver同步，同一driver同時等待時不互相還原設定
  * 
  * @author Cyndi
  *
  */
 public class CommandUtils {
 
+	/**
+	 * waitFor的條件：可點擊
+	 */
+	public static final String CLICKABLE = "clickable";
+
+	/**
+	 * waitFor的條件：存在於畫面結構中
+	 */
+	public static final String PRESENT = "present";
+
+	/**
+	 * waitFor的條件：可見
+	 */
+	public static final String VISIBLE = "visible";
+
+	/**
+	 * waitFor檢查條件的間隔
+	 */
+	private static final long POLL_MILLIS = 250;
+
 	/**
 	 * CheckAlert Utils,在Waiting秒數內有找到元素會按click；沒找到不會throw Exception。
 	 * 
@@ -26,14 +48,53 @@ public class CommandUtils {
 	 */
 	public static void presenceClick(WebDriver driver, long waitSeconds, String name, long implicitlyWaitSeconds) {
 
-		driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
-		try {
-			(new WebDriverWait(driver, waitSeconds)).until(ExpectedConditions.presenceOfElementLocated(By.name(name)))
-					.click();
-		} catch (TimeoutException ex) {
+		synchronized (driver) {
+			driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
+			try {
+				(new WebDriverWait(driver, waitSeconds))
+						.until(ExpectedConditions.presenceOfElementLocated(By.name(name))).click();
+			} catch (TimeoutException ex) {
+
+			} finally {
+				driver.manage().timeouts().implicitlyWait(implicitlyWaitSeconds, TimeUnit.SECONDS);
+			}
+		}
+	}
+
+	/**
+	 * 取代固定的Waiting：元素符合條件即繼續，最多等待waitSeconds秒；逾時不throw Exception，由下一個Step處理
+	 * 
+	 * @param driver
+	 * @param waitSeconds
+	 * @param by
+	 * @param condition
+	 *            CLICKABLE、VISIBLE或PRESENT
+	 * @param implicitlyWaitSeconds
+	 */
+	public static void waitFor(WebDriver driver, long waitSeconds, By by, String condition,
+			long implicitlyWaitSeconds) {
+
+		synchronized (driver) {
+			driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
+			try {
+				(new WebDriverWait(driver, waitSeconds)).pollingEvery(POLL_MILLIS, TimeUnit.MILLISECONDS)
+						.until(getCondition(by, condition));
+			} catch (TimeoutException ex) {
+
+			} finally {
+				driver.manage().timeouts().implicitlyWait(implicitlyWaitSeconds, TimeUnit.SECONDS);
+			}
+		}
+	}
 
-		} finally {
-			driver.manage().timeouts().implicitlyWait(implicitlyWaitSeconds, TimeUnit.SECONDS);
+	private static ExpectedCondition<WebElement> getCondition(By by, String condition) {
+		if (CLICKABLE.equals(condition)) {
+			return ExpectedConditions.elementToBeClickable(by);
+		} else if (VISIBLE.equals(condition)) {
+			return ExpectedConditions.visibilityOfElementLocated(by);
+		} else if (PRESENT.equals(condition)) {
+			return ExpectedConditions.presenceOfElementLocated(by);
 		}
+		throw new IllegalArgumentException("Unknown wait condition: " + condition);
 	}
 }
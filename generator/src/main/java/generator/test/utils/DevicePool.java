@@ -0,0 +1,175 @@
+package generator.test.utils;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 同時執行的Test Class各自租借一台裝置，結束後歸還。租借時以Appium的/status確認裝置可用，無回應的裝置放回並改用其他裝置
+ * 
+ * @author Cyndi
+ *
+ */
+public class DevicePool {
+
+	/**
+	 * 裝置清單的System Property，ex: -Dappium.devices="iPhone 8|http://127.0.0.1:4723/wd/hub|8100;iPhone
+	 * 8|http://127.0.0.1:4724/wd/hub|8101|udid"
+	 */
+	public static final String DEVICES_PROPERTY = "appium.devices";
+
+	/**
+	 * 所有裝置都無法使用時，再次檢查的間隔
+	 */
+	private static final long RETRY_MILLIS = 500;
+
+	private static DevicePool shared;
+
+	private static final int STATUS_TIMEOUT_MILLIS = 2000;
+
+	private final BlockingQueue<AppiumDevice> available;
+
+	private final List<AppiumDevice> devices;
+
+	public DevicePool(List<AppiumDevice> devices) {
+		if (devices.isEmpty()) {
+			throw new IllegalArgumentException("device pool is empty");
+		}
+		this.devices = Collections.unmodifiableList(new ArrayList<>(devices));
+		this.available = new LinkedBlockingQueue<>(devices);
+	}
+
+	/**
+	 * JVM內共用的裝置池，第一次呼叫時建立：有設定DEVICES_PROPERTY時使用設定的裝置，否則只有defaultDevice
+	 * 
+	 * @param defaultDevice
+	 *            Script設定的裝置
+	 * @return
+	 */
+	public static synchronized DevicePool getShared(AppiumDevice defaultDevice) {
+		if (shared == null) {
+			String spec = System.getProperty(DEVICES_PROPERTY);
+			shared = new DevicePool(
+					StringUtils.isBlank(spec) ? Collections.singletonList(defaultDevice) : parse(spec));
+		}
+		return shared;
+	}
+
+	/**
+	 * 
+	 * @param spec
+	 *            以;分隔的裝置，各裝置為 名稱|Appium URL|WDA Port[|udid]
+	 * @return
+	 */
+	public static List<AppiumDevice> parse(String spec) {
+		List<AppiumDevice> devices = new ArrayList<>();
+		for (String device : StringUtils.split(spec, ';')) {
+			String[] fields = StringUtils.splitPreserveAllTokens(device.trim(), '|');
+			if (fields.length < 3 || fields.length > 4) {
+				throw new IllegalArgumentException("device must be name|url|wdaLocalPort[|udid]: " + device);
+			}
+			try {
+				devices.add(new AppiumDevice(fields[0], new URL(fields[1]), Integer.parseInt(fields[2]),
+						fields.length == 4 ? StringUtils.trimToNull(fields[3]) : null));
+			} catch (MalformedURLException | NumberFormatException e) {
+				throw new IllegalArgumentException("invalid device: " + device, e);
+			}
+		}
+		return devices;
+	}
+
+	public int getAvailableCount() {
+		return available.size();
+	}
+
+	public List<AppiumDevice> getDevices() {
+		return devices;
+	}
+
+	/**
+	 * 租借可用的裝置，沒有空閒的裝置時等待歸還
+	 * 
+	 * @param timeout
+	 * @param unit
+	 * @return
+	 * @throws InterruptedException
+	 * @throws TimeoutException
+	 *             逾時仍沒有可用的裝置
+	 */
+	public AppiumDevice lease(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int unreachable = 0;
+
+		while (true) {
+			AppiumDevice device = available.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			if (device == null) {
+				throw new TimeoutException(MessageFormat.format("no device available in {0} {1}", timeout, unit));
+			}
+
+			if (isReachable(device)) {
+				return device;
+			}
+
+			available.offer(device);
+
+			// 空閒的裝置都無回應時，等待後再檢查
+			if (++unreachable >= available.size()) {
+				unreachable = 0;
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					throw new TimeoutException("no reachable device: " + available);
+				}
+				Thread.sleep(Math.min(RETRY_MILLIS, remaining));
+			}
+		}
+	}
+
+	/**
+	 * 歸還租借的裝置
+	 * 
+	 * @param device
+	 */
+	public void release(AppiumDevice device) {
+		if (!devices.contains(device)) {
+			throw new IllegalArgumentException("device not in pool: " + device);
+		}
+		if (available.contains(device)) {
+			throw new IllegalStateException("device not leased: " + device);
+		}
+		available.offer(device);
+	}
+
+	/**
+	 * 
+	 * @param device
+	 * @return Appium的/status回應200
+	 */
+	private boolean isReachable(AppiumDevice device) {
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) new URL(StringUtils.removeEnd(device.getUrl().toString(), "/") + "/status")
+					.openConnection();
+			connection.setConnectTimeout(STATUS_TIMEOUT_MILLIS);
+			connection.setReadTimeout(STATUS_TIMEOUT_MILLIS);
+			return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			if (connection != null) {
+				connection.disconnect();
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package generator.test.utils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * 測試失敗時的截圖，JUnit 4 Rule與JUnit 5 Extension共用
+ * 
+ * @author Cyndi
+ *
+ */
+public class ScreenshotUtils {
+
+	/**
+	 * 截圖存至img/{Package最後一段}/{Class}-{Method}-{MMddHHmm}.png，失敗時只輸出訊息
+	 * 
+	 * @param driver
+	 *            不支援截圖時略過
+	 * @param testClassName
+	 *            完整Class Name
+	 * @param methodName
+	 */
+	public static void takeScreenshot(WebDriver driver, String testClassName, String methodName) {
+
+		if (!(driver instanceof TakesScreenshot)) {
+			return;
+		}
+
+		try {
+			// 拍照語法
+			File srcFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+
+			// com.esun.automation.iphone8.ios11_2.demoCommonUtils.InstructionManualTest
+			// 取最後一個符號之前＝>com.esun.automation.iphone8.ios11_2.demoCommonUtils
+			String packageName = StringUtils.substringBeforeLast(testClassName, ".");
+
+			// com.esun.automation.iphone8.ios11_2.demoCommonUtils
+			// 取最後一個符號之後=>demoCommonUtils
+			packageName = StringUtils.substringAfterLast(packageName, ".");
+
+			// com.esun.automation.iphone8.ios11_2.demoCommonUtils.InstructionManualTest
+			// 取最後一個符號之 後＝>InstructionManualTest
+			String className = StringUtils.substringAfterLast(testClassName, ".");
+
+			// create folder
+			Path path = Paths.get("img" + File.separator + packageName);
+
+			if (!Files.exists(path)) {
+				Files.createDirectories(path);
+			}
+
+			DateFormat df = new SimpleDateFormat("MMddHHmm");
+			Date now = new Date();
+			String dateString = df.format(now);
+
+			String fileName = MessageFormat.format("{0}-{1}-{2}.png", className, methodName, dateString);
+
+			FileUtils.copyFile(srcFile, new File(path + File.separator + fileName));
+
+		} catch (Exception ex) {
+			System.out.println(ex);
+			System.out.println("TakesScreenshot failed");
+		}
+	}
+}
@@ -3,11 +3,64 @@ package generator.utils;
 import java.util.Optional;
 
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.util.NumberToTextConverter;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * 讀取儲存格的值，不修改儲存格(不呼叫setCellType)；數值依儲存格格式轉為Excel上顯示的字串，
+ * 通用格式(General)保留所有位數，避免電話、帳號等長數字被轉為科學記號。
+ * 公式欄位以FormulaEvaluator計算，未提供或無法計算時使用Excel存檔時的結果
+ *
+ * @author Cyndi
+ *
+ */
 public class ExcelUtils {
 
+	/**
+	 * DataFormatter非thread-safe且內部會快取已解析的格式，每個Thread共用一個
+	 */
+	private static final ThreadLocal<DataFormatter> FORMATTER = ThreadLocal.withInitial(DataFormatter::new);
+
+	/**
+	 * 元件名稱、Command Type等字串在各Sheet大量重複，讀取後共用同一個String
+	 */
+	private static final Interner<String> STRING_POOL = Interners.newWeakInterner();
+
+	/**
+	 * 將數值依格式轉為字串，串流讀取時使用(無Cell物件)。
+	 * 通用格式不使用DataFormatter，其在1E11以上只保留6位有效數字
+	 *
+	 * @param value
+	 * @param formatIndex
+	 * @param formatString
+	 * @return
+	 */
+	public static String formatNumber(double value, int formatIndex, String formatString) {
+		if (formatString == null || formatIndex == 0 || "General".equalsIgnoreCase(formatString)) {
+			return intern(NumberToTextConverter.toText(value));
+		}
+		return intern(FORMATTER.get().formatRawCellContents(value, formatIndex, formatString));
+	}
+
 	public static Optional<Object> getCellValue(Cell cell) {
+		return getCellValue(cell, null);
+	}
+
+	/**
+	 * 
+	 * @param cell
+	 * @param evaluator
+	 *            同一個Excel共用，計算結果會被快取；null時公式欄位使用存檔時的結果
+	 * @return
+	 */
+	public static Optional<Object> getCellValue(Cell cell, FormulaEvaluator evaluator) {
 
 		CellType cellType = cell.getCellTypeEnum();
 
@@ -15,14 +68,16 @@ public class ExcelUtils {
 
 		switch (cellType) {
 		case STRING:
-			value = cell.getStringCellValue();
+			value = intern(cell.getStringCellValue());
 			break;
 		case NUMERIC:
-			cell.setCellType(CellType.STRING);
-			value = cell.getStringCellValue();
+			value = formatNumber(cell);
 			break;
 		case BOOLEAN:
-			value = cell.getBooleanCellValue();
+			value = Boolean.valueOf(cell.getBooleanCellValue());
+			break;
+		case FORMULA:
+			value = getFormulaValue(cell, evaluator);
 			break;
 		default:
 			break;
@@ -31,6 +86,10 @@ public class ExcelUtils {
 	}
 
 	public static Optional<Boolean> getCellValueToBoolean(Cell cell) {
+		return getCellValueToBoolean(cell, null);
+	}
+
+	public static Optional<Boolean> getCellValueToBoolean(Cell cell, FormulaEvaluator evaluator) {
 
 		CellType cellType = cell.getCellTypeEnum();
 
@@ -43,6 +102,14 @@ public class ExcelUtils {
 		case BOOLEAN:
 			value = cell.getBooleanCellValue();
 			break;
+		case FORMULA:
+			CellValue result = evaluate(cell, evaluator);
+			if (result != null && result.getCellTypeEnum() == CellType.STRING) {
+				value = Boolean.valueOf(result.getStringValue());
+			} else if (result != null && result.getCellTypeEnum() == CellType.BOOLEAN) {
+				value = result.getBooleanValue();
+			}
+			break;
 		default:
 			break;
 		}
@@ -50,6 +117,10 @@ public class ExcelUtils {
 	}
 
 	public static Optional<Integer> getCellValueToInteger(Cell cell) {
+		return getCellValueToInteger(cell, null);
+	}
+
+	public static Optional<Integer> getCellValueToInteger(Cell cell, FormulaEvaluator evaluator) {
 
 		CellType cellType = cell.getCellTypeEnum();
 
@@ -62,9 +133,138 @@ public class ExcelUtils {
 		case NUMERIC:
 			value = ((Double) cell.getNumericCellValue()).intValue();
 			break;
+		case FORMULA:
+			CellValue result = evaluate(cell, evaluator);
+			if (result != null && result.getCellTypeEnum() == CellType.STRING) {
+				value = Integer.valueOf(result.getStringValue());
+			} else if (result != null && result.getCellTypeEnum() == CellType.NUMERIC) {
+				value = ((Double) result.getNumberValue()).intValue();
+			}
+			break;
 		default:
 			break;
 		}
 		return value == null ? Optional.empty() : Optional.of(value);
 	}
+
+	public static String getStringCellValue(Cell cell) {
+		return getStringCellValue(cell, null);
+	}
+
+	/**
+	 * 任何型別皆以字串讀取，數值依格式轉換，布林值為TRUE/FALSE
+	 *
+	 * @param cell
+	 * @param evaluator
+	 * @return 空白或無法轉換時回傳""
+	 */
+	public static String getStringCellValue(Cell cell, FormulaEvaluator evaluator) {
+
+		CellType cellType = cell.getCellTypeEnum();
+
+		switch (cellType) {
+		case STRING:
+			return intern(cell.getStringCellValue());
+		case NUMERIC:
+			return formatNumber(cell);
+		case BOOLEAN:
+			return cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+		case FORMULA:
+			Object value = getFormulaValue(cell, evaluator);
+			if (value instanceof Boolean) {
+				return (Boolean) value ? "TRUE" : "FALSE";
+			}
+			return value == null ? "" : (String) value;
+		default:
+			return "";
+		}
+	}
+
+	/**
+	 * 取得字串池中相同內容的String
+	 *
+	 * @param value
+	 * @return value為null時回傳null
+	 */
+	public static String intern(String value) {
+		return value == null ? null : STRING_POOL.intern(value);
+	}
+
+	/**
+	 * 以evaluator計算公式，無法計算(不支援的函式、外部參照等)時使用存檔時的結果
+	 * 
+	 * @param cell
+	 * @param evaluator
+	 * @return 結果為空白時回傳null
+	 */
+	private static CellValue evaluate(Cell cell, FormulaEvaluator evaluator) {
+
+		if (evaluator != null) {
+			try {
+				return evaluator.evaluate(cell);
+			} catch (RuntimeException e) {
+				// 使用存檔時的結果
+			}
+		}
+
+		switch (cell.getCachedFormulaResultTypeEnum()) {
+		case STRING:
+			return new CellValue(cell.getStringCellValue());
+		case NUMERIC:
+			return new CellValue(cell.getNumericCellValue());
+		case BOOLEAN:
+			return CellValue.valueOf(cell.getBooleanCellValue());
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * 數值儲存格依其格式轉為字串
+	 * 
+	 * @param cell
+	 * @return
+	 */
+	private static String formatNumber(Cell cell) {
+		return formatNumber(cell, cell.getNumericCellValue());
+	}
+
+	/**
+	 * 依儲存格格式轉換數值(公式結果)
+	 * 
+	 * @param cell
+	 * @param value
+	 * @return
+	 */
+	private static String formatNumber(Cell cell, double value) {
+		CellStyle style = cell.getCellStyle();
+		return formatNumber(value, style.getDataFormat(), style.getDataFormatString());
+	}
+
+	/**
+	 * 公式結果，數值依儲存格格式轉為字串
+	 * 
+	 * @param cell
+	 * @param evaluator
+	 * @return 結果為空白或錯誤時回傳null
+	 */
+	private static Object getFormulaValue(Cell cell, FormulaEvaluator evaluator) {
+
+		CellValue result = evaluate(cell, evaluator);
+
+		if (result == null) {
+			return null;
+		}
+
+		switch (result.getCellTypeEnum()) {
+		case STRING:
+			return intern(result.getStringValue());
+		case NUMERIC:
+			return formatNumber(cell, result.getNumberValue());
+		case BOOLEAN:
+			return Boolean.valueOf(result.getBooleanValue());
+		default:
+			return null;
+		}
+	}
 }
@@ -3,6 +3,8 @@ package models;
 import java.util.ArrayList;
 import java.util.List;
 
+import models.commands.CommandNode;
+
 /**
  * 各種appium指令
  * 
@@ -10,6 +12,11 @@ import java.util.List;
  *
  */
 public class Command {
+	/**
+	 * 讀取時解析的指令，無對應的CommandEmitter時為null
+	 */
+	private CommandNode node;
+
 	/**
 	 * Command 參數(ElementName、Action、Value)
 	 */
@@ -24,6 +31,10 @@ public class Command {
 		params.add(param);
 	}
 
+	public CommandNode getNode() {
+		return node;
+	}
+
 	public List<Object> getParams() {
 		return params;
 	}
@@ -32,6 +43,10 @@ public class Command {
 		return type;
 	}
 
+	public void setNode(CommandNode node) {
+		this.node = node;
+	}
+
 	public void setType(String type) {
 		this.type = type;
 	}
@@ -25,6 +25,11 @@ public class CommonUtilClass {
 	 */
 	private String packageName;
 
+	/**
+	 * 來源Sheet名稱
+	 */
+	private String sheetName;
+
 	public String getDesc() {
 		return desc;
 	}
@@ -41,6 +46,10 @@ public class CommonUtilClass {
 		return packageName;
 	}
 
+	public String getSheetName() {
+		return sheetName;
+	}
+
 	public void setDesc(String desc) {
 		this.desc = desc;
 	}
@@ -57,4 +66,8 @@ public class CommonUtilClass {
 		this.packageName = packageName;
 	}
 
+	public void setSheetName(String sheetName) {
+		this.sheetName = sheetName;
+	}
+
 }
@@ -10,6 +10,11 @@ public class Feature {
 
 	private List<Scenario> scenarios;
 
+	/**
+	 * 來源Sheet名稱
+	 */
+	private String sheetName;
+
 	public String getName() {
 		return name;
 	}
@@ -42,6 +47,14 @@ public class Feature {
 		this.packageName = packageName;
 	}
 
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	public void setSheetName(String sheetName) {
+		this.sheetName = sheetName;
+	}
+
 	@Override
 	public String toString() {
 		return "Feature [name=" + name + ", desc=" + desc + ", packageName=" + packageName + ", scenarios=" + scenarios
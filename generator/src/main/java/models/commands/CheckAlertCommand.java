@@ -0,0 +1,35 @@
+package models.commands;
+
+/**
+ * 出現Alert時點擊指定按鈕
+ * 
+ * @author Cyndi
+ *
+ */
+public final class CheckAlertCommand implements CommandNode {
+
+	public static final String KIND = "CheckAlert";
+
+	/**
+	 * 按鈕ElementName，無此參數時為null
+	 */
+	private final String element;
+
+	public CheckAlertCommand(String element) {
+		this.element = element;
+	}
+
+	public String getElement() {
+		return element;
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	@Override
+	public String toString() {
+		return "CheckAlertCommand [element=" + element + "]";
+	}
+}
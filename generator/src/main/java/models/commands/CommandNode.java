@@ -0,0 +1,17 @@
+package models.commands;
+
+/**
+ * 讀取時由Command Type與參數解析出的指令，產生Code時不再解析字串
+ * 
+ * @author Cyndi
+ *
+ */
+public interface CommandNode {
+
+	/**
+	 * Command種類，對應產生Code的CommandEmitter
+	 * 
+	 * @return
+	 */
+	public String getKind();
+}
@@ -0,0 +1,47 @@
+package models.commands;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 對同一元件連續執行的ElementCommand，只取得一次元件
+ * 
+ * @author Cyndi
+ *
+ */
+public final class ElementChainCommand implements CommandNode {
+
+	public static final String KIND = "ElementChain";
+
+	/**
+	 * 依執行順序，Locator與ElementName皆相同
+	 */
+	private final List<ElementCommand> commands;
+
+	public ElementChainCommand(List<ElementCommand> commands) {
+		this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+	}
+
+	public List<ElementCommand> getCommands() {
+		return commands;
+	}
+
+	public String getElement() {
+		return commands.get(0).getElement();
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	public String getLocator() {
+		return commands.get(0).getLocator();
+	}
+
+	@Override
+	public String toString() {
+		return "ElementChainCommand [commands=" + commands + "]";
+	}
+}
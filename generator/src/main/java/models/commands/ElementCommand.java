@@ -0,0 +1,66 @@
+package models.commands;
+
+/**
+ * ByName/ByXPath：對元件click、sendKeys或clear
+ * 
+ * @author Cyndi
+ *
+ */
+public final class ElementCommand implements CommandNode {
+
+	public static final String KIND = "Element";
+
+	/**
+	 * click、sendKeys、clear，無此參數時為null
+	 */
+	private final String action;
+
+	/**
+	 * ElementName，無此參數時為null
+	 */
+	private final String element;
+
+	/**
+	 * By的Method Name，ex: name、xpath
+	 */
+	private final String locator;
+
+	/**
+	 * sendKeys的值，無此參數時為null
+	 */
+	private final String value;
+
+	public ElementCommand(String locator, String element, String action, String value) {
+		this.locator = locator;
+		this.element = element;
+		this.action = action;
+		this.value = value;
+	}
+
+	public String getAction() {
+		return action;
+	}
+
+	public String getElement() {
+		return element;
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	public String getLocator() {
+		return locator;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return "ElementCommand [locator=" + locator + ", element=" + element + ", action=" + action + ", value="
+				+ value + "]";
+	}
+}
@@ -0,0 +1,66 @@
+package models.commands;
+
+/**
+ * 等待元件符合條件，取代固定秒數的Waiting
+ * 
+ * @author Cyndi
+ *
+ */
+public final class ExplicitWaitCommand implements CommandNode {
+
+	public static final String KIND = "ExplicitWait";
+
+	/**
+	 * clickable、visible、present
+	 */
+	private final String condition;
+
+	/**
+	 * ElementName
+	 */
+	private final String element;
+
+	/**
+	 * By的Method Name，ex: name、xpath
+	 */
+	private final String locator;
+
+	/**
+	 * 等待秒數上限
+	 */
+	private final int seconds;
+
+	public ExplicitWaitCommand(String locator, String element, String condition, int seconds) {
+		this.locator = locator;
+		this.element = element;
+		this.condition = condition;
+		this.seconds = seconds;
+	}
+
+	public String getCondition() {
+		return condition;
+	}
+
+	public String getElement() {
+		return element;
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	public String getLocator() {
+		return locator;
+	}
+
+	public int getSeconds() {
+		return seconds;
+	}
+
+	@Override
+	public String toString() {
+		return "ExplicitWaitCommand [locator=" + locator + ", element=" + element + ", condition=" + condition
+				+ ", seconds=" + seconds + "]";
+	}
+}
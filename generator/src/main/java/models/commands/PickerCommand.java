@@ -0,0 +1,35 @@
+package models.commands;
+
+/**
+ * 設定PickerWheel的值並點擊完成
+ * 
+ * @author Cyndi
+ *
+ */
+public final class PickerCommand implements CommandNode {
+
+	public static final String KIND = "Picker";
+
+	/**
+	 * 選取的值，無此參數時為null
+	 */
+	private final String value;
+
+	public PickerCommand(String value) {
+		this.value = value;
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return "PickerCommand [value=" + value + "]";
+	}
+}
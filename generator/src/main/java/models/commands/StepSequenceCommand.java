@@ -0,0 +1,47 @@
+package models.commands;
+
+/**
+ * 呼叫由重複Step抽出的共用Method
+ * 
+ * @author Cyndi
+ *
+ */
+public final class StepSequenceCommand implements CommandNode {
+
+	public static final String KIND = "StepSequence";
+
+	private final String className;
+
+	private final String methodName;
+
+	private final String packageName;
+
+	public StepSequenceCommand(String packageName, String className, String methodName) {
+		this.packageName = packageName;
+		this.className = className;
+		this.methodName = methodName;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	@Override
+	public String toString() {
+		return "StepSequenceCommand [packageName=" + packageName + ", className=" + className + ", methodName="
+				+ methodName + "]";
+	}
+}
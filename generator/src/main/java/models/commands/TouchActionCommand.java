@@ -0,0 +1,41 @@
+package models.commands;
+
+/**
+ * TouchAction_{distance}：向上滑動，distance以畫面高度的一半為單位
+ * 
+ * @author Cyndi
+ *
+ */
+public final class TouchActionCommand implements CommandNode {
+
+	public static final String KIND = "TouchAction";
+
+	private final double distance;
+
+	public TouchActionCommand(double distance) {
+		this.distance = distance;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	/**
+	 * 滑動次數，每次滑動0.5
+	 * 
+	 * @return
+	 */
+	public int getTimes() {
+		return new Double(distance / 0.5).intValue();
+	}
+
+	@Override
+	public String toString() {
+		return "TouchActionCommand [distance=" + distance + "]";
+	}
+}
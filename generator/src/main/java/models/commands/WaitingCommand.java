@@ -0,0 +1,49 @@
+package models.commands;
+
+/**
+ * Waiting_{n}s或Waiting加上自訂秒數
+ * 
+ * @author Cyndi
+ *
+ */
+public final class WaitingCommand implements CommandNode {
+
+	public static final String KIND = "Waiting";
+
+	/**
+	 * 固定等待，不改為等待下一個Step的元件
+	 */
+	private final boolean fixed;
+
+	/**
+	 * 等待秒數，未指定時為null
+	 */
+	private final Integer seconds;
+
+	public WaitingCommand(Integer seconds) {
+		this(seconds, false);
+	}
+
+	public WaitingCommand(Integer seconds, boolean fixed) {
+		this.seconds = seconds;
+		this.fixed = fixed;
+	}
+
+	@Override
+	public String getKind() {
+		return KIND;
+	}
+
+	public Integer getSeconds() {
+		return seconds;
+	}
+
+	public boolean isFixed() {
+		return fixed;
+	}
+
+	@Override
+	public String toString() {
+		return "WaitingCommand [seconds=" + seconds + ", fixed=" + fixed + "]";
+	}
+}
@@ -2,22 +2,42 @@ package ExcelReader;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.lang.model.element.Modifier;
 
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFFormulaEvaluator;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.MethodSpec.Builder;
 
 import generator.ExcelReader;
+import generator.mappers.ExcelSheetMapperRegistry;
+import generator.mappers.ScriptMapper;
+import models.Feature;
 
 public class ExcelReaderTest {
 
 	private String path = "data/exceltemplate.xlsx";
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void test() throws FileNotFoundException, IOException {
 		ExcelReader reader = new ExcelReader(path);
@@ -25,4 +45,146 @@ public class ExcelReaderTest {
 		reader.read();
 		reader.showData();
 	}
+
+	@Test
+	public void streaming() throws FileNotFoundException, IOException {
+		ExcelReader reader = new ExcelReader(path);
+		reader.read();
+
+		ExcelReader streamingReader = new ExcelReader(path, true);
+		streamingReader.read();
+		streamingReader.showData();
+
+		assertEquals(reader.getCount(), streamingReader.getCount());
+		assertEquals(reader.getData().keySet(), streamingReader.getData().keySet());
+	}
+
+	@Test
+	public void parallel() throws FileNotFoundException, IOException {
+		ExcelReader reader = new ExcelReader(path, true);
+		reader.read();
+
+		ExcelReader parallelReader = new ExcelReader(path, true);
+		parallelReader.setParallelism(4);
+		parallelReader.read();
+
+		List<Feature> features = (List<Feature>) reader.getData().get(ScriptMapper.TYPE);
+		List<Feature> parallelFeatures = (List<Feature>) parallelReader.getData().get(ScriptMapper.TYPE);
+
+		// 平行讀取後Feature順序需與依序讀取相同
+		assertEquals(features.stream().map(Feature::getName).collect(Collectors.toList()),
+				parallelFeatures.stream().map(Feature::getName).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void snapshot() throws FileNotFoundException, IOException {
+		String snapshotDir = temporaryFolder.getRoot().getPath();
+
+		ExcelReader reader = new ExcelReader(path, true);
+		reader.setSnapshotDir(snapshotDir);
+		reader.read();
+
+		assertFalse(reader.isSnapshotLoaded());
+
+		// 第二次讀取Excel未變更，直接由快照載入
+		ExcelReader snapshotReader = new ExcelReader(path);
+		snapshotReader.setSnapshotDir(snapshotDir);
+		snapshotReader.read();
+
+		assertTrue(snapshotReader.isSnapshotLoaded());
+		assertEquals(reader.getCount(), snapshotReader.getCount());
+		assertEquals(reader.getFingerprints(), snapshotReader.getFingerprints());
+		assertEquals(reader.getData().get(ScriptMapper.TYPE).toString(),
+				snapshotReader.getData().get(ScriptMapper.TYPE).toString());
+	}
+
+	@Test
+	public void snapshotFilteredRegistry() throws FileNotFoundException, IOException {
+		String snapshotDir = temporaryFolder.newFolder().getPath();
+
+		// 管線模式第一階段只讀取script以外的Sheet
+		ExcelReader partialReader = new ExcelReader(path, true);
+		partialReader.setRegistry(
+				ExcelSheetMapperRegistry.getDefault().filter(type -> !ScriptMapper.TYPE.equals(type)));
+		partialReader.setSnapshotDir(snapshotDir);
+		partialReader.read();
+
+		// 部分讀取的結果不可作為完整讀取的快照
+		ExcelReader reader = new ExcelReader(path);
+		reader.setSnapshotDir(snapshotDir);
+		reader.read();
+
+		assertFalse(reader.isSnapshotLoaded());
+		assertFalse(((List<?>) reader.getData().get(ScriptMapper.TYPE)).isEmpty());
+	}
+
+	@Test
+	public void snapshotSameName() throws FileNotFoundException, IOException {
+		String snapshotDir = temporaryFolder.newFolder().getPath();
+
+		// 不同目錄下的同名Excel共用快照目錄
+		File[] files = { new File(temporaryFolder.newFolder("a"), "login.xlsx"),
+				new File(temporaryFolder.newFolder("b"), "login.xlsx") };
+		for (int i = 0; i < files.length; i++) {
+			Files.copy(Paths.get(path), files[i].toPath());
+			Files.setLastModifiedTime(files[i].toPath(), FileTime.fromMillis(1000L * (i + 1)));
+
+			ExcelReader reader = new ExcelReader(files[i].getPath());
+			reader.setSnapshotDir(snapshotDir);
+			reader.read();
+		}
+
+		// 各自的快照不互相覆蓋
+		for (File file : files) {
+			ExcelReader reader = new ExcelReader(file.getPath());
+			reader.setSnapshotDir(snapshotDir);
+			reader.read();
+
+			assertTrue(file.getPath(), reader.isSnapshotLoaded());
+		}
+	}
+
+	@Test
+	public void formula() throws FileNotFoundException, IOException {
+		File file = temporaryFolder.newFile("formula.xlsx");
+
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			Sheet sheet = wb.createSheet("s1");
+			sheet.createRow(0).createCell(0).setCellValue("script");
+			sheet.createRow(1).createCell(1).setCellValue("FormulaFeature");
+			sheet.createRow(3).createCell(1).setCellValue("demo");
+
+			Row row = sheet.createRow(4);
+			row.createCell(0).setCellValue("MethodName");
+			row.createCell(1).setCellValue("formula");
+
+			row = sheet.createRow(5);
+			row.createCell(0).setCellValue("When");
+			row.createCell(1).setCellValue("輸入金額");
+			row.createCell(2).setCellValue("ByName");
+			row.createCell(3).setCellFormula("\"金\"&\"額\"");
+			row.createCell(4).setCellValue("sendKeys");
+			row.createCell(5).setCellFormula("40+2");
+
+			// 串流讀取使用存檔時的結果
+			XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
+
+			try (OutputStream out = new FileOutputStream(file)) {
+				wb.write(out);
+			}
+		}
+
+		ExcelReader reader = new ExcelReader(file.getPath());
+		reader.read();
+
+		ExcelReader streamingReader = new ExcelReader(file.getPath(), true);
+		streamingReader.read();
+
+		List<Feature> features = (List<Feature>) reader.getData().get(ScriptMapper.TYPE);
+
+		assertEquals("[金額, sendKeys, 42]",
+				features.get(0).getScenarios().get(0).getSteps().get(0).getCommand().getParams().toString());
+		assertEquals(features.toString(), streamingReader.getData().get(ScriptMapper.TYPE).toString());
+		assertEquals(reader.getFingerprints(), streamingReader.getFingerprints());
+	}
 }
@@ -0,0 +1,77 @@
+package generator;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.lang.model.element.Modifier;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.junit.Test;
+
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+public class InMemoryCompilerTest {
+
+	@Test
+	public void compile() {
+		JavaFile javaFile = javaFile("return;\n");
+
+		InMemoryCompiler.Result result = new InMemoryCompiler().compile(Arrays.asList(javaFile));
+
+		assertTrue(result.isSuccess());
+		assertTrue(result.getClasses().containsKey("com.esun.automation.demo.DemoTest"));
+	}
+
+	@Test
+	public void diagnostic() {
+		JavaFile javaFile = javaFile("undefined.click();\n");
+
+		InMemoryCompiler.Result result = new InMemoryCompiler().compile(Arrays.asList(javaFile));
+
+		assertFalse(result.isSuccess());
+		assertTrue(result.getClasses().isEmpty());
+
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = result.getDiagnostics();
+		CompileDiagnostic diagnostic = CompileDiagnostic.of(diagnostics.get(0), "DemoTest.java", "demo");
+
+		// 錯誤在scenario0的第二個Step
+		assertEquals(Diagnostic.Kind.ERROR, diagnostic.getKind());
+		assertEquals("demo", diagnostic.getSheetName());
+		assertEquals("scenario0", diagnostic.getMethodName());
+		assertEquals(2, diagnostic.getStepIndex());
+		assertEquals("When 點擊確認 ByName [確認, click]", diagnostic.getStep());
+	}
+
+	@Test
+	public void diagnosticInPart() {
+		MethodSpec part = MethodSpec.methodBuilder("scenario0Part2").addModifiers(Modifier.PRIVATE)
+				.addJavadoc("scenario0 Step 3~4\n").addComment("When 輸入帳號 ByName [帳號, sendKeys]")
+				.addCode("$T.yield();\n", Thread.class).addComment("When 點擊確認 ByName [確認, click]")
+				.addCode("undefined.click();\n").build();
+
+		JavaFile javaFile = JavaFile.builder("com.esun.automation.demo",
+				TypeSpec.classBuilder("DemoTest").addModifiers(Modifier.PUBLIC).addMethod(part).build()).build();
+
+		InMemoryCompiler.Result result = new InMemoryCompiler().compile(Arrays.asList(javaFile));
+		CompileDiagnostic diagnostic = CompileDiagnostic.of(result.getDiagnostics().get(0), "DemoTest.java", "demo");
+
+		// 分割的Method對應回Scenario，Step從Scenario開頭計算
+		assertEquals("scenario0", diagnostic.getMethodName());
+		assertEquals(4, diagnostic.getStepIndex());
+		assertEquals("When 點擊確認 ByName [確認, click]", diagnostic.getStep());
+	}
+
+	private JavaFile javaFile(String secondStep) {
+		MethodSpec method = MethodSpec.methodBuilder("scenario0").addModifiers(Modifier.PUBLIC)
+				.addComment("Given 開啟App Waiting_1s []").addCode("$T.yield();\n", Thread.class)
+				.addComment("When 點擊確認 ByName [確認, click]").addCode(secondStep).build();
+
+		return JavaFile.builder("com.esun.automation.demo",
+				TypeSpec.classBuilder("DemoTest").addModifiers(Modifier.PUBLIC).addMethod(method).build()).build();
+	}
+}
@@ -0,0 +1,79 @@
+package generator;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WorkbookWatcherTest {
+
+	private static final long DEBOUNCE_MILLIS = 200;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void regenerateOncePerBurst() throws Exception {
+
+		Path dir = folder.newFolder().toPath();
+		Path workbook = Files.write(dir.resolve("login.xlsx"), new byte[] { 0 });
+
+		// 只記錄要產生的Excel，不實際讀取
+		BlockingQueue<List<Path>> generated = new LinkedBlockingQueue<>();
+		BatchGenerator batchGenerator = new BatchGenerator(folder.newFolder().getPath()) {
+			@Override
+			public Map<Path, Throwable> generate(List<Path> workbooks) {
+				generated.add(workbooks);
+				return Collections.emptyMap();
+			}
+		};
+
+		try (WorkbookWatcher watcher = new WorkbookWatcher(batchGenerator, dir.toString())) {
+			watcher.setDebounceMillis(DEBOUNCE_MILLIS);
+
+			Thread thread = new Thread(() -> {
+				try {
+					watcher.run();
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			thread.start();
+
+			// 啟動時完整產生一次
+			assertEquals(Arrays.asList(workbook), generated.poll(10, TimeUnit.SECONDS));
+
+			// Excel存檔時連續寫入，並產生鎖定檔
+			for (int i = 1; i <= 5; i++) {
+				Files.write(workbook, new byte[] { (byte) i });
+				Files.write(dir.resolve("~$login.xlsx"), new byte[] { (byte) i });
+				Thread.sleep(DEBOUNCE_MILLIS / 10);
+			}
+
+			List<Path> regenerated = generated.poll(10, TimeUnit.SECONDS);
+			assertEquals(1, regenerated.size());
+			assertEquals(workbook.toRealPath(), regenerated.get(0).toRealPath());
+			assertNull(generated.poll(DEBOUNCE_MILLIS * 5, TimeUnit.MILLISECONDS));
+
+			// 只有鎖定檔變動時不重新產生
+			Files.write(dir.resolve("~$login.xlsx"), new byte[] { 9 });
+			assertNull(generated.poll(DEBOUNCE_MILLIS * 5, TimeUnit.MILLISECONDS));
+
+			watcher.close();
+			thread.join(10000);
+			assertFalse(thread.isAlive());
+		}
+	}
+}
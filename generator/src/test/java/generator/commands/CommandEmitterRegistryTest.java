@@ -0,0 +1,70 @@
+package generator.commands;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.squareup.javapoet.CodeBlock;
+
+import generator.GenerationContext;
+import models.commands.CommandNode;
+import models.commands.ElementCommand;
+import models.commands.TouchActionCommand;
+import models.commands.WaitingCommand;
+
+public class CommandEmitterRegistryTest {
+
+	private static class ScreenshotEmitter implements CommandEmitter<CommandNode> {
+
+		@Override
+		public void emit(CodeBlock.Builder code, CommandNode command, GenerationContext context) {
+			code.add("driver.getScreenshotAs(OutputType.FILE);\n");
+		}
+
+		@Override
+		public String getKind() {
+			return "Screenshot";
+		}
+
+		@Override
+		public CommandNode parse(String type, List<Object> params) {
+			return "Screenshot".equals(type) ? this::getKind : null;
+		}
+	}
+
+	@Test
+	public void parse() {
+		CommandEmitterRegistry registry = new CommandEmitterRegistry(Collections.emptyList());
+
+		ElementCommand element = (ElementCommand) registry.parse("ByXPath", Arrays.asList("//a", "sendKeys", "42"));
+		assertEquals("xpath", element.getLocator());
+		assertEquals("sendKeys", element.getAction());
+		assertEquals("42", element.getValue());
+
+		assertEquals(3, ((TouchActionCommand) registry.parse("TouchAction_1.5", Collections.emptyList())).getTimes());
+		assertEquals(Integer.valueOf(5),
+				((WaitingCommand) registry.parse("Waiting_5s", Collections.emptyList())).getSeconds());
+		assertEquals(Integer.valueOf(3), ((WaitingCommand) registry.parse("Waiting", Arrays.asList("3"))).getSeconds());
+		assertTrue(((WaitingCommand) registry.parse("Waiting", Arrays.asList("3", "sleep"))).isFixed());
+		assertFalse(((WaitingCommand) registry.parse("Waiting_5s", Collections.emptyList())).isFixed());
+
+		// 共用步驟、測試資料由Step描述對應，無Emitter
+		assertNull(registry.parse("Account", Collections.emptyList()));
+		assertNull(registry.parse(null, Collections.emptyList()));
+	}
+
+	@Test
+	public void customEmitter() {
+		CommandEmitterRegistry registry = new CommandEmitterRegistry(Arrays.asList(new ScreenshotEmitter()));
+
+		CommandNode command = registry.parse("Screenshot", Collections.emptyList());
+
+		assertTrue(registry.canEmit(command));
+		assertEquals("driver.getScreenshotAs(OutputType.FILE);\n", registry.emit(command, null).toString());
+		assertEquals("", registry.emitAssertion(command, null).toString());
+	}
+}
@@ -0,0 +1,71 @@
+package generator.peephole;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import generator.commands.CommandEmitterRegistry;
+import generator.test.utils.CommandUtils;
+import models.Command;
+import models.Step;
+import models.commands.ExplicitWaitCommand;
+import models.commands.WaitingCommand;
+
+public class PeepholeOptimizerTest {
+
+	private final CommandEmitterRegistry registry = CommandEmitterRegistry.getDefault();
+
+	@Test
+	public void explicitWaits() {
+		PeepholeOptimizer optimizer = new PeepholeOptimizer();
+		optimizer.setEnabled("merge-waits", true);
+		optimizer.setEnabled("explicit-waits", true);
+
+		List<Step> steps = Arrays.asList(step("When", "Waiting_5s"), step("When", "Waiting", "3"),
+				step("When", "ByName", "帳號", "click"), step("When", "Waiting", "2", "sleep"),
+				step("When", "ByName", "帳號", "sendKeys", "abc"), step("When", "Waiting_1s"),
+				step("Then", "ByXPath", "//a"));
+
+		List<Step> optimized = optimizer.optimize("test", steps, step -> step.getCommand().getNode());
+
+		// 合併後的Waiting改為等待下一個元件，秒數為上限
+		assertEquals(6, optimized.size());
+		ExplicitWaitCommand clickable = (ExplicitWaitCommand) optimized.get(0).getCommand().getNode();
+		assertEquals(CommandUtils.CLICKABLE, clickable.getCondition());
+		assertEquals(8, clickable.getSeconds());
+
+		// 固定等待不變
+		assertTrue(((WaitingCommand) optimized.get(2).getCommand().getNode()).isFixed());
+
+		ExplicitWaitCommand present = (ExplicitWaitCommand) optimized.get(4).getCommand().getNode();
+		assertEquals(CommandUtils.PRESENT, present.getCondition());
+		assertEquals("xpath", present.getLocator());
+
+		// 原本的Step不修改
+		assertEquals(7, steps.size());
+		assertTrue(steps.get(0).getCommand().getNode() instanceof WaitingCommand);
+	}
+
+	@Test
+	public void disabled() {
+		List<Step> steps = Arrays.asList(step("When", "Waiting_5s"), step("When", "ByName", "帳號", "click"));
+
+		assertSame(steps, new PeepholeOptimizer().optimize("test", steps, step -> step.getCommand().getNode()));
+	}
+
+	private Step step(String gherkinType, String type, Object... params) {
+		Command command = new Command();
+		command.setType(type);
+		Arrays.asList(params).forEach(command::addParam);
+		registry.parse(command);
+
+		Step step = new Step();
+		step.setGherkinType(gherkinType);
+		step.setDesc(type);
+		step.setCommand(command);
+		return step;
+	}
+}
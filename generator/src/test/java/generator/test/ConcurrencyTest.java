@@ -0,0 +1,215 @@
+package generator.test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openqa.selenium.By;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import generator.test.annotation.NoResetSetting;
+import generator.test.annotation.TestingAccount;
+import generator.test.rules.ExceptionRule;
+import generator.test.rules.NoResetSettingRule;
+import generator.test.rules.UserLoginTestRule;
+import generator.test.utils.CommandUtils;
+
+/**
+ * 多個Test同時共用Rule與CommandUtils時，各Test只看到自己的設定與driver
+ */
+public class ConcurrencyTest {
+
+	private static final int TESTS = 400;
+
+	private static final int THREADS = 16;
+
+	@Test
+	public void commandUtils() throws Exception {
+
+		// 等待期間implicitlyWait應維持0，不被其他Thread還原
+		AtomicInteger implicitlyWait = new AtomicInteger(10);
+		AtomicInteger violations = new AtomicInteger();
+		WebDriver driver = createDriver(implicitlyWait, violations, null);
+
+		run(i -> CommandUtils.waitFor(driver, 1, By.name("button" + i), CommandUtils.CLICKABLE, 10));
+
+		Assert.assertEquals(0, violations.get());
+		Assert.assertEquals(10, implicitlyWait.get());
+	}
+
+	@Test
+	public void rules() throws Exception {
+
+		ExceptionRule exceptionRule = new ExceptionRule();
+		NoResetSettingRule noResetSettingRule = new NoResetSettingRule();
+		UserLoginTestRule userLoginTestRule = new UserLoginTestRule();
+
+		Method[] methods = { getClass().getDeclaredMethod("annotated"), getClass().getDeclaredMethod("plain") };
+		Queue<Integer> screenshots = new ConcurrentLinkedQueue<>();
+
+		run(i -> {
+			Method method = methods[i % methods.length];
+			Description description = Description.createTestDescription(getClass(), method.getName() + i,
+					method.getAnnotations());
+			boolean fail = i % 8 == 0;
+
+			Statement test = new Statement() {
+
+				@Override
+				public void evaluate() throws Throwable {
+					exceptionRule.setDriver(createDriver(new AtomicInteger(), new AtomicInteger(), screenshots, i));
+					Thread.yield();
+
+					if (method.getName().equals("annotated")) {
+						Assert.assertEquals(Boolean.FALSE, noResetSettingRule.isNoReset());
+						Assert.assertTrue(userLoginTestRule.getHasUser());
+						Assert.assertEquals("user", userLoginTestRule.getUserName());
+					} else {
+						Assert.assertNull(noResetSettingRule.isNoReset());
+						Assert.assertFalse(userLoginTestRule.getHasUser());
+						Assert.assertNull(userLoginTestRule.getUserName());
+					}
+
+					if (fail) {
+						throw new IllegalStateException("test " + i);
+					}
+				}
+			};
+
+			try {
+				exceptionRule.apply(noResetSettingRule.apply(userLoginTestRule.apply(test, description), description),
+						description).evaluate();
+				Assert.assertFalse(fail);
+			} catch (IllegalStateException e) {
+				Assert.assertEquals("test " + i, e.getMessage());
+			}
+		});
+
+		// 失敗的Test以自己的driver截圖
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < TESTS; i += 8) {
+			expected.add(i);
+		}
+		List<Integer> actual = new ArrayList<>(screenshots);
+		actual.sort(null);
+		Assert.assertEquals(expected, actual);
+	}
+
+	@NoResetSetting(noReset = false)
+	@TestingAccount(userName = "user", pid = "pid", password = "password")
+	void annotated() {
+	}
+
+	void plain() {
+	}
+
+	private WebDriver createDriver(AtomicInteger implicitlyWait, AtomicInteger violations,
+			Queue<Integer> screenshots) {
+		return createDriver(implicitlyWait, violations, screenshots, -1);
+	}
+
+	/**
+	 * 只實作CommandUtils與ExceptionRule使用到的Method
+	 */
+	private WebDriver createDriver(AtomicInteger implicitlyWait, AtomicInteger violations, Queue<Integer> screenshots,
+			int id) {
+
+		ClassLoader loader = getClass().getClassLoader();
+
+		WebElement element = (WebElement) Proxy.newProxyInstance(loader, new Class<?>[] { WebElement.class },
+				(proxy, method, args) -> method.getReturnType() == boolean.class ? true : null);
+
+		WebDriver.Timeouts timeouts = (WebDriver.Timeouts) Proxy.newProxyInstance(loader,
+				new Class<?>[] { WebDriver.Timeouts.class }, (proxy, method, args) -> {
+					if ("implicitlyWait".equals(method.getName())) {
+						implicitlyWait.set(((Number) args[0]).intValue());
+					}
+					return proxy;
+				});
+
+		WebDriver.Options options = (WebDriver.Options) Proxy.newProxyInstance(loader,
+				new Class<?>[] { WebDriver.Options.class }, (proxy, method, args) -> timeouts);
+
+		return (WebDriver) Proxy.newProxyInstance(loader, new Class<?>[] { WebDriver.class, TakesScreenshot.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "manage":
+						return options;
+					case "findElement":
+					case "findElements":
+						// 查詢期間其他Thread可能還原implicitlyWait
+						for (int check = 0; check < 2; check++) {
+							if (implicitlyWait.get() != 0) {
+								violations.incrementAndGet();
+							}
+							Thread.sleep(1);
+						}
+						return method.getName().equals("findElement") ? element : Collections.singletonList(element);
+					case "getScreenshotAs":
+						screenshots.add(id);
+						throw new WebDriverException("stub driver");
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return null;
+					}
+				});
+	}
+
+	private interface TestTask {
+		void run(int i) throws Throwable;
+	}
+
+	/**
+	 * 以THREADS個Thread同時執行TESTS次
+	 */
+	private void run(TestTask task) throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < TESTS; i++) {
+				int index = i;
+				futures.add(executor.submit(() -> {
+					start.await();
+					try {
+						task.run(index);
+					} catch (Exception | Error e) {
+						throw e;
+					} catch (Throwable e) {
+						throw new AssertionError(e);
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
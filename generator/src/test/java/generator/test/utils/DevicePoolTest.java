@@ -0,0 +1,123 @@
+package generator.test.utils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import com.sun.net.httpserver.HttpServer;
+
+import generator.test.rules.DevicePoolRule;
+
+public class DevicePoolTest {
+
+	private HttpServer down;
+
+	private HttpServer up;
+
+	@Before
+	public void setUp() throws IOException {
+		up = startStub(200);
+		down = startStub(503);
+	}
+
+	@After
+	public void tearDown() {
+		up.stop(0);
+		down.stop(0);
+	}
+
+	@Test
+	public void lease() throws Exception {
+
+		AppiumDevice upDevice = new AppiumDevice("iPhone 8", getUrl(up), 8100, null);
+		AppiumDevice downDevice = new AppiumDevice("iPhone 8", getUrl(down), 8101, null);
+		DevicePool pool = new DevicePool(Arrays.asList(downDevice, upDevice));
+
+		// 無回應的裝置略過，改租借可用的裝置
+		Assert.assertSame(upDevice, pool.lease(5, TimeUnit.SECONDS));
+
+		try {
+			pool.lease(300, TimeUnit.MILLISECONDS);
+			Assert.fail();
+		} catch (TimeoutException e) {
+			// 可用的裝置已租借
+		}
+
+		pool.release(upDevice);
+		Assert.assertSame(upDevice, pool.lease(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void parse() {
+
+		List<AppiumDevice> devices = DevicePool
+				.parse("iPhone 8|http://127.0.0.1:4723/wd/hub|8100; iPhone X|http://127.0.0.1:4724/wd/hub|8101|abc");
+
+		Assert.assertEquals(2, devices.size());
+		Assert.assertEquals("iPhone X", devices.get(1).getName());
+		Assert.assertEquals(4724, devices.get(1).getUrl().getPort());
+		Assert.assertEquals(8101, devices.get(1).getWdaLocalPort());
+		Assert.assertEquals("abc", devices.get(1).getUdid());
+		Assert.assertNull(devices.get(0).getUdid());
+	}
+
+	@Test
+	public void rule() throws Throwable {
+
+		AppiumDevice device = new AppiumDevice("iPhone 8", getUrl(up), 8100, null);
+		DevicePool pool = new DevicePool(Arrays.asList(device));
+		DevicePoolRule rule = new DevicePoolRule(pool);
+
+		rule.apply(new Statement() {
+
+			@Override
+			public void evaluate() throws Throwable {
+				// Test Class執行期間租借，結束後歸還
+				Assert.assertSame(device, rule.getDevice(DevicePoolTest.class));
+				Assert.assertEquals(0, pool.getAvailableCount());
+
+				// Test Method在其他Thread執行(ParallelComputer)時也可取得
+				CompletableFuture<AppiumDevice> methodThread = CompletableFuture
+						.supplyAsync(() -> rule.getDevice(DevicePoolTest.class));
+				Assert.assertSame(device, methodThread.get(10, TimeUnit.SECONDS));
+			}
+		}, Description.createSuiteDescription(DevicePoolTest.class)).evaluate();
+
+		Assert.assertEquals(1, pool.getAvailableCount());
+	}
+
+	private URL getUrl(HttpServer server) throws IOException {
+		return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/wd/hub");
+	}
+
+	/**
+	 * 模擬Appium的/status
+	 * 
+	 * @param status
+	 * @return
+	 * @throws IOException
+	 */
+	private HttpServer startStub(int status) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/wd/hub/status", exchange -> {
+			byte[] body = "{\"status\":0}".getBytes("UTF-8");
+			exchange.sendResponseHeaders(status, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+		return server;
+	}
+}
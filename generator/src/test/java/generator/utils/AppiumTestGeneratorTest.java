@@ -1,18 +1,121 @@
 package generator.utils;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import generator.AppiumTestGenerator;
+import generator.BatchGenerator;
 import generator.ExcelReader;
+import generator.GenerationManifest;
+import generator.PipelinedGenerator;
+import generator.frameworks.JUnit5Framework;
 
 public class AppiumTestGeneratorTest {
 
 	private String path = "data/ScriptGenerator.xlsx";
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void batch() throws IOException {
+
+		File outDir = folder.newFolder();
+
+		BatchGenerator generator = new BatchGenerator(outDir.getPath());
+
+		generator.setParallelism(2);
+
+		Assert.assertTrue(generator.generate("data/*.xlsx").isEmpty());
+
+		Assert.assertTrue(
+				new File(generator.getWorkbookOutputDir(Paths.get("data/ScriptGenerator.xlsx")), "com").isDirectory());
+	}
+
+	@Test
+	public void batchSameName() throws IOException {
+
+		// 不同目錄下的同名Excel，產生的Class名稱也相同
+		Path inputDir = folder.newFolder().toPath();
+		List<Path> workbooks = Arrays.asList(copyWorkbook(inputDir.resolve("a/login.xlsx"), ""),
+				copyWorkbook(inputDir.resolve("b/login.xlsx"), ""));
+
+		File outDir = folder.newFolder();
+		File jarDir = folder.newFolder();
+
+		BatchGenerator generator = new BatchGenerator(outDir.getPath());
+		generator.setParallelism(2);
+		generator.setJarDir(jarDir.getPath());
+
+		Assert.assertTrue(generator.generate(workbooks).isEmpty());
+
+		// 各自輸出至不同目錄及Jar，不互相覆蓋
+		Assert.assertNotEquals(generator.getWorkbookOutputDir(workbooks.get(0)),
+				generator.getWorkbookOutputDir(workbooks.get(1)));
+		for (Path workbook : workbooks) {
+			Map<String, String> sources = readSources(Paths.get(generator.getWorkbookOutputDir(workbook)));
+			Assert.assertEquals(new HashSet<>(Arrays.asList("LoginUtils.java", "LoginFeatureTest.java",
+					"TransferFeatureTest.java")), sources.keySet());
+		}
+		Assert.assertEquals(2, listFiles(jarDir.toPath()).size());
+	}
+
+	@Test
+	public void batchSharedOutputDir() throws IOException {
+
+		Path inputDir = folder.newFolder().toPath();
+		List<Path> workbooks = Arrays.asList(copyWorkbook(inputDir.resolve("a/login.xlsx"), ""),
+				copyWorkbook(inputDir.resolve("b/login.xlsx"), "Other"));
+
+		File outDir = folder.newFolder();
+
+		// merged模式所有Excel輸出至同一目錄，Class名稱需不同
+		BatchGenerator generator = new BatchGenerator(outDir.getPath());
+		generator.setMerged(true);
+		generator.setParallelism(2);
+
+		// 第二次依上次的檔案清單刪除過期檔案，不可刪除另一個Excel產生的檔案
+		for (int i = 0; i < 2; i++) {
+			Assert.assertTrue(generator.generate(workbooks).isEmpty());
+		}
+
+		List<String> names = listFiles(outDir.toPath()).stream().map(file -> file.getFileName().toString())
+				.collect(Collectors.toList());
+		Assert.assertTrue(names.toString(), names.containsAll(Arrays.asList("LoginFeatureTest.java",
+				"TransferFeatureTest.java", "OtherLoginFeatureTest.java", "OtherTransferFeatureTest.java")));
+	}
+
 	@Test
 	public void test() throws FileNotFoundException, IOException {
 
@@ -34,4 +137,395 @@ public class AppiumTestGeneratorTest {
 
 		generator.writeTo();
 	}
+
+	@Test
+	public void peephole() throws IOException {
+
+		File outDir = folder.newFolder();
+
+		AppiumTestGenerator generator = generate(path, outDir, g -> {
+			g.getOptimizer().setEnabledAll(true);
+			g.setCompileCheck(true);
+		});
+
+		Assert.assertTrue(generator.getOptimizer().getChangeCount() > 0);
+
+		// 連續的Waiting合併，同一元件只取得一次
+		String source = readSources(outDir.toPath()).get("LoginFeatureTest.java");
+		Assert.assertTrue(source.contains("Thread.sleep(8* 1000)"));
+		Assert.assertFalse(source.contains("Thread.sleep(3* 1000)"));
+		Assert.assertTrue(source.contains("element.sendKeys("));
+	}
+
+	@Test
+	public void pipelined() throws IOException {
+
+		File outDir = folder.newFolder();
+		File pipelinedOutDir = folder.newFolder();
+
+		generate(path, outDir, generator -> {
+		});
+
+		new PipelinedGenerator(path, pipelinedOutDir.getPath()).generate();
+
+		// 管線模式輸出需與一般模式相同
+		assertSameFiles(outDir.toPath(), pipelinedOutDir.toPath());
+	}
+
+	@Test
+	public void pipelinedPeephole() throws IOException {
+
+		File outDir = folder.newFolder();
+		File pipelinedOutDir = folder.newFolder();
+
+		AppiumTestGenerator generator = generate(path, outDir, g -> g.getOptimizer().setEnabledAll(true));
+
+		PipelinedGenerator pipelinedGenerator = new PipelinedGenerator(path, pipelinedOutDir.getPath());
+		pipelinedGenerator.setPeepholePasses(generator.getOptimizer().getPassNames());
+		pipelinedGenerator.generate();
+
+		// 管線模式同樣套用PeepholePass
+		assertSameFiles(outDir.toPath(), pipelinedOutDir.toPath());
+
+		// 管線模式不支援的選項不可被忽略
+		BatchGenerator batchGenerator = new BatchGenerator(folder.newFolder().getPath());
+		batchGenerator.setPipelined(true);
+		batchGenerator.setCompileCheck(true);
+		try {
+			batchGenerator.generate(path);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			Assert.assertTrue(e.getMessage().contains("--check"));
+		}
+	}
+
+	@Test
+	public void devicePool() throws IOException {
+
+		Map<String, String> sources = generate(generator -> {
+			generator.setSharedBaseClass(true);
+			generator.setDevicePool(true);
+			generator.setCompileCheck(true);
+		});
+
+		// 裝置與Appium URL由DevicePoolRule租借
+		String source = sources.get("AbstractAppiumTest.java");
+		Assert.assertTrue(source.contains("@ClassRule"));
+		Assert.assertTrue(source.contains("devicePoolRule.getDevice(getClass()).applyTo(capabilities);"));
+		Assert.assertTrue(source.contains(
+				"new IOSDriver<MobileElement>(devicePoolRule.getDevice(getClass()).getUrl(), capabilities)"));
+	}
+
+	@Test
+	public void extractSequences() throws IOException {
+
+		Map<String, String> sources = generate(generator -> {
+			generator.setExtractSequences(true);
+			generator.setCompileCheck(true);
+		});
+
+		// 重複的Step只產生於SharedSteps，Test Class改為呼叫
+		Assert.assertTrue(sources.containsKey("SharedSteps.java"));
+
+		sources.forEach((file, source) -> {
+			if (file.endsWith("FeatureTest.java")) {
+				Assert.assertTrue(source.contains("SharedSteps.sequence1("));
+			}
+		});
+	}
+
+	@Test
+	public void jar() throws IOException {
+
+		File outDir = folder.newFolder();
+		File jarFile = new File(folder.getRoot(), "suite.jar");
+
+		ExcelReader reader = new ExcelReader(path);
+		reader.read();
+
+		AppiumTestGenerator generator = new AppiumTestGenerator(reader);
+		generator.setOutputDir(outDir.getPath());
+		generator.generate();
+		generator.writeJar(jarFile.getPath());
+
+		try (JarFile jar = new JarFile(jarFile)) {
+			List<String> entries = jar.stream().map(JarEntry::getName).collect(Collectors.toList());
+
+			// 測試Class與執行期需要的generator.test Class
+			Assert.assertTrue(entries.contains("com/esun/automation/module/login/LoginUtils.class"));
+			Assert.assertTrue(entries.contains("generator/test/rules/ExceptionRule.class"));
+			Assert.assertTrue(entries.contains("generator/test/utils/CommandUtils.class"));
+		}
+
+		// 只寫入Jar，不輸出原始碼
+		Assert.assertTrue(listFiles(outDir.toPath()).isEmpty());
+	}
+
+	@Test
+	public void junit5() throws IOException {
+
+		Map<String, String> sources = generate(generator -> {
+			generator.setTestFramework(new JUnit5Framework());
+			generator.setCompileCheck(true);
+		});
+
+		// Extension取代Rule，Test Class可同時執行但不同時使用同一裝置
+		String source = sources.get("LoginFeatureTest.java");
+		Assert.assertTrue(source.contains("import static org.junit.jupiter.api.Assertions.*;"));
+		Assert.assertTrue(source.contains("public ExceptionExtension exceptionRule"));
+		Assert.assertTrue(source.contains("@Execution(ExecutionMode.CONCURRENT)"));
+		Assert.assertTrue(source.contains("@ResourceLock(\"appium:"));
+		Assert.assertTrue(source.contains("@Tag(\"demo\")"));
+		Assert.assertFalse(source.contains("org.junit.Rule"));
+	}
+
+	@Test
+	public void parallel() throws IOException {
+
+		File outDir = folder.newFolder();
+		File parallelOutDir = folder.newFolder();
+
+		AppiumTestGenerator generator = generate(path, outDir, g -> {
+		});
+		AppiumTestGenerator parallelGenerator = generate(path, parallelOutDir, g -> g.setParallelism(4));
+
+		// 平行產生輸出需與依序產生完全相同
+		assertSameFiles(outDir.toPath(), parallelOutDir.toPath());
+
+		// 重複的Step只產生一次Code
+		Assert.assertTrue(generator.getStepCache().getHitCount() > 0);
+		Assert.assertEquals(generator.getStepCache().size(), generator.getStepCache().getMissCount());
+		Assert.assertEquals(generator.getStepCache().size(), parallelGenerator.getStepCache().size());
+	}
+
+	@Test
+	public void sessionScope() throws IOException {
+
+		Map<String, String> sources = generate(generator -> {
+			generator.setSessionScope(AppiumTestGenerator.SESSION_CLASS);
+			generator.setCompileCheck(true);
+		});
+
+		// setUp沿用Session，Test Class結束時才結束Session
+		String source = sources.get("LoginFeatureTest.java");
+		Assert.assertTrue(source.contains("driver= AppiumSessions.acquire(getClass(), new URL("));
+		Assert.assertTrue(source.contains("@AfterClass"));
+		Assert.assertTrue(source.contains("AppiumSessions.quit(LoginFeatureTest.class);"));
+		Assert.assertFalse(source.contains("new IOSDriver"));
+	}
+
+	@Test
+	public void sharedBaseClass() throws IOException {
+
+		Map<String, String> sources = generate(generator -> generator.setSharedBaseClass(true));
+
+		Assert.assertTrue(sources.containsKey("AbstractAppiumTest.java"));
+
+		// setUp只存在於Base Class，Test Class繼承Base Class
+		sources.forEach((file, source) -> {
+			if (file.endsWith("FeatureTest.java")) {
+				Assert.assertTrue(source.contains("extends AbstractAppiumTest"));
+				Assert.assertFalse(source.contains("setUp"));
+			}
+		});
+	}
+
+	@Test
+	public void splitMethods() throws IOException {
+
+		Map<String, String> sources = generate(generator -> {
+			generator.setMaxMethodSize(100);
+			generator.setCompileCheck(true);
+		});
+
+		// 分割後仍可編譯，Test Method依序呼叫分割的Method
+		String source = sources.get("LoginFeatureTest.java");
+		Assert.assertTrue(source.contains("Part1();"));
+		Assert.assertTrue(source.contains("private void "));
+	}
+
+	@Test
+	public void splitMethodsNameConflict() throws IOException {
+
+		// 其他Scenario名稱與分割Method同名
+		Path workbook = editWorkbook(Paths.get(path), folder.newFolder().toPath().resolve("login.xlsx"), wb -> {
+			wb.getSheet("s1").forEach(row -> {
+				Cell cell = row.getCell(1);
+				if (cell != null && "scenario1".equals(cell.toString())) {
+					cell.setCellValue("scenario0Part1");
+				}
+			});
+		});
+
+		File outDir = folder.newFolder();
+		generate(workbook.toString(), outDir, generator -> {
+			generator.setMaxMethodSize(100);
+			generator.setCompileCheck(true);
+		});
+
+		String source = readSources(outDir.toPath()).get("LoginFeatureTest.java");
+		Assert.assertTrue(source.contains("public void scenario0Part1()"));
+		Assert.assertTrue(source.contains("private void scenario0Part_1()"));
+		Assert.assertTrue(source.contains("private void scenario0Part1Part1()"));
+	}
+
+	@Test
+	public void incremental() throws IOException {
+
+		File outDir = folder.newFolder();
+		Path workbook = editWorkbook(Paths.get(path), folder.newFolder().toPath().resolve("login.xlsx"), wb -> {
+		});
+
+		Set<String> all = new HashSet<>(Arrays.asList("LoginUtils", "LoginFeatureTest", "TransferFeatureTest"));
+		Assert.assertEquals(all, generateIncremental(workbook, outDir));
+
+		// 未變更的Sheet略過
+		Assert.assertEquals(Collections.emptySet(), generateIncremental(workbook, outDir));
+
+		// 只重新產生變更的Sheet
+		editWorkbook(workbook, workbook, wb -> wb.getSheet("s1").getRow(5).getCell(1).setCellValue("情境0 修改"));
+		Assert.assertEquals(Collections.singleton("LoginFeatureTest"), generateIncremental(workbook, outDir));
+
+		// 引用的測試資料變更，重新產生引用的Feature
+		editWorkbook(workbook, workbook, wb -> wb.getSheet("data").getRow(3).getCell(3).setCellValue("pass9"));
+		Assert.assertEquals(new HashSet<>(Arrays.asList("LoginFeatureTest", "TransferFeatureTest")),
+				generateIncremental(workbook, outDir));
+
+		// 引用的共用步驟變更(noReset)，共用步驟與引用的Feature皆重新產生
+		editWorkbook(workbook, workbook, wb -> wb.getSheet("common").getRow(5).getCell(3).setCellValue(false));
+		Assert.assertEquals(all, generateIncremental(workbook, outDir));
+
+		// Manifest版本不同時全部重新產生
+		Path manifestFile = GenerationManifest.getManifestFile(outDir.getPath(),
+				ExcelReader.getWorkbookId(workbook.toString()));
+		List<String> lines = Files.readAllLines(manifestFile, StandardCharsets.UTF_8).stream()
+				.map(line -> line.startsWith("version=") ? "version=0" : line).collect(Collectors.toList());
+		Files.write(manifestFile, lines, StandardCharsets.UTF_8);
+		Assert.assertEquals(all, generateIncremental(workbook, outDir));
+		Assert.assertEquals(Collections.emptySet(), generateIncremental(workbook, outDir));
+	}
+
+	@Test
+	public void skipUnchanged() throws IOException {
+
+		File outDir = folder.newFolder();
+
+		generate(path, outDir, generator -> {
+		});
+
+		FileTime epoch = FileTime.fromMillis(0);
+		for (Path file : listFiles(outDir.toPath())) {
+			Files.setLastModifiedTime(outDir.toPath().resolve(file), epoch);
+		}
+
+		generate(path, outDir, generator -> {
+		});
+
+		// 內容未變更的檔案不重新寫入
+		for (Path file : listFiles(outDir.toPath())) {
+			Assert.assertEquals(epoch, Files.getLastModifiedTime(outDir.toPath().resolve(file)));
+		}
+	}
+
+	private void assertSameFiles(Path expectedDir, Path actualDir) throws IOException {
+		List<Path> files = listFiles(expectedDir);
+		Assert.assertEquals(files, listFiles(actualDir));
+
+		for (Path file : files) {
+			Assert.assertArrayEquals(Files.readAllBytes(expectedDir.resolve(file)),
+					Files.readAllBytes(actualDir.resolve(file)));
+		}
+	}
+
+	/**
+	 * 複製範例Excel，Feature名稱加上前綴
+	 */
+	private Path copyWorkbook(Path target, String prefix) throws IOException {
+		return editWorkbook(Paths.get(path), target, wb -> {
+			for (String sheetName : new String[] { "s1", "s2" }) {
+				Cell cell = wb.getSheet(sheetName).getRow(1).getCell(1);
+				cell.setCellValue(prefix + cell.getStringCellValue());
+			}
+		});
+	}
+
+	/**
+	 * 修改Excel後存至target，source與target可相同
+	 */
+	private Path editWorkbook(Path source, Path target, Consumer<XSSFWorkbook> edit) throws IOException {
+		Files.createDirectories(target.getParent());
+
+		try (XSSFWorkbook wb = new XSSFWorkbook(new ByteArrayInputStream(Files.readAllBytes(source)))) {
+			edit.accept(wb);
+			try (OutputStream out = Files.newOutputStream(target)) {
+				wb.write(out);
+			}
+		}
+		return target;
+	}
+
+	/**
+	 * 以範例Excel產生至新的暫存目錄
+	 * 
+	 * @return 產生的原始碼，Key為檔名
+	 */
+	private Map<String, String> generate(Consumer<AppiumTestGenerator> configure) throws IOException {
+		File outDir = folder.newFolder();
+		generate(path, outDir, configure);
+		return readSources(outDir.toPath());
+	}
+
+	/**
+	 * 讀取Excel、產生並輸出，啟用編譯檢查時不可有編譯錯誤
+	 */
+	private AppiumTestGenerator generate(String workbook, File outDir, Consumer<AppiumTestGenerator> configure)
+			throws IOException {
+		ExcelReader reader = new ExcelReader(workbook);
+		reader.read();
+
+		AppiumTestGenerator generator = new AppiumTestGenerator(reader);
+		generator.setOutputDir(outDir.getPath());
+		configure.accept(generator);
+		generator.generate();
+		generator.writeTo();
+
+		Assert.assertTrue(generator.getCompileDiagnostics().stream()
+				.noneMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR));
+		return generator;
+	}
+
+	/**
+	 * 增量產生，回傳重新產生的Class名稱
+	 */
+	private Set<String> generateIncremental(Path workbook, File outDir) throws IOException {
+		return generate(workbook.toString(), outDir, generator -> generator.setIncremental(true)).getJavaFiles()
+				.stream().map(javaFile -> javaFile.typeSpec.name).collect(Collectors.toSet());
+	}
+
+	/**
+	 * 
+	 * @return 目錄下的原始碼，Key為檔名(不可重複)
+	 */
+	private Map<String, String> readSources(Path dir) throws IOException {
+		Map<String, String> sources = new TreeMap<>();
+		for (Path file : listFiles(dir)) {
+			String previous = sources.put(file.getFileName().toString(), readString(dir.resolve(file)));
+			Assert.assertNull(file.toString(), previous);
+		}
+		return sources;
+	}
+
+	private String readString(Path file) {
+		try {
+			return new String(Files.readAllBytes(file), "UTF-8");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private List<Path> listFiles(Path dir) throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			return files.filter(Files::isRegularFile).map(dir::relativize).sorted().collect(Collectors.toList());
+		}
+	}
 }
@@ -0,0 +1,75 @@
+package generator.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+public class ExcelUtilsTest {
+
+	@Test
+	public void getCellValue() throws IOException {
+
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			Cell number = wb.createSheet().createRow(0).createCell(0);
+			number.setCellValue(42d);
+
+			assertEquals("42", ExcelUtils.getCellValue(number).get());
+			assertEquals("42", ExcelUtils.getStringCellValue(number));
+			assertEquals(Integer.valueOf(42), ExcelUtils.getCellValueToInteger(number).get());
+
+			// 讀取後儲存格型別不變
+			assertEquals(CellType.NUMERIC, number.getCellTypeEnum());
+
+			Cell text = number.getRow().createCell(1);
+			text.setCellValue(new String("ByName"));
+
+			assertSame(ExcelUtils.intern("ByName"), ExcelUtils.getCellValue(text).get());
+		}
+	}
+
+	@Test
+	public void getLongNumber() throws IOException {
+
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			Row row = wb.createSheet().createRow(0);
+			row.createCell(0).setCellValue(886912345678d);
+			row.createCell(1).setCellFormula("886912345678+1");
+
+			FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+
+			// 通用格式保留所有位數，不轉為科學記號
+			assertEquals("886912345678", ExcelUtils.getCellValue(row.getCell(0)).get());
+			assertEquals("886912345678", ExcelUtils.getStringCellValue(row.getCell(0)));
+			assertEquals("886912345679", ExcelUtils.getStringCellValue(row.getCell(1), evaluator));
+			assertEquals("886912345678", ExcelUtils.formatNumber(886912345678d, 0, null));
+			assertEquals("0.5", ExcelUtils.formatNumber(0.5d, 0, "General"));
+		}
+	}
+
+	@Test
+	public void getFormulaValue() throws IOException {
+
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			wb.createSheet("data").createRow(0).createCell(0).setCellValue("user1");
+
+			Row row = wb.createSheet().createRow(0);
+			row.createCell(0).setCellFormula("data!A1&\"_x\"");
+			row.createCell(1).setCellFormula("1+2");
+			row.createCell(2).setCellFormula("1>0");
+
+			FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+
+			assertEquals("user1_x", ExcelUtils.getCellValue(row.getCell(0), evaluator).get());
+			assertEquals("3", ExcelUtils.getStringCellValue(row.getCell(1), evaluator));
+			assertEquals(Integer.valueOf(3), ExcelUtils.getCellValueToInteger(row.getCell(1), evaluator).get());
+			assertEquals(Boolean.TRUE, ExcelUtils.getCellValueToBoolean(row.getCell(2), evaluator).get());
+		}
+	}
+}